@@ -1,7 +1,7 @@
 package org.emmef.audio.buckets;
 
 public class BucketScanner implements Detection {
-	public static final long SCALE = 2L^40;
+	public static final long SCALE = 1L << 40;
 	public static final LongInteger ZERO = new LongInteger(1);
 	private static final double WINDOW_MIN = 0.01;
 	private static final double WINDOW_MAX = 0.5;
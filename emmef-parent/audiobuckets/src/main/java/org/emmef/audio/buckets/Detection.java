@@ -3,6 +3,18 @@ package org.emmef.audio.buckets;
 public interface Detection {
 	double addSample(double sample);
 
+	/**
+	 * Adds {@code length} samples of {@code input}, starting at {@code offset},
+	 * and stores the value after each sample at the same position in
+	 * {@code output}. Input and output can be the same array.
+	 */
+	default void addSamples(double[] input, double[] output, int offset, int length) {
+		final int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			output[i] = addSample(input[i]);
+		}
+	}
+
 	void reset();
 
 	boolean isWholeBucketScanned();
@@ -0,0 +1,138 @@
+package org.emmef.audio.buckets;
+
+/**
+ * A {@link BucketScanner} that keeps its sums in primitive longs instead of
+ * {@link LongInteger}s.
+ * <p>
+ * Scaled squares are never negative and at most {@link Long#MAX_VALUE}, so a
+ * sum of a bucket fits in a 128-bit integer. The sums are kept as a high and
+ * an unsigned low word, and the high word only changes when the low word
+ * overflows, which requires samples far above full scale.
+ * <p>
+ * The results are the same as those of a {@link BucketScanner}, including the
+ * minimum and maximum that are reported before the whole bucket was scanned.
+ * Only sums that exceed {@link Long#MAX_VALUE} can be rounded to a slightly
+ * different double.
+ */
+public class LongBucketScanner implements Detection {
+	private static final double TWO_TO_THE_64 = 0x1p64;
+	private static final double WINDOW_MIN = 0.01;
+	private static final double WINDOW_MAX = 0.5;
+
+	private final long[] bucket;
+	private final double multiplier;
+	private int bucketPosition;
+	private long sumHigh;
+	private long sumLow;
+	private long minimumHigh;
+	private long minimumLow;
+	private long maximumHigh;
+	private long maximumLow;
+	private boolean wholeBucket;
+
+	public LongBucketScanner(long sampleRate, double windowSize) {
+		this((int)Math.round(sampleRate * Math.min(WINDOW_MAX, Math.max(WINDOW_MIN, windowSize))));
+	}
+
+	private LongBucketScanner(int bucketSize) {
+		if (bucketSize < 1) {
+			throw new IllegalStateException("Bucket should contain at least 1 sample");
+		}
+		this.bucket = new long[bucketSize];
+		this.multiplier = 1.0 / (1.0 * BucketScanner.SCALE * bucketSize);
+		reset();
+	}
+
+	@Override
+	public double addSample(double sample) {
+		addScaledSample((long) (sample * sample * BucketScanner.SCALE));
+		return getValue();
+	}
+
+	@Override
+	public void reset() {
+		bucketPosition = 0;
+		sumHigh = 0;
+		sumLow = 0;
+		wholeBucket = false;
+		for (int i = 0; i < bucket.length; i++) {
+			bucket[i] = 0;
+		}
+		/*
+		 * Like the BucketScanner: the minimum starts at (size + 1) times
+		 * Long.MAX_VALUE and the maximum at size times Long.MIN_VALUE.
+		 */
+		final long size = bucket.length;
+		minimumHigh = Math.multiplyHigh(Long.MAX_VALUE, size + 1);
+		minimumLow = Long.MAX_VALUE * (size + 1);
+		maximumHigh = Math.multiplyHigh(Long.MIN_VALUE, size);
+		maximumLow = Long.MIN_VALUE * size;
+	}
+
+	@Override
+	public boolean isWholeBucketScanned() {
+		return wholeBucket;
+	}
+
+	@Override
+	public int getBucketSize() {
+		return bucket.length;
+	}
+
+	@Override
+	public double getMinimum() {
+		return multiplier * doubleValue(minimumHigh, minimumLow);
+	}
+
+	@Override
+	public double getMaximum() {
+		return multiplier * doubleValue(maximumHigh, maximumLow);
+	}
+
+	@Override
+	public double getValue() {
+		return Math.sqrt(multiplier * doubleValue(sumHigh, sumLow));
+	}
+
+	private void addScaledSample(long sample) {
+		final long oldestSample = bucket[bucketPosition];
+		bucket[bucketPosition] = sample;
+		// both samples are not negative
+		if (Long.compareUnsigned(sumLow, oldestSample) < 0) {
+			sumHigh--;
+		}
+		sumLow -= oldestSample;
+		sumLow += sample;
+		if (Long.compareUnsigned(sumLow, sample) < 0) {
+			sumHigh++;
+		}
+		if (wholeBucket) {
+			if (compare(sumHigh, sumLow, minimumHigh, minimumLow) < 0) {
+				minimumHigh = sumHigh;
+				minimumLow = sumLow;
+			}
+			if (compare(sumHigh, sumLow, maximumHigh, maximumLow) > 0) {
+				maximumHigh = sumHigh;
+				maximumLow = sumLow;
+			}
+		}
+		if (bucketPosition == bucket.length - 1) {
+			bucketPosition = 0;
+			wholeBucket = true;
+		} else {
+			bucketPosition++;
+		}
+	}
+
+	private static int compare(long high1, long low1, long high2, long low2) {
+		return high1 != high2 ? Long.compare(high1, high2) : Long.compareUnsigned(low1, low2);
+	}
+
+	private static double doubleValue(long high, long low) {
+		if (high == 0 && low >= 0) {
+			return low;
+		}
+		final double unsignedLow = low >= 0 ? low : TWO_TO_THE_64 + low;
+		return TWO_TO_THE_64 * high + unsignedLow;
+	}
+}
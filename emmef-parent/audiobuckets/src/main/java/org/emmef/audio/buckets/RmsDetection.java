@@ -14,6 +14,8 @@ public class RmsDetection implements Detection {
 	private static final double FAST_RELEASE = 0.020;
 	private static final double SLOW_RELEASE = 0.050;
 
+	private static final int BLOCK_SIZE = 1024;
+
 	private final double longWindow;
 	private final double windowFactor;
 	private final int steps;
@@ -25,9 +27,18 @@ public class RmsDetection implements Detection {
 	private final SampleMaximumSmoothRelease releaseIntegrator;
 	private final SampleAndHoldMaximumSmoothRelease sampleAndHold;
 	private final double peakScale;
-	private long buffer[] = null;
+	/*
+	 * Running sums of the squared samples, so that the sum of any window that
+	 * ends at position p is prefix[p] - prefix[p - size]. The oldest sums are
+	 * moved to the start when the array is full. Overflow is harmless, as the
+	 * difference of two sums is still exact.
+	 */
+	private long prefix[] = null;
+	private int prefixPosition;
+	private int history;
+	private int windowSize;
+	private final double peaks[] = new double[BLOCK_SIZE];
 	private Entry entries[];
-	private int writeAt = 0;
 	private int processedSamples = 0;
 	private double minimum, maximum;
 
@@ -59,16 +70,57 @@ public class RmsDetection implements Detection {
 	@Override
 	public double addSample(double sample) {
 		long sumValue = Math.round(INPUT_SCALE * sample * sample);
+		if (prefixPosition == prefix.length - 1) {
+			moveHistoryToStart();
+		}
+		prefix[prefixPosition + 1] = prefix[prefixPosition] + sumValue;
+		prefixPosition++;
 
 		double max = peakScale * sampleAndHold.addSampleGetValue(sumValue);
 		for (int i = 0; i < entries.length; i++) {
-			max = Math.max(max, entries[i].addAndGet(sumValue));
+			max = Math.max(max, entries[i].addAndGet(prefixPosition));
 		}
-		double detection = Math.sqrt(OUTPUT_SCALE * max);
-		buffer[writeAt] = sumValue;
-		writeAt = (writeAt + 1) % buffer.length;
 		processedSamples++;
 
+		return smooth(Math.sqrt(OUTPUT_SCALE * max));
+	}
+
+	/**
+	 * Adds the samples a block at a time: the running sums of the block are
+	 * calculated first and the sums of all windows are taken from them. The
+	 * values are the same as those of {@link #addSample(double)}.
+	 */
+	@Override
+	public void addSamples(double[] input, double[] output, int offset, int length) {
+		for (int done = 0; done < length; done += BLOCK_SIZE) {
+			final int count = Math.min(BLOCK_SIZE, length - done);
+			final int start = offset + done;
+			if (prefixPosition + count >= prefix.length) {
+				moveHistoryToStart();
+			}
+			final int first = prefixPosition + 1;
+			long sum = prefix[prefixPosition];
+			for (int i = 0; i < count; i++) {
+				final double sample = input[start + i];
+				final long sumValue = Math.round(INPUT_SCALE * sample * sample);
+				sum += sumValue;
+				prefix[first + i] = sum;
+				peaks[i] = peakScale * sampleAndHold.addSampleGetValue(sumValue);
+			}
+			// the windows are interleaved, as each release depends on its previous value
+			for (int i = 0; i < count; i++) {
+				double max = peaks[i];
+				for (int j = 0; j < entries.length; j++) {
+					max = Math.max(max, entries[j].addAndGet(first + i));
+				}
+				output[start + i] = smooth(Math.sqrt(OUTPUT_SCALE * max));
+			}
+			prefixPosition += count;
+			processedSamples += count;
+		}
+	}
+
+	private double smooth(double detection) {
 		double smoothAttack = attackIntegrator.integrate(detection);
 		double value = releaseIntegrator.addSampleGetValue(smoothAttack);
 		minimum = Math.min(minimum, value);
@@ -78,7 +130,7 @@ public class RmsDetection implements Detection {
 
 	@Override
 	public double getValue() {
-		if (buffer != null && processedSamples < buffer.length) {
+		if (prefix != null && processedSamples < windowSize) {
 			double max = entries[0].getValue(processedSamples);
 			for (int i = 1; i < entries.length; i++) {
 				max = Math.max(max, entries[i].getValue(processedSamples));
@@ -107,20 +159,27 @@ public class RmsDetection implements Detection {
 		sampleAndHold.setHoldCount(getHoldCount());
 		sampleAndHold.setValue(0);
 
-		final int windowSize = (int) Math.round(0.5 + longWindow * sampleRate);
-		if (buffer == null || windowSize != buffer.length) {
-			buffer = new long[windowSize];
-		} else {
-			Arrays.fill(buffer, 0);
-		}
-		writeAt = 0;
-		processedSamples = 0;
-
+		windowSize = (int) Math.round(0.5 + longWindow * sampleRate);
+		int largestBucket = windowSize;
 		for (int i = 0; i <= steps; i++) {
 			double logFactor = Math.pow(windowFactor, stepPowerFactor * i);
 			int bucketSize = (int) Math.round(0.5 + WINDOW_SHORT * logFactor * sampleRate);
 			entries[i].reconfigure(bucketSize);
+			largestBucket = Math.max(largestBucket, bucketSize);
+		}
+		if (prefix == null || largestBucket != history) {
+			history = largestBucket;
+			prefix = new long[history + 1 + BLOCK_SIZE];
+		} else {
+			Arrays.fill(prefix, 0);
 		}
+		prefixPosition = history;
+		processedSamples = 0;
+	}
+
+	private void moveHistoryToStart() {
+		System.arraycopy(prefix, prefixPosition - history, prefix, 0, history + 1);
+		prefixPosition = history;
 	}
 
 	@Override
@@ -130,34 +189,29 @@ public class RmsDetection implements Detection {
 
 	@Override
 	public boolean isWholeBucketScanned() {
-		return buffer != null && processedSamples >= buffer.length;
+		return prefix != null && processedSamples >= windowSize;
 	}
 
 	@Override
 	public int getBucketSize() {
-		return buffer != null ? buffer.length : 0;
+		return prefix != null ? windowSize : 0;
 	}
 
 	@Override
 	public void reset() {
-		Arrays.fill(buffer, 0);
-		for (int i = 0; i <= steps; i++) {
-			entries[i].reset();
-		}
+		Arrays.fill(prefix, 0);
+		prefixPosition = history;
 		minimum = Double.MAX_VALUE;
 		maximum = Double.MIN_VALUE;
 	}
 
 	private final class Entry {
 		SampleAndHoldMaximumSmoothRelease sampleAndHold;
-		int readPosition = 0;
 		int bucketSize = 0;
-		long sum = 0;
 		double usedScale = 1.0;
 		double scale;
 
 		Entry(double scale) {
-			this.readPosition = 0;
 			this.sampleAndHold = new SampleAndHoldMaximumSmoothRelease(getHoldCount(), fastReleaseFactors);
 			this.scale = scale;
 		}
@@ -167,15 +221,10 @@ public class RmsDetection implements Detection {
 			this.sampleAndHold.setHoldCount(holdCount);
 			this.sampleAndHold.setValue(0);
 			this.usedScale = scale / bucketSize;
-			this.readPosition = (buffer.length - bucketSize) % buffer.length;
-			this.sum = 0;
 		}
 
-		double addAndGet(long input) {
-			sum -= buffer[readPosition];
-			sum += input;
-			readPosition = (readPosition + 1) % buffer.length;
-			return sampleAndHold.addSampleGetValue(sum * usedScale);
+		double addAndGet(int position) {
+			return sampleAndHold.addSampleGetValue(sum(position) * usedScale);
 		}
 
 		double getValue(int samplesCount) {
@@ -183,14 +232,13 @@ public class RmsDetection implements Detection {
 				return sampleAndHold.getValue();
 			}
 			else if (samplesCount > 0) {
-				return (sum * usedScale) * bucketSize / Math.min(samplesCount, bucketSize);
+				return (sum(prefixPosition) * usedScale) * bucketSize / Math.min(samplesCount, bucketSize);
 			}
 			return 0;
 		}
 
-		void reset() {
-			this.sum = 0;
-			this.readPosition = (buffer.length - bucketSize) % buffer.length;
+		private long sum(int position) {
+			return prefix[position] - prefix[position - bucketSize];
 		}
 	}
 }
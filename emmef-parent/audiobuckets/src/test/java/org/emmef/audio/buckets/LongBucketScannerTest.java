@@ -0,0 +1,76 @@
+package org.emmef.audio.buckets;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that a {@link LongBucketScanner} reports the same values, minimum and
+ * maximum as a {@link BucketScanner}, from the first sample on.
+ */
+public class LongBucketScannerTest {
+	private static final long SAMPLE_RATE = 1000;
+	private static final double WINDOW = 0.05;
+	private static final int SAMPLES = 1000;
+
+	@Test
+	public void testEqualsBucketScanner() {
+		final Random random = new Random(1);
+		final double[] samples = new double[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			samples[i] = (2.0 * random.nextDouble() - 1.0) * (i < SAMPLES / 2 ? 1.0 : 0.001);
+		}
+		assertSameValues(samples, 0.0);
+	}
+
+	@Test
+	public void testEqualsBucketScannerAboveFullScale() {
+		final Random random = new Random(2);
+		final double[] samples = new double[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			// the scaled squares of the larger samples are clipped to Long.MAX_VALUE
+			final double scale = i % 100 < 30 ? 1e6 : i % 100 < 60 ? 1000.0 : 1.0;
+			samples[i] = (2.0 * random.nextDouble() - 1.0) * scale;
+		}
+		// sums that exceed Long.MAX_VALUE can be rounded differently
+		assertSameValues(samples, 1e-15);
+	}
+
+	@Test
+	public void testResetEqualsBucketScanner() {
+		final Random random = new Random(3);
+		final BucketScanner expected = new BucketScanner(SAMPLE_RATE, WINDOW);
+		final LongBucketScanner actual = new LongBucketScanner(SAMPLE_RATE, WINDOW);
+		for (int i = 0; i < SAMPLES; i++) {
+			final double sample = 2.0 * random.nextDouble() - 1.0;
+			expected.addSample(sample);
+			actual.addSample(sample);
+			if (i % 300 == 299) {
+				expected.reset();
+				actual.reset();
+				assertSameState("After reset at " + i, expected, actual, 0.0);
+			}
+		}
+	}
+
+	private static void assertSameValues(double[] samples, double relativeError) {
+		final BucketScanner expected = new BucketScanner(SAMPLE_RATE, WINDOW);
+		final LongBucketScanner actual = new LongBucketScanner(SAMPLE_RATE, WINDOW);
+		assertEquals(expected.getBucketSize(), actual.getBucketSize());
+		assertSameState("Initially", expected, actual, relativeError);
+		for (int i = 0; i < samples.length; i++) {
+			final double value = expected.addSample(samples[i]);
+			assertEquals("Sample " + i, value, actual.addSample(samples[i]), relativeError * value);
+			assertSameState("Sample " + i, expected, actual, relativeError);
+		}
+	}
+
+	private static void assertSameState(String message, BucketScanner expected, LongBucketScanner actual, double relativeError) {
+		assertEquals(message, expected.isWholeBucketScanned(), actual.isWholeBucketScanned());
+		assertEquals(message + ": value", expected.getValue(), actual.getValue(), relativeError * expected.getValue());
+		assertEquals(message + ": minimum", expected.getMinimum(), actual.getMinimum(), Math.abs(relativeError * expected.getMinimum()));
+		assertEquals(message + ": maximum", expected.getMaximum(), actual.getMaximum(), Math.abs(relativeError * expected.getMaximum()));
+	}
+}
@@ -0,0 +1,78 @@
+package org.emmef.audio.buckets;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that adding blocks of samples to a {@link RmsDetection} yields exactly
+ * the same values as adding the samples one by one, for blocks of any size and
+ * across the moments that the running sums are moved to the start of the
+ * history.
+ */
+public class RmsDetectionTest {
+	private static final long SAMPLE_RATE = 8000;
+	private static final double WINDOW = 0.1;
+	// many times the history of 800 samples plus a block of 1024
+	private static final int SAMPLES = 30000;
+
+	@Test
+	public void testBlocksEqualSingleSamples() {
+		final double[] input = createInput();
+		final RmsDetection single = new RmsDetection(SAMPLE_RATE, WINDOW);
+		final double[] expected = new double[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			expected[i] = single.addSample(input[i]);
+		}
+		final RmsDetection blocks = new RmsDetection(SAMPLE_RATE, WINDOW);
+		final double[] actual = new double[SAMPLES];
+		for (int offset = 0, count = 1; offset < SAMPLES; count = (count * 7 + 3) % 2500) {
+			final int length = Math.min(count, SAMPLES - offset);
+			blocks.addSamples(input, actual, offset, length);
+			offset += length;
+		}
+		assertArrayEquals(expected, actual, 0.0);
+		assertEquals(single.getMinimum(), blocks.getMinimum(), 0.0);
+		assertEquals(single.getMaximum(), blocks.getMaximum(), 0.0);
+		assertEquals(single.getValue(), blocks.getValue(), 0.0);
+	}
+
+	@Test
+	public void testBlocksEqualSingleSamplesAfterReset() {
+		final double[] input = createInput();
+		final RmsDetection single = new RmsDetection(SAMPLE_RATE, WINDOW);
+		final RmsDetection blocks = new RmsDetection(SAMPLE_RATE, WINDOW);
+		final double[] expected = new double[SAMPLES];
+		final double[] actual = new double[SAMPLES];
+		for (int offset = 0, count = 1; offset < SAMPLES; count += 331) {
+			final int length = Math.min(count, SAMPLES - offset);
+			for (int i = offset; i < offset + length; i++) {
+				expected[i] = single.addSample(input[i]);
+			}
+			blocks.addSamples(input, actual, offset, length);
+			offset += length;
+			if (count % 3 == 0) {
+				single.reset();
+				blocks.reset();
+			}
+			assertEquals("Minimum at " + offset, single.getMinimum(), blocks.getMinimum(), 0.0);
+			assertEquals("Maximum at " + offset, single.getMaximum(), blocks.getMaximum(), 0.0);
+		}
+		assertArrayEquals(expected, actual, 0.0);
+	}
+
+	/**
+	 * Creates noise with a level that changes every few thousand samples.
+	 */
+	private static double[] createInput() {
+		final Random random = new Random(1);
+		final double[] input = new double[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			final double level = Math.pow(10.0, -3.0 * ((i / 3000) % 4) / 4.0);
+			input[i] = level * (2.0 * random.nextDouble() - 1.0);
+		}
+		return input;
+	}
+}
@@ -3,4 +3,26 @@ package org.emmef.audio.filter;
 public interface Filter {
 	double filter(double input);
 	void reset();
+
+	/**
+	 * Filters {@code length} samples of {@code input}, starting at {@code offset},
+	 * and stores them at the same positions in {@code output}. Input and output
+	 * can be the same array.
+	 */
+	default void filter(double[] input, double[] output, int offset, int length) {
+		final int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			output[i] = filter(input[i]);
+		}
+	}
+
+	/**
+	 * Like {@link #filter(double[], double[], int, int)}, but feeds the samples
+	 * to the filter in reverse order, starting at the last one.
+	 */
+	default void filterBackward(double[] input, double[] output, int offset, int length) {
+		for (int i = offset + length - 1; i >= offset; i--) {
+			output[i] = filter(input[i]);
+		}
+	}
 }
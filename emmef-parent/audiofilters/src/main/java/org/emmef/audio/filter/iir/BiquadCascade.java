@@ -0,0 +1,119 @@
+package org.emmef.audio.filter.iir;
+
+import org.emmef.audio.filter.Filter;
+
+/**
+ * Cascade of second-order sections in transposed direct form II.
+ *
+ * <p>Each section is defined by the coefficients {b0, b1, b2, a1, a2} of the
+ * transfer function (b0 + b1 z^-1 + b2 z^-2) / (1 + a1 z^-1 + a2 z^-2). A
+ * cascade of biquads stays accurate for high orders and low frequencies, where
+ * a single direct-form polynomial loses precision.</p>
+ *
+ * <p>Blocks are filtered a section at a time. At the end of each block, states
+ * that have decayed to almost zero are flushed, so that filtering silence does
+ * not slow down on denormal numbers.</p>
+ */
+public final class BiquadCascade implements Filter {
+	/**
+	 * States smaller than this are flushed to zero at the end of a block.
+	 */
+	static final double FLUSH_THRESHOLD = 1e-200;
+
+	private final int sections;
+	private final double[] b0;
+	private final double[] b1;
+	private final double[] b2;
+	private final double[] a1;
+	private final double[] a2;
+	private final double[] s1;
+	private final double[] s2;
+
+	public BiquadCascade(double[][] sections) {
+		if (sections == null) {
+			throw new NullPointerException("sections");
+		}
+		if (sections.length == 0) {
+			throw new IllegalArgumentException("Need at least one section");
+		}
+		this.sections = sections.length;
+		this.b0 = new double[this.sections];
+		this.b1 = new double[this.sections];
+		this.b2 = new double[this.sections];
+		this.a1 = new double[this.sections];
+		this.a2 = new double[this.sections];
+		this.s1 = new double[this.sections];
+		this.s2 = new double[this.sections];
+		for (int i = 0; i < this.sections; i++) {
+			final double[] section = sections[i];
+			if (section == null) {
+				throw new NullPointerException("sections[" + i + "]");
+			}
+			if (section.length != 5) {
+				throw new IllegalArgumentException("Section " + i + " must have five coefficients: b0, b1, b2, a1 and a2");
+			}
+			b0[i] = section[0];
+			b1[i] = section[1];
+			b2[i] = section[2];
+			a1[i] = section[3];
+			a2[i] = section[4];
+		}
+	}
+
+	public int getSections() {
+		return sections;
+	}
+
+	@Override
+	public double filter(double input) {
+		double x = input;
+		for (int i = 0; i < sections; i++) {
+			final double y = b0[i] * x + s1[i];
+			s1[i] = b1[i] * x - a1[i] * y + s2[i];
+			s2[i] = b2[i] * x - a2[i] * y;
+			x = y;
+		}
+		return x;
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < sections; i++) {
+			s1[i] = 0.0;
+			s2[i] = 0.0;
+		}
+	}
+
+	@Override
+	public void filter(double[] input, double[] output, int offset, int length) {
+		filter(input, output, offset, 1, length);
+	}
+
+	@Override
+	public void filterBackward(double[] input, double[] output, int offset, int length) {
+		filter(input, output, offset + length - 1, -1, length);
+	}
+
+	private void filter(double[] input, double[] output, int start, int step, int length) {
+		double[] source = input;
+		for (int section = 0; section < sections; section++) {
+			final double b0 = this.b0[section];
+			final double b1 = this.b1[section];
+			final double b2 = this.b2[section];
+			final double a1 = this.a1[section];
+			final double a2 = this.a2[section];
+			double s1 = this.s1[section];
+			double s2 = this.s2[section];
+			for (int n = 0, i = start; n < length; n++, i += step) {
+				final double x = source[i];
+				final double y = b0 * x + s1;
+				s1 = b1 * x - a1 * y + s2;
+				s2 = b2 * x - a2 * y;
+				output[i] = y;
+			}
+			this.s1[section] = Math.abs(s1) < FLUSH_THRESHOLD ? 0.0 : s1;
+			this.s2[section] = Math.abs(s2) < FLUSH_THRESHOLD ? 0.0 : s2;
+			source = output;
+		}
+	}
+}
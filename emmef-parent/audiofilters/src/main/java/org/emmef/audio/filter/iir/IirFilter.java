@@ -74,6 +74,25 @@ public class IirFilter implements Filter {
 	}
 	
 	public double filter(double xN) {
+		return next(xN);
+	}
+
+	@Override
+	public void filter(double[] input, double[] output, int offset, int length) {
+		final int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			output[i] = next(input[i]);
+		}
+	}
+
+	@Override
+	public void filterBackward(double[] input, double[] output, int offset, int length) {
+		for (int i = offset + length - 1; i >= offset; i--) {
+			output[i] = next(input[i]);
+		}
+	}
+
+	private double next(double xN) {
 		// y[n] = c0*x[n] + c1*x[n-1] + ... + cM*x[n-M] - ( d1*y[n-1] + d2*y[n-2] + ... + dN*y[n-N])</pre>
 		
 		double yN = c[0] * xN;
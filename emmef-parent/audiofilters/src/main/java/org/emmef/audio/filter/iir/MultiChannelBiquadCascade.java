@@ -0,0 +1,190 @@
+package org.emmef.audio.filter.iir;
+
+/**
+ * Cascade of second-order sections that filters several independent lanes,
+ * like the channels of interleaved frames, or bands that are filtered side by
+ * side.
+ *
+ * <p>The sections are like those of {@link BiquadCascade}. Lanes can share the
+ * same sections or each have their own, as long as every lane has the same
+ * number of sections. The samples are interleaved, with one sample per lane in
+ * each frame.</p>
+ *
+ * <p>If the {@code jdk.incubator.vector} module is available, for example by
+ * starting the JVM with {@code --add-modules jdk.incubator.vector}, lanes are
+ * filtered in parallel with vector instructions. Otherwise, or for lanes that
+ * do not fill a vector, the lanes are filtered one by one. Both give the same
+ * results as a {@link BiquadCascade} per lane.</p>
+ */
+public class MultiChannelBiquadCascade {
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+	final int lanes;
+	final int sections;
+	// coefficients and states of section s and lane l are at s * lanes + l
+	final double[] b0;
+	final double[] b1;
+	final double[] b2;
+	final double[] a1;
+	final double[] a2;
+	final double[] s1;
+	final double[] s2;
+
+	MultiChannelBiquadCascade(double[][][] laneSections) {
+		if (laneSections == null) {
+			throw new NullPointerException("laneSections");
+		}
+		if (laneSections.length == 0) {
+			throw new IllegalArgumentException("Need at least one lane");
+		}
+		this.lanes = laneSections.length;
+		if (laneSections[0] == null) {
+			throw new NullPointerException("laneSections[0]");
+		}
+		this.sections = laneSections[0].length;
+		if (sections == 0) {
+			throw new IllegalArgumentException("Need at least one section");
+		}
+		final int size = lanes * sections;
+		this.b0 = new double[size];
+		this.b1 = new double[size];
+		this.b2 = new double[size];
+		this.a1 = new double[size];
+		this.a2 = new double[size];
+		this.s1 = new double[size];
+		this.s2 = new double[size];
+		for (int lane = 0; lane < lanes; lane++) {
+			final double[][] sectionsOfLane = laneSections[lane];
+			if (sectionsOfLane == null) {
+				throw new NullPointerException("laneSections[" + lane + "]");
+			}
+			if (sectionsOfLane.length != sections) {
+				throw new IllegalArgumentException("Lane " + lane + " has " + sectionsOfLane.length + " sections instead of " + sections);
+			}
+			for (int section = 0; section < sections; section++) {
+				final double[] coefficients = sectionsOfLane[section];
+				if (coefficients == null) {
+					throw new NullPointerException("laneSections[" + lane + "][" + section + "]");
+				}
+				if (coefficients.length != 5) {
+					throw new IllegalArgumentException("Section " + section + " of lane " + lane + " must have five coefficients: b0, b1, b2, a1 and a2");
+				}
+				final int i = section * lanes + lane;
+				b0[i] = coefficients[0];
+				b1[i] = coefficients[1];
+				b2[i] = coefficients[2];
+				a1[i] = coefficients[3];
+				a2[i] = coefficients[4];
+			}
+		}
+	}
+
+	/**
+	 * Creates a cascade that filters all lanes with the same sections.
+	 */
+	public static MultiChannelBiquadCascade create(double[][] sections, int lanes) {
+		if (sections == null) {
+			throw new NullPointerException("sections");
+		}
+		if (lanes < 1) {
+			throw new IllegalArgumentException("Need at least one lane");
+		}
+		final double[][][] laneSections = new double[lanes][][];
+		for (int lane = 0; lane < lanes; lane++) {
+			laneSections[lane] = sections;
+		}
+		return create(laneSections);
+	}
+
+	/**
+	 * Creates a cascade where each lane has its own sections.
+	 */
+	public static MultiChannelBiquadCascade create(double[][][] laneSections) {
+		if (laneSections == null) {
+			throw new NullPointerException("laneSections");
+		}
+		if (isVectorModuleAvailable()) {
+			final MultiChannelBiquadCascade vectorized = VectorMultiChannelBiquadCascade.createIfEffective(laneSections);
+			if (vectorized != null) {
+				return vectorized;
+			}
+		}
+		return new MultiChannelBiquadCascade(laneSections);
+	}
+
+	public static boolean isVectorModuleAvailable() {
+		return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+	}
+
+	public final int getLanes() {
+		return lanes;
+	}
+
+	public final int getSections() {
+		return sections;
+	}
+
+	/**
+	 * Returns the number of lanes that are filtered with vector instructions.
+	 */
+	public int getVectorizedLanes() {
+		return 0;
+	}
+
+	public final void reset() {
+		for (int i = 0; i < s1.length; i++) {
+			s1[i] = 0.0;
+			s2[i] = 0.0;
+		}
+	}
+
+	/**
+	 * Filters {@code frames} frames of {@code input}, starting at frame
+	 * {@code offset}, and stores them at the same positions in {@code output}.
+	 * Input and output can be the same array.
+	 */
+	public final void filter(double[] input, double[] output, int offset, int frames) {
+		filter(input, output, offset, 1, frames);
+	}
+
+	/**
+	 * Like {@link #filter(double[], double[], int, int)}, but feeds the frames
+	 * to the filter in reverse order, starting at the last one.
+	 */
+	public final void filterBackward(double[] input, double[] output, int offset, int frames) {
+		filter(input, output, offset + frames - 1, -1, frames);
+	}
+
+	void filter(double[] input, double[] output, int start, int step, int frames) {
+		filterLanes(input, output, start, step, frames, 0);
+	}
+
+	/**
+	 * Filters the lanes from {@code firstLane} onwards, one lane at a time.
+	 */
+	final void filterLanes(double[] input, double[] output, int start, int step, int frames, int firstLane) {
+		final int stride = step * lanes;
+		for (int lane = firstLane; lane < lanes; lane++) {
+			double[] source = input;
+			for (int section = 0, c = lane; section < sections; section++, c += lanes) {
+				final double b0 = this.b0[c];
+				final double b1 = this.b1[c];
+				final double b2 = this.b2[c];
+				final double a1 = this.a1[c];
+				final double a2 = this.a2[c];
+				double s1 = this.s1[c];
+				double s2 = this.s2[c];
+				for (int n = 0, i = start * lanes + lane; n < frames; n++, i += stride) {
+					final double x = source[i];
+					final double y = b0 * x + s1;
+					s1 = b1 * x - a1 * y + s2;
+					s2 = b2 * x - a2 * y;
+					output[i] = y;
+				}
+				this.s1[c] = Math.abs(s1) < BiquadCascade.FLUSH_THRESHOLD ? 0.0 : s1;
+				this.s2[c] = Math.abs(s2) < BiquadCascade.FLUSH_THRESHOLD ? 0.0 : s2;
+				source = output;
+			}
+		}
+	}
+}
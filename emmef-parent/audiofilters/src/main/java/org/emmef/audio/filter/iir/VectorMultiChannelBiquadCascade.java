@@ -0,0 +1,65 @@
+package org.emmef.audio.filter.iir;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Filters groups of adjacent lanes with vector instructions. This class is
+ * only loaded if the {@code jdk.incubator.vector} module is available.
+ */
+final class VectorMultiChannelBiquadCascade extends MultiChannelBiquadCascade {
+	// vector operations are only compiled to vector instructions for a constant species
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	private final int vectorizedLanes;
+
+	private VectorMultiChannelBiquadCascade(double[][][] laneSections) {
+		super(laneSections);
+		this.vectorizedLanes = lanes - lanes % SPECIES.length();
+	}
+
+	/**
+	 * Returns a vectorized cascade, or {@code null} if there are fewer lanes
+	 * than fit in a vector, or if vectors hold only a single sample.
+	 */
+	static MultiChannelBiquadCascade createIfEffective(double[][][] laneSections) {
+		final int width = SPECIES.length();
+		return width > 1 && laneSections.length >= width ? new VectorMultiChannelBiquadCascade(laneSections) : null;
+	}
+
+	@Override
+	public int getVectorizedLanes() {
+		return vectorizedLanes;
+	}
+
+	@Override
+	void filter(double[] input, double[] output, int start, int step, int frames) {
+		final int stride = step * lanes;
+		final DoubleVector zero = DoubleVector.zero(SPECIES);
+		for (int lane = 0; lane < vectorizedLanes; lane += SPECIES.length()) {
+			double[] source = input;
+			for (int section = 0, c = lane; section < sections; section++, c += lanes) {
+				final DoubleVector b0 = DoubleVector.fromArray(SPECIES, this.b0, c);
+				final DoubleVector b1 = DoubleVector.fromArray(SPECIES, this.b1, c);
+				final DoubleVector b2 = DoubleVector.fromArray(SPECIES, this.b2, c);
+				final DoubleVector a1 = DoubleVector.fromArray(SPECIES, this.a1, c);
+				final DoubleVector a2 = DoubleVector.fromArray(SPECIES, this.a2, c);
+				DoubleVector s1 = DoubleVector.fromArray(SPECIES, this.s1, c);
+				DoubleVector s2 = DoubleVector.fromArray(SPECIES, this.s2, c);
+				for (int n = 0, i = start * lanes + lane; n < frames; n++, i += stride) {
+					final DoubleVector x = DoubleVector.fromArray(SPECIES, source, i);
+					final DoubleVector y = b0.mul(x).add(s1);
+					s1 = b1.mul(x).sub(a1.mul(y)).add(s2);
+					s2 = b2.mul(x).sub(a2.mul(y));
+					y.intoArray(output, i);
+				}
+				s1.blend(zero, s1.abs().compare(VectorOperators.LT, BiquadCascade.FLUSH_THRESHOLD)).intoArray(this.s1, c);
+				s2.blend(zero, s2.abs().compare(VectorOperators.LT, BiquadCascade.FLUSH_THRESHOLD)).intoArray(this.s2, c);
+				source = output;
+			}
+		}
+		// masked vectors for the remaining lanes are slower than filtering them one by one
+		filterLanes(input, output, start, step, frames, vectorizedLanes);
+	}
+}
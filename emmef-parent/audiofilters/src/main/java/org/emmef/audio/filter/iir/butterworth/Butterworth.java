@@ -1,6 +1,7 @@
 package org.emmef.audio.filter.iir.butterworth;
 
 import org.emmef.audio.filter.Filter;
+import org.emmef.audio.filter.iir.BiquadCascade;
 
 
 public class Butterworth {
@@ -16,15 +17,19 @@ public class Butterworth {
 			return createFirstOrder(frequency, type);
 		case 2:
 			return createSecondOrder(frequency, type);
-		case 3:
-			return createThirdOrder(frequency, type);
-		case 4:
-			return createFourthOrder(frequency, type);
 		default:
-			return new ButterworthNFilter.Factory(order, type, frequency).create();
+			return createCascade(frequency, order, type);
 		}
 	}
 	
+	/**
+	 * Creates a filter as a cascade of second-order sections, which is faster
+	 * and more accurate than a single polynomial for orders above two.
+	 */
+	public static Filter createCascade(double frequency, int order, PassType type) {
+		return new BiquadCascade(Coefficients.butterworthSections(order, frequency, type));
+	}
+	
 	public static Filter createFirstOrder(double frequency, PassType type) {
 		final double[] c;
 		final double[] d;
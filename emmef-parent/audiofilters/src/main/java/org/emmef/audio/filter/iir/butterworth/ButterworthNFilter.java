@@ -21,6 +21,25 @@ public final class ButterworthNFilter implements Filter {
 
 	@Override
 	public double filter(double xN0) {
+		return next(xN0);
+	}
+
+	@Override
+	public void filter(double[] input, double[] output, int offset, int length) {
+		final int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			output[i] = next(input[i]);
+		}
+	}
+
+	@Override
+	public void filterBackward(double[] input, double[] output, int offset, int length) {
+		for (int i = offset + length - 1; i >= offset; i--) {
+			output[i] = next(input[i]);
+		}
+	}
+
+	private double next(double xN0) {
 		double Y = 0;
 		double X = xN0;
 		double yN0 = 0.0;
@@ -396,6 +396,78 @@ public class Coefficients {
 	    return sf;
 	}	
 	
+	/**
+	 * Calculates the second-order sections of a Butterworth filter.
+	 * 
+	 * <p>Each section contains the coefficients {b0, b1, b2, a1, a2} of a biquad
+	 * with transfer function (b0 + b1 z^-1 + b2 z^-2) / (1 + a1 z^-1 + a2 z^-2).
+	 * The sections are ordered by increasing Q. For odd orders, the last section
+	 * is of first order, with b2 and a2 equal to zero. Cascading the sections
+	 * yields the same response as the c and d coefficients, but without the 
+	 * loss of precision of a single high-order polynomial at low frequencies.</p>
+	 * 
+	 * @param n the filter order, which must be one or greater
+	 * @param fcf frequency as a fraction of the sample frequency. Must be between 0 and 0.5
+	 * @param type low or high pass
+	 * @return the coefficients per section
+	 */
+	public static double[][] butterworthSections(int n, double fcf, PassType type) {
+		if (n < 1) {
+			throw new IllegalArgumentException("Order of filter must be at least 1");
+		}
+		if (fcf >= 0.5) {
+			throw new IllegalArgumentException("Frequency as part of the sample frequency, must be between 0 and 0.5");
+		}
+		if (type == null) {
+			throw new NullPointerException("type");
+		}
+		final boolean lowPass = type == PassType.LOW_PASS;
+		final double k = Math.tan(Math.PI * fcf);
+		final double kk = k * k;
+		final int pairs = n / 2;
+		final double[][] sections = new double[(n + 1) / 2][];
+		
+		// pole pairs with the lowest Q first: 1/Q = 2 sin((2i + 1) * pi / 2n), descending i
+		for (int i = 0; i < pairs; i++) {
+			final double invQ = 2.0 * Math.sin(Math.PI * (2 * (pairs - 1 - i) + 1) / (2 * n));
+			final double norm = 1.0 / (1.0 + k * invQ + kk);
+			final double b0 = lowPass ? kk * norm : norm;
+			final double b1 = lowPass ? 2.0 * b0 : -2.0 * b0;
+			sections[i] = new double[] { b0, b1, b0, 2.0 * (kk - 1.0) * norm, (1.0 - k * invQ + kk) * norm };
+		}
+		if (n % 2 != 0) {
+			final double norm = 1.0 / (1.0 + k);
+			final double b0 = lowPass ? k * norm : norm;
+			sections[pairs] = new double[] { b0, lowPass ? b0 : -b0, 0.0, (k - 1.0) * norm, 0.0 };
+		}
+		
+		return sections;
+	}
+	
+	/**
+	 * Calculates the largest radius of the poles of a Butterworth filter, which
+	 * determines how slowly its response decays: by a factor of the radius per sample.
+	 * 
+	 * @param n the filter order, which must be one or greater
+	 * @param fcf frequency as a fraction of the sample frequency. Must be between 0 and 0.5
+	 * @return the radius, between 0 and 1
+	 */
+	public static double butterworthPoleRadius(int n, double fcf) {
+		double radius = 0.0;
+		for (double[] section : butterworthSections(n, fcf, PassType.LOW_PASS)) {
+			final double a1 = section[3];
+			final double a2 = section[4];
+			final double discriminant = a1 * a1 - 4.0 * a2;
+			if (discriminant < 0.0) {
+				radius = Math.max(radius, Math.sqrt(a2));
+			}
+			else {
+				radius = Math.max(radius, 0.5 * (Math.abs(a1) + Math.sqrt(discriminant)));
+			}
+		}
+		return radius;
+	}
+	
 	public static double preWarpFractionOfPi(double fractionOfPi) {
 		return Math.atan(fractionOfPi * Math.PI) / Math.PI;
 	}
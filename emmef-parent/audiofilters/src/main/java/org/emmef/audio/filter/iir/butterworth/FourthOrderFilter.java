@@ -54,6 +54,6 @@ public final class FourthOrderFilter implements Filter {
 	@Override
 	public void reset() {
 		yN1 = yN2 = yN3 = yN4 = 0.0;
-		xN1 = xN2 = xN3 = yN4 = 0.0;
+		xN1 = xN2 = xN3 = xN4 = 0.0;
 	}
 }
\ No newline at end of file
@@ -38,4 +38,34 @@ public final class SecondOrderFilter implements Filter {
 		yN1 = yN2 = 0.0;
 		xN1 = xN2 = 0.0;
 	}
-}
\ No newline at end of file
+
+	@Override
+	public void filter(double[] input, double[] output, int offset, int length) {
+		filter(input, output, offset, 1, length);
+	}
+
+	@Override
+	public void filterBackward(double[] input, double[] output, int offset, int length) {
+		filter(input, output, offset + length - 1, -1, length);
+	}
+
+	private void filter(double[] input, double[] output, int start, int step, int length) {
+		double xN1 = this.xN1;
+		double xN2 = this.xN2;
+		double yN1 = this.yN1;
+		double yN2 = this.yN2;
+		for (int n = 0, i = start; n < length; n++, i += step) {
+			final double xN = input[i];
+			final double yN = c0 * xN + c1 * xN1 + c2 * xN2 - d1 * yN1 - d2 * yN2;
+			yN2 = yN1;
+			yN1 = yN;
+			xN2 = xN1;
+			xN1 = xN;
+			output[i] = yN;
+		}
+		this.yN1 = yN1;
+		this.yN2 = yN2;
+		this.xN1 = xN1;
+		this.xN2 = xN2;
+	}
+}
@@ -82,7 +82,17 @@ public class Integrator implements Filter {
 		memory += integrationSampleFactor * newSample;
 		return memory;
 	}
-	
+
+	@Override
+	public void filter(double[] input, double[] output, int offset, int length) {
+		final int end = offset + length;
+		double memory = this.memory;
+		for (int i = offset; i < end; i++) {
+			memory = memory * integrationDecayFactor + integrationSampleFactor * input[i];
+			output[i] = memory;
+		}
+		this.memory = memory;
+	}
 	
 	
 	public double peekMemory() {
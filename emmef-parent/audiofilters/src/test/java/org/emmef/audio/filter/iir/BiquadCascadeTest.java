@@ -0,0 +1,155 @@
+package org.emmef.audio.filter.iir;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.emmef.audio.filter.iir.butterworth.Coefficients;
+import org.emmef.audio.filter.iir.butterworth.PassType;
+import org.junit.Test;
+
+/**
+ * Tests that the sections of {@link Coefficients#butterworthSections(int, double, PassType)}
+ * have the response of a Butterworth filter, also at very low frequencies,
+ * and that a {@link BiquadCascade} filters blocks of samples exactly like it
+ * filters single samples.
+ */
+public class BiquadCascadeTest {
+	private static final int MAXIMUM_ORDER = 8;
+	// a tenth of the sample rate, and 1 kHz and 20 Hz at 96 kHz
+	private static final double[] FREQUENCIES = { 0.1, 1000.0 / 96000, 20.0 / 96000 };
+	private static final double HALF_POWER = 0.5;
+	/*
+	 * At 20 Hz, the sum of the denominator coefficients, that determines the
+	 * gain at low frequencies, is about 1e-6, so rounding the coefficients
+	 * leaves about ten significant digits.
+	 */
+	private static final double POWER_ERROR = 1e-8;
+
+	@Test
+	public void testLowPassResponse() {
+		for (double frequency : FREQUENCIES) {
+			for (int order = 1; order <= MAXIMUM_ORDER; order++) {
+				final double[][] sections = Coefficients.butterworthSections(order, frequency, PassType.LOW_PASS);
+				final String name = "Low pass order " + order + " at " + frequency;
+				assertEquals(name + " at DC", 1.0, power(sections, 0.0), POWER_ERROR);
+				assertEquals(name + " at cut-off", HALF_POWER, power(sections, frequency), POWER_ERROR);
+				assertEquals(name + " at Nyquist", 0.0, power(sections, 0.5), 1e-24);
+			}
+		}
+	}
+
+	@Test
+	public void testHighPassResponse() {
+		for (double frequency : FREQUENCIES) {
+			for (int order = 1; order <= MAXIMUM_ORDER; order++) {
+				final double[][] sections = Coefficients.butterworthSections(order, frequency, PassType.HIGH_PASS);
+				final String name = "High pass order " + order + " at " + frequency;
+				assertEquals(name + " at DC", 0.0, power(sections, 0.0), 1e-24);
+				assertEquals(name + " at cut-off", HALF_POWER, power(sections, frequency), POWER_ERROR);
+				assertEquals(name + " at Nyquist", 1.0, power(sections, 0.5), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testMeasuredResponseAtCutOff() {
+		final double frequency = 0.05;
+		final int period = 20;
+		for (PassType type : PassType.values()) {
+			for (int order = 1; order <= MAXIMUM_ORDER; order++) {
+				final BiquadCascade filter = new BiquadCascade(Coefficients.butterworthSections(order, frequency, type));
+				for (int i = 0; i < 100 * period; i++) {
+					filter.filter(Math.cos(2.0 * Math.PI * frequency * i));
+				}
+				double in = 0.0;
+				double quadrature = 0.0;
+				final int samples = 50 * period;
+				for (int i = 0; i < samples; i++) {
+					final double phase = 2.0 * Math.PI * frequency * i;
+					final double y = filter.filter(Math.cos(phase));
+					in += y * Math.cos(phase);
+					quadrature += y * Math.sin(phase);
+				}
+				final double amplitude = 2.0 * Math.hypot(in, quadrature) / samples;
+				assertEquals(type + " order " + order, Math.sqrt(HALF_POWER), amplitude, 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void testBlocksEqualSingleSamples() {
+		final double[] input = createNoise(10000);
+		for (PassType type : PassType.values()) {
+			for (int order = 1; order <= MAXIMUM_ORDER; order++) {
+				final double[][] sections = Coefficients.butterworthSections(order, 20.0 / 96000, type);
+				final BiquadCascade single = new BiquadCascade(sections);
+				final double[] expected = new double[input.length];
+				for (int i = 0; i < input.length; i++) {
+					expected[i] = single.filter(input[i]);
+				}
+				final BiquadCascade blocks = new BiquadCascade(sections);
+				final double[] actual = new double[input.length];
+				for (int offset = 0, length = 1; offset < input.length; length += 97) {
+					final int count = Math.min(length, input.length - offset);
+					blocks.filter(input, actual, offset, count);
+					offset += count;
+				}
+				assertArrayEquals(type + " order " + order, expected, actual, 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testBackwardBlocksEqualSingleSamples() {
+		final double[] input = createNoise(10000);
+		for (PassType type : PassType.values()) {
+			for (int order = 1; order <= MAXIMUM_ORDER; order++) {
+				final double[][] sections = Coefficients.butterworthSections(order, 0.01, type);
+				final BiquadCascade single = new BiquadCascade(sections);
+				final double[] expected = new double[input.length];
+				for (int i = input.length - 1; i >= 0; i--) {
+					expected[i] = single.filter(input[i]);
+				}
+				final BiquadCascade blocks = new BiquadCascade(sections);
+				final double[] actual = input.clone();
+				for (int end = input.length, length = 1; end > 0; length += 97) {
+					final int count = Math.min(length, end);
+					blocks.filterBackward(actual, actual, end - count, count);
+					end -= count;
+				}
+				assertArrayEquals(type + " order " + order, expected, actual, 0.0);
+			}
+		}
+	}
+
+	/**
+	 * Returns the power gain of the sections at a frequency that is a fraction
+	 * of the sample rate.
+	 */
+	private static double power(double[][] sections, double frequency) {
+		final double cos1 = Math.cos(2.0 * Math.PI * frequency);
+		final double sin1 = Math.sin(2.0 * Math.PI * frequency);
+		final double cos2 = Math.cos(4.0 * Math.PI * frequency);
+		final double sin2 = Math.sin(4.0 * Math.PI * frequency);
+		double power = 1.0;
+		for (double[] section : sections) {
+			// evaluated at z^-1 = cos - j sin
+			final double numeratorRe = section[0] + section[1] * cos1 + section[2] * cos2;
+			final double numeratorIm = section[1] * sin1 + section[2] * sin2;
+			final double denominatorRe = 1.0 + section[3] * cos1 + section[4] * cos2;
+			final double denominatorIm = section[3] * sin1 + section[4] * sin2;
+			power *= (numeratorRe * numeratorRe + numeratorIm * numeratorIm) / (denominatorRe * denominatorRe + denominatorIm * denominatorIm);
+		}
+		return power;
+	}
+
+	private static double[] createNoise(int length) {
+		final Random random = new Random(1);
+		final double[] noise = new double[length];
+		for (int i = 0; i < length; i++) {
+			noise[i] = 2.0 * random.nextDouble() - 1.0;
+		}
+		return noise;
+	}
+}
@@ -0,0 +1,117 @@
+package org.emmef.audio.filter.iir;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.emmef.audio.filter.iir.butterworth.Coefficients;
+import org.emmef.audio.filter.iir.butterworth.PassType;
+import org.junit.Test;
+
+/**
+ * Tests that a {@link MultiChannelBiquadCascade} filters each lane exactly
+ * like a {@link BiquadCascade}. The numbers of lanes range from one to more
+ * than twice the widest vector of doubles, so there are lanes that are
+ * filtered with vector instructions, lanes that are filtered one by one and
+ * both in the same cascade.
+ */
+public class MultiChannelBiquadCascadeTest {
+	private static final int MAXIMUM_LANES = 17;
+	private static final int FRAMES = 5000;
+	private static final int ORDER = 5;
+
+	@Test
+	public void testVectorizedIfModuleAvailable() {
+		final MultiChannelBiquadCascade cascade = MultiChannelBiquadCascade.create(createSections(MAXIMUM_LANES));
+		if (MultiChannelBiquadCascade.isVectorModuleAvailable()) {
+			assertTrue(cascade.getVectorizedLanes() > 0);
+		}
+		else {
+			assertEquals(0, cascade.getVectorizedLanes());
+		}
+	}
+
+	@Test
+	public void testLanesEqualBiquadCascades() {
+		for (int lanes = 1; lanes <= MAXIMUM_LANES; lanes++) {
+			final double[][][] sections = createSections(lanes);
+			final double[] input = createNoise(lanes * FRAMES);
+			final double[] expected = new double[input.length];
+			for (int lane = 0; lane < lanes; lane++) {
+				final BiquadCascade filter = new BiquadCascade(sections[lane]);
+				for (int frame = 0; frame < FRAMES; frame++) {
+					final int i = frame * lanes + lane;
+					expected[i] = filter.filter(input[i]);
+				}
+			}
+			final MultiChannelBiquadCascade cascade = MultiChannelBiquadCascade.create(sections);
+			final double[] actual = new double[input.length];
+			for (int frame = 0, count = 1; frame < FRAMES; count += 97) {
+				final int frames = Math.min(count, FRAMES - frame);
+				cascade.filter(input, actual, frame, frames);
+				frame += frames;
+			}
+			assertArrayEquals(lanes + " lanes", expected, actual, 0.0);
+		}
+	}
+
+	@Test
+	public void testBackwardLanesEqualBiquadCascades() {
+		for (int lanes = 1; lanes <= MAXIMUM_LANES; lanes++) {
+			final double[][][] sections = createSections(lanes);
+			final double[] input = createNoise(lanes * FRAMES);
+			final double[] expected = new double[input.length];
+			for (int lane = 0; lane < lanes; lane++) {
+				final BiquadCascade filter = new BiquadCascade(sections[lane]);
+				for (int frame = FRAMES - 1; frame >= 0; frame--) {
+					final int i = frame * lanes + lane;
+					expected[i] = filter.filter(input[i]);
+				}
+			}
+			final MultiChannelBiquadCascade cascade = MultiChannelBiquadCascade.create(sections);
+			final double[] actual = input.clone();
+			for (int end = FRAMES, count = 1; end > 0; count += 97) {
+				final int frames = Math.min(count, end);
+				cascade.filterBackward(actual, actual, end - frames, frames);
+				end -= frames;
+			}
+			assertArrayEquals(lanes + " lanes", expected, actual, 0.0);
+		}
+	}
+
+	@Test
+	public void testResetEqualsNewCascade() {
+		final double[][][] sections = createSections(MAXIMUM_LANES);
+		final double[] input = createNoise(MAXIMUM_LANES * FRAMES);
+		final double[] expected = new double[input.length];
+		MultiChannelBiquadCascade.create(sections).filter(input, expected, 0, FRAMES);
+
+		final MultiChannelBiquadCascade cascade = MultiChannelBiquadCascade.create(sections);
+		final double[] actual = new double[input.length];
+		cascade.filter(input, actual, 0, FRAMES / 2);
+		cascade.reset();
+		cascade.filter(input, actual, 0, FRAMES);
+		assertArrayEquals(expected, actual, 0.0);
+	}
+
+	/**
+	 * Creates different low and high pass sections for each lane.
+	 */
+	private static double[][][] createSections(int lanes) {
+		final double[][][] sections = new double[lanes][][];
+		for (int lane = 0; lane < lanes; lane++) {
+			final PassType type = lane % 2 == 0 ? PassType.LOW_PASS : PassType.HIGH_PASS;
+			sections[lane] = Coefficients.butterworthSections(ORDER, 0.001 + 0.02 * lane, type);
+		}
+		return sections;
+	}
+
+	private static double[] createNoise(int length) {
+		final Random random = new Random(length);
+		final double[] noise = new double[length];
+		for (int i = 0; i < length; i++) {
+			noise[i] = 2.0 * random.nextDouble() - 1.0;
+		}
+		return noise;
+	}
+}
@@ -0,0 +1,19 @@
+package org.emmef.audio.nodes;
+
+import java.io.IOException;
+
+/**
+ * A sound source that can also read frames at any position, without changing
+ * the position of the sequential reads. Multiple threads can read frames this
+ * way at the same time.
+ * <p>
+ * Sources that only support this in some configurations, report that with
+ * {@link org.emmef.audio.format.StreamProperties#isSeekable()} and throw an
+ * {@link UnsupportedOperationException} otherwise.
+ */
+public interface RandomAccessSoundSource extends SoundSource {
+
+	long readFrames(long framePosition, double[] buffer, int frameCount) throws IOException;
+
+	long readFrames(long framePosition, float[] buffer, int frameCount) throws IOException;
+}
@@ -0,0 +1,73 @@
+package org.emmef.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.emmef.audio.noisereduction.NrDynamics;
+import org.emmef.audio.noisereduction.NrDynamicsFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput in samples per microsecond of the amplification of noise
+ * reduction dynamics, calculated exactly or interpolated from a curve.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmplificationBenchmark {
+	private static final int SAMPLES = 4096;
+	private static final long SAMPLE_RATE = 44100;
+	private static final double NOISE_LEVEL = NrDynamics.decibelToValue(-60);
+
+	@Param({ "SUBTRACTION", "EXPANSION" })
+	public String dynamics;
+
+	@Param({ "0", "90" })
+	public int errorDb;
+
+	private NrDynamics nrDynamics;
+	private double[] levels;
+
+	@Setup
+	public void setUp() {
+		final NrDynamicsFactory factory;
+		if ("EXPANSION".equals(dynamics)) {
+			factory = errorDb > 0
+					? new NrDynamicsFactory.Expansion(12, 2.0, NrDynamics.decibelToValue(-errorDb))
+					: new NrDynamicsFactory.Expansion(12, 2.0);
+		}
+		else {
+			factory = errorDb > 0
+					? new NrDynamicsFactory.Subtraction(0.0, 0.25, NrDynamics.decibelToValue(-errorDb))
+					: new NrDynamicsFactory.Subtraction(0.0, 0.25);
+		}
+		nrDynamics = factory.create(NOISE_LEVEL);
+		levels = Signals.music(SAMPLES, 1, SAMPLE_RATE);
+		for (int i = 0; i < SAMPLES; i++) {
+			levels[i] = Math.abs(levels[i]);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public double amplification() {
+		double sum = 0.0;
+		for (int i = 0; i < SAMPLES; i++) {
+			sum += nrDynamics.amplification(levels[i]);
+		}
+		return sum;
+	}
+}
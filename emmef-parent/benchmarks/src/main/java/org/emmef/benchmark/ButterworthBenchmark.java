@@ -0,0 +1,80 @@
+package org.emmef.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.emmef.audio.filter.Filter;
+import org.emmef.audio.filter.iir.butterworth.Butterworth;
+import org.emmef.audio.filter.iir.butterworth.PassType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput in samples per microsecond of Butterworth filters of orders 1 to 8,
+ * per sample and per block, and the time to create a filter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ButterworthBenchmark {
+	private static final int SAMPLES = 4096;
+	private static final double FREQUENCY = 1000.0 / 44100;
+
+	@Param({ "1", "2", "3", "4", "5", "6", "7", "8" })
+	public int order;
+
+	@Param({ "LOW_PASS", "HIGH_PASS" })
+	public PassType passType;
+
+	private Filter filter;
+	private double[] input;
+	private double[] output;
+
+	@Setup
+	public void setUp() {
+		filter = Butterworth.create(FREQUENCY, order, passType);
+		input = Signals.music(SAMPLES, 1, 44100);
+		output = new double[SAMPLES];
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public double perSample() {
+		double last = 0.0;
+		for (int i = 0; i < SAMPLES; i++) {
+			last = filter.filter(input[i]);
+		}
+		return last;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public double[] block() {
+		filter.filter(input, output, 0, SAMPLES);
+		return output;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public double[] blockBackward() {
+		filter.filterBackward(input, output, 0, SAMPLES);
+		return output;
+	}
+
+	@Benchmark
+	public Filter create() {
+		return Butterworth.create(FREQUENCY, order, passType);
+	}
+}
@@ -0,0 +1,77 @@
+package org.emmef.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.emmef.audio.buckets.BucketScanner;
+import org.emmef.audio.buckets.Detection;
+import org.emmef.audio.buckets.LongBucketScanner;
+import org.emmef.audio.buckets.RmsDetection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput in samples per microsecond of the level detectors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DetectionBenchmark {
+	private static final int SAMPLES = 4096;
+	private static final long SAMPLE_RATE = 44100;
+
+	@Param({ "BUCKET_SCANNER", "LONG_BUCKET_SCANNER", "RMS_DETECTION" })
+	public String detector;
+
+	@Param({ "0.05", "0.3" })
+	public double window;
+
+	private Detection detection;
+	private double[] input;
+	private double[] output;
+
+	@Setup
+	public void setUp() {
+		switch (detector) {
+		case "RMS_DETECTION":
+			detection = new RmsDetection(SAMPLE_RATE, window);
+			break;
+		case "LONG_BUCKET_SCANNER":
+			detection = new LongBucketScanner(SAMPLE_RATE, window);
+			break;
+		default:
+			detection = new BucketScanner(SAMPLE_RATE, window);
+		}
+		input = Signals.music(SAMPLES, 1, SAMPLE_RATE);
+		output = new double[SAMPLES];
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public double addSample() {
+		double value = 0.0;
+		for (int i = 0; i < SAMPLES; i++) {
+			value = detection.addSample(input[i]);
+		}
+		return value;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public double[] addSamples() {
+		detection.addSamples(input, output, 0, SAMPLES);
+		return output;
+	}
+}
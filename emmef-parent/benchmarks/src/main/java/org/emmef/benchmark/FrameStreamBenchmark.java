@@ -0,0 +1,89 @@
+package org.emmef.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.emmef.samples.codec.FrameReader;
+import org.emmef.samples.codec.FrameWriter;
+import org.emmef.samples.codec.SampleCodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput in frames per microsecond of reading frames from and writing
+ * frames to a stream in memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameStreamBenchmark {
+	private static final int FRAMES = 65536;
+	private static final int BUFFER_SIZE = 65536;
+
+	@Param({ "SIGNED_16", "PACKED_24", "FLOAT" })
+	public SampleCodecs codec;
+
+	@Param({ "2" })
+	public int channels;
+
+	private byte[] serialized;
+	private double[] doubles;
+	private float[] floats;
+
+	@Setup
+	public void setUp() throws IOException {
+		doubles = Signals.music(FRAMES, channels, 44100);
+		floats = Signals.toFloats(doubles);
+		serialized = new byte[FRAMES * channels * codec.bytesPerSample()];
+		for (int i = 0, offset = 0; i < doubles.length; i++, offset += codec.bytesPerSample()) {
+			codec.encodeDouble(doubles[i], serialized, offset);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FRAMES)
+	public double[] readDoubles() throws IOException {
+		final FrameReader reader = new FrameReader(channels, BUFFER_SIZE, new ByteArrayInputStream(serialized), FRAMES, codec);
+		reader.read(doubles, 0, FRAMES);
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FRAMES)
+	public float[] readFloats() throws IOException {
+		final FrameReader reader = new FrameReader(channels, BUFFER_SIZE, new ByteArrayInputStream(serialized), FRAMES, codec);
+		reader.read(floats, 0, FRAMES);
+		return floats;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FRAMES)
+	public long writeDoubles() throws IOException {
+		final FrameWriter writer = new FrameWriter(channels, OutputStream.nullOutputStream(), codec, BUFFER_SIZE, null);
+		writer.writeFrame(doubles, 0, FRAMES);
+		return writer.flush();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FRAMES)
+	public long writeFloats() throws IOException {
+		final FrameWriter writer = new FrameWriter(channels, OutputStream.nullOutputStream(), codec, BUFFER_SIZE, null);
+		writer.writeFrame(floats, 0, FRAMES);
+		return writer.flush();
+	}
+}
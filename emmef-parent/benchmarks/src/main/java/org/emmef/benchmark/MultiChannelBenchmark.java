@@ -0,0 +1,76 @@
+package org.emmef.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.emmef.audio.filter.iir.BiquadCascade;
+import org.emmef.audio.filter.iir.MultiChannelBiquadCascade;
+import org.emmef.audio.filter.iir.butterworth.Coefficients;
+import org.emmef.audio.filter.iir.butterworth.PassType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput in frames per microsecond of an order 4 crossover over interleaved
+ * channels, filtered as vector lanes and one channel at a time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class MultiChannelBenchmark {
+	private static final int FRAMES = 4096;
+	private static final double FREQUENCY = 1000.0 / 44100;
+
+	@Param({ "2", "4", "8" })
+	public int channels;
+
+	private MultiChannelBiquadCascade lanes;
+	private BiquadCascade[] perChannel;
+	private double[] interleaved;
+	private double[][] deinterleaved;
+	private double[] output;
+
+	@Setup
+	public void setUp() {
+		final double[][] sections = Coefficients.butterworthSections(4, FREQUENCY, PassType.LOW_PASS);
+		lanes = MultiChannelBiquadCascade.create(sections, channels);
+		perChannel = new BiquadCascade[channels];
+		interleaved = Signals.music(FRAMES, channels, 44100);
+		deinterleaved = new double[channels][FRAMES];
+		for (int channel = 0; channel < channels; channel++) {
+			perChannel[channel] = new BiquadCascade(sections);
+			for (int frame = 0; frame < FRAMES; frame++) {
+				deinterleaved[channel][frame] = interleaved[frame * channels + channel];
+			}
+		}
+		output = new double[FRAMES * channels];
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FRAMES)
+	public double[] lanes() {
+		lanes.filter(interleaved, output, 0, FRAMES);
+		return output;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FRAMES)
+	public double[] perChannel() {
+		for (int channel = 0; channel < channels; channel++) {
+			perChannel[channel].filter(deinterleaved[channel], output, 0, FRAMES);
+		}
+		return output;
+	}
+}
@@ -0,0 +1,103 @@
+package org.emmef.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.emmef.audio.frame.FrameType;
+import org.emmef.audio.noisedetection.NrMeasurementSettings;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Direction;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Scheduling;
+import org.emmef.audio.noisereduction.BufferSet;
+import org.emmef.audio.noisereduction.CrossoverInfo;
+import org.emmef.audio.noisereduction.DefaultTimings;
+import org.emmef.audio.noisereduction.ExecutionModel;
+import org.emmef.audio.noisereduction.MultiBandNoiseFilter;
+import org.emmef.audio.noisereduction.NrDynamicsFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to filter a synthetic sound in memory with the default settings of the
+ * denoizer and the crossover presets, with each scheduling on a work-stealing
+ * pool with the given number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class NoiseFilterBenchmark {
+	private static final long SAMPLE_RATE = 44100;
+
+	@Param({ "dnl", "dolby-A", "tertz" })
+	public String preset;
+
+	@Param({ "2" })
+	public int channels;
+
+	@Param({ "10" })
+	public int seconds;
+
+	@Param({ "UPWARD", "BINARY_TREE" })
+	public Direction direction;
+
+	@Param({ "CHANNEL", "GRAPH" })
+	public Scheduling scheduling;
+
+	@Param({ "4" })
+	public int threads;
+
+	private float[] samples;
+	private FrameType frameType;
+	private CrossoverInfo crossoverInfo;
+	private NrMeasurementSettings measurementSettings;
+	private NrDynamicsFactory dynamicsFactory;
+	private DefaultTimings timings;
+	private ExecutorService executor;
+
+	@Setup
+	public void setUp() {
+		samples = Signals.toFloats(Signals.music((int)(seconds * SAMPLE_RATE), channels, SAMPLE_RATE));
+		frameType = new FrameType(channels, SAMPLE_RATE);
+		crossoverInfo = new CrossoverInfo(direction, 4, crossovers(preset));
+		measurementSettings = new NrMeasurementSettings(30, 75, 0.050, 0.300, 0.200, 0.1, 0.1, 3, false);
+		dynamicsFactory = new NrDynamicsFactory.Subtraction(0.0, 0.25);
+		timings = new DefaultTimings(crossoverInfo, Arrays.asList(0.025, 0.075), Arrays.asList(0.0015, 0.010), Arrays.asList(0.075, 0.200));
+		executor = ExecutionModel.FORK_JOIN.create(threads);
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public float[] filter() throws InterruptedException {
+		final float[] data = samples.clone();
+		new MultiBandNoiseFilter(data, frameType, measurementSettings, dynamicsFactory, crossoverInfo, timings, executor, scheduling, new BufferSet()).filter();
+		return data;
+	}
+
+	private static List<Double> crossovers(String preset) {
+		if ("tertz".equals(preset)) {
+			return Arrays.asList(70.0, 89.0, 112.0, 141.0, 177.0, 223.0, 281.0, 354.0, 446.0, 563.0, 709.0, 893.0, 1125.0, 1417.0, 1786.0, 2250.0, 2835.0, 3572.0, 4500.0, 5670.0, 7143.0, 9000.0, 11339.0, 14287.0);
+		}
+		if ("dolby-A".equals(preset)) {
+			return Arrays.asList(80.0, 3000.0, 9000.0);
+		}
+		return Arrays.asList(4500.0);
+	}
+}
@@ -0,0 +1,115 @@
+package org.emmef.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.emmef.samples.codec.SampleCodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput in samples per microsecond of decoding and encoding with each
+ * of the {@link SampleCodecs}, per sample and in bulk. The bulk conversions
+ * of 16 and 24-bit samples from and to floats use vector instructions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class SampleCodecBenchmark {
+	private static final int SAMPLES = 4096;
+
+	@Param
+	public SampleCodecs codec;
+
+	private byte[] bytes;
+	private double[] doubles;
+	private float[] floats;
+	private int bytesPerSample;
+
+	@Setup
+	public void setUp() {
+		bytesPerSample = codec.bytesPerSample();
+		bytes = new byte[SAMPLES * bytesPerSample];
+		doubles = Signals.music(SAMPLES, 1, 44100);
+		floats = Signals.toFloats(doubles);
+		for (int i = 0, offset = 0; i < SAMPLES; i++, offset += bytesPerSample) {
+			codec.encodeDouble(doubles[i], bytes, offset);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public double[] decodeDouble() {
+		for (int i = 0, offset = 0; i < SAMPLES; i++, offset += bytesPerSample) {
+			doubles[i] = codec.decodeDouble(bytes, offset);
+		}
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public float[] decodeFloat() {
+		for (int i = 0, offset = 0; i < SAMPLES; i++, offset += bytesPerSample) {
+			floats[i] = codec.decodeFloat(bytes, offset);
+		}
+		return floats;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public byte[] encodeDouble() {
+		for (int i = 0, offset = 0; i < SAMPLES; i++, offset += bytesPerSample) {
+			codec.encodeDouble(doubles[i], bytes, offset);
+		}
+		return bytes;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public byte[] encodeFloat() {
+		for (int i = 0, offset = 0; i < SAMPLES; i++, offset += bytesPerSample) {
+			codec.encodeFloat(floats[i], bytes, offset);
+		}
+		return bytes;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public double[] decodeDoubles() {
+		codec.decode(bytes, 0, doubles, 0, SAMPLES);
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public float[] decodeFloats() {
+		codec.decode(bytes, 0, floats, 0, SAMPLES);
+		return floats;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public byte[] encodeDoubles() {
+		codec.encode(doubles, 0, bytes, 0, SAMPLES);
+		return bytes;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public byte[] encodeFloats() {
+		codec.encode(floats, 0, bytes, 0, SAMPLES);
+		return bytes;
+	}
+}
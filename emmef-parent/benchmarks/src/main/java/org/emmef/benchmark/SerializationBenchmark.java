@@ -0,0 +1,136 @@
+package org.emmef.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.emmef.samples.serialization.Deserialize;
+import org.emmef.samples.serialization.Serialize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput in values per microsecond of reading and writing little-endian
+ * values of each width from and to a byte array.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+	private static final int VALUES = 4096;
+
+	public enum Width {
+		INT_16(2), INT_24(3), INT_32(4), INT_64(8), FLOAT(4), DOUBLE(8);
+
+		final int bytes;
+
+		Width(int bytes) {
+			this.bytes = bytes;
+		}
+	}
+
+	@Param
+	public Width width;
+
+	private byte[] bytes;
+	private long[] values;
+
+	@Setup
+	public void setUp() {
+		bytes = new byte[VALUES * width.bytes];
+		values = new long[VALUES];
+		final double[] signal = Signals.music(VALUES, 1, 44100);
+		for (int i = 0; i < VALUES; i++) {
+			values[i] = (long)(signal[i] * 0x7fffff);
+		}
+		write();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VALUES)
+	public long read() {
+		long sum = 0;
+		final int step = width.bytes;
+		switch (width) {
+		case INT_16:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				sum += Deserialize.read16LittleEndian(bytes, offset);
+			}
+			break;
+		case INT_24:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				sum += Deserialize.read24LittleEndian(bytes, offset);
+			}
+			break;
+		case INT_32:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				sum += Deserialize.read32LittleEndian(bytes, offset);
+			}
+			break;
+		case INT_64:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				sum += Deserialize.read64LittleEndian(bytes, offset);
+			}
+			break;
+		case FLOAT:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				sum += (long)Deserialize.readFloatLittleEndian(bytes, offset);
+			}
+			break;
+		default:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				sum += (long)Deserialize.readDoubleLittleEndian(bytes, offset);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VALUES)
+	public byte[] write() {
+		final int step = width.bytes;
+		switch (width) {
+		case INT_16:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				Serialize.write16LittleEndian((int)values[i], bytes, offset);
+			}
+			break;
+		case INT_24:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				Serialize.write24LittleEndian((int)values[i], bytes, offset);
+			}
+			break;
+		case INT_32:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				Serialize.write32LittleEndian((int)values[i], bytes, offset);
+			}
+			break;
+		case INT_64:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				Serialize.write64LittleEndian(values[i], bytes, offset);
+			}
+			break;
+		case FLOAT:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				Serialize.writeFloatLittleEndian(values[i], bytes, offset);
+			}
+			break;
+		default:
+			for (int i = 0, offset = 0; i < VALUES; i++, offset += step) {
+				Serialize.writeDoubleLittleEndian(values[i], bytes, offset);
+			}
+		}
+		return bytes;
+	}
+}
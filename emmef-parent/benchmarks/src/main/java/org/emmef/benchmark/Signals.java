@@ -0,0 +1,43 @@
+package org.emmef.benchmark;
+
+import java.util.Random;
+
+/**
+ * Synthetic test signals. Signals are deterministic, so that runs can be compared.
+ */
+final class Signals {
+	private Signals() {
+		// utility class
+	}
+
+	/**
+	 * Returns interleaved frames of a few tones with a varying envelope on top
+	 * of a noise floor at about -60 dB, so that noise detection has both
+	 * signal and noise to work with.
+	 */
+	static double[] music(int frames, int channels, long sampleRate) {
+		final Random random = new Random(frames * 31L + channels);
+		final double[] samples = new double[frames * channels];
+		final double[] tones = { 110.0, 440.0, 1250.0, 3520.0, 9000.0 };
+		for (int frame = 0; frame < frames; frame++) {
+			final double time = 1.0 * frame / sampleRate;
+			final double envelope = 0.5 + 0.5 * Math.sin(2.0 * Math.PI * 0.5 * time);
+			double tone = 0.0;
+			for (int i = 0; i < tones.length; i++) {
+				tone += Math.sin(2.0 * Math.PI * tones[i] * time + i) / (i + 1);
+			}
+			for (int channel = 0; channel < channels; channel++) {
+				samples[frame * channels + channel] = 0.2 * envelope * envelope * tone + 0.001 * random.nextGaussian();
+			}
+		}
+		return samples;
+	}
+
+	static float[] toFloats(double[] samples) {
+		final float[] result = new float[samples.length];
+		for (int i = 0; i < samples.length; i++) {
+			result[i] = (float)samples[i];
+		}
+		return result;
+	}
+}
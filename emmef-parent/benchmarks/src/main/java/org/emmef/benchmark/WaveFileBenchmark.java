@@ -0,0 +1,108 @@
+package org.emmef.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.emmef.audio.format.AudioFormat;
+import org.emmef.audio.format.AudioFormats;
+import org.emmef.audio.nodes.SoundSink;
+import org.emmef.audio.nodes.SoundSource;
+import org.emmef.fileformat.riff.wave.WaveFileProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to parse the chunks of a wave file and to read all of its frames, from
+ * a stream or from a memory mapping, and to write all frames in blocks, with
+ * one buffer or asynchronously with more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaveFileBenchmark {
+	private static final long SAMPLE_RATE = 44100;
+	private static final int CHANNELS = 2;
+	private static final int BLOCK_FRAMES = 4096;
+
+	@Param({ "16", "24" })
+	public int bits;
+
+	@Param({ "10" })
+	public int seconds;
+
+	@Param({ "false", "true" })
+	public boolean mapped;
+
+	@Param({ "1", "4" })
+	public int writeBuffers;
+
+	private WaveFileProvider provider;
+	private AudioFormat format;
+	private File file;
+	private URI uri;
+	private File output;
+	private double[] frames;
+
+	@Setup
+	public void setUp() throws IOException {
+		provider = new WaveFileProvider(mapped, writeBuffers);
+		format = AudioFormats.pcm().channels(CHANNELS).rate(SAMPLE_RATE).bitDepth(bits);
+		file = File.createTempFile("benchmark", ".wav");
+		uri = file.toURI();
+		output = File.createTempFile("benchmark", ".wav");
+		final int frameCount = (int)(seconds * SAMPLE_RATE);
+		frames = Signals.music(frameCount, CHANNELS, SAMPLE_RATE);
+		try (SoundSink sink = provider.createSink(uri, format, 0)) {
+			sink.writeFrames(frames, frameCount);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+		output.delete();
+	}
+
+	@Benchmark
+	public long parse() throws IOException {
+		try (SoundSource source = provider.createSource(uri, 0)) {
+			return source.getMetrics().getFrames();
+		}
+	}
+
+	@Benchmark
+	public long readAll() throws IOException {
+		try (SoundSource source = provider.createSource(uri, 0)) {
+			return source.readFrames(frames);
+		}
+	}
+
+	@Benchmark
+	public long writeAll() throws IOException {
+		final double[] block = new double[BLOCK_FRAMES * CHANNELS];
+		final int frameCount = frames.length / CHANNELS;
+		try (SoundSink sink = provider.createSink(output.toURI(), format, 0)) {
+			for (int frame = 0; frame < frameCount; frame += BLOCK_FRAMES) {
+				final int count = Math.min(BLOCK_FRAMES, frameCount - frame);
+				System.arraycopy(frames, frame * CHANNELS, block, 0, count * CHANNELS);
+				sink.writeFrames(block, count);
+			}
+			return sink.getMetrics().getFrames();
+		}
+	}
+}
@@ -7,12 +7,16 @@ import java.net.URLEncoder;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.emmef.audio.frame.FrameType;
 import org.emmef.audio.nodes.SoundSink;
 import org.emmef.audio.nodes.SoundSource;
 import org.emmef.audio.noisedetection.NrMeasurementSettings;
+import org.emmef.audio.noisereduction.Buffer.Precision;
 import org.emmef.audio.noisereduction.BandSplitFilterSet.Direction;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Scheduling;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.SegmentFiltering;
 import org.emmef.config.options.Builder;
 import org.emmef.config.options.Options;
 import org.emmef.config.options.SwitchBuilder;
@@ -113,6 +117,15 @@ public class NoiseRemover implements Program {
 					.restrictTo(0, 1)
 					.defaults(0)
 					.describedBy("Take the lowest level that occurs with the highest frequency");
+	private final Value<Integer> decimatedAnalysis =
+			noiseMeasurement
+					.optional("-da", "--decimated-analysis")
+					.describedBy("Measure low bands at a reduced sample rate")
+					.integer()
+					.restrictTo(0, 1)
+					.defaults(0)
+					.describedBy("Measure the noise in a separate pass, in which bands without high frequencies are decimated first. " +
+							"This is much faster for low bands, but gives slightly different noise levels.");
 
 	private final SwitchBuilder expansionReduction =
 			cmd.optional("-E", "--expansion-noise-reduction").describedBy("Parameters for noise reduction, based on expansion");
@@ -147,6 +160,13 @@ public class NoiseRemover implements Program {
 							"The subtraction factor can grow, based on the ratio between the signal level and " +
 									"the signal level. In this way, a smoother transition between reduction and no " +
 									"reduction is done, but sound me be a little numbed.");
+	private final Value<Integer> amplificationError =
+			cmd.optional("-a", "--amplification-error").describedBy("Accuracy of the amplification of noise reduction")
+					.mandatory().integer().restrictTo(0, 140).defaults(90).name("Amplification error (dB)")
+					.describedBy(
+							"The amplification is interpolated from a precomputed curve, with an error that is at least this " +
+									"many dB below full amplification. With 0, the amplification is calculated exactly for each " +
+									"sample, which is slower, but can be used as a reference.");
 
 	private final SwitchBuilder crossoverSettings =
 			cmd.optional("-c", "--crossovers").describedBy("Crossover properties");
@@ -155,19 +175,85 @@ public class NoiseRemover implements Program {
 					.describedBy("Crossover frequency/frequencies in Hz. The number of frequency bands is always 1 more than the nuber of crossovers.");
 	private final Value<Integer> filterOrder =
 			crossoverSettings.optional("-o", "--filter-order").describedBy("Filter order")
-					.mandatory().integer().restrictTo(1, 4).defaults(4)
+					.mandatory().integer().restrictTo(1, CrossoverInfo.MAX_FILTER_ORDER).defaults(4)
 					.describedBy("Filter order. The filter will be applied twice to create zero-phase resonse, so the actual " +
 							"order is twice as high");
 	private final Value<String> crossoverDirection =
 			crossoverSettings.optional("-d", "--direction").describedBy("Direction of crossover filtering")
 					.mandatory().text().defaults(Direction.UPWARD.name()).name("direction").describedBy("The direction indicates in which direction" +
-							" the crossovers will be evaluated. Down means that the highest crossover will be filtered first.");
+							" the crossovers will be evaluated. Down means that the highest crossover will be filtered first. " +
+							"Binary_tree splits at the middle crossover first and then splits both halves the same way, " +
+							"which needs fewer crossovers per band and lets the halves be split in parallel.");
 	private final Value<String> crossoverPreset =
 			crossoverSettings.optional("-p", "--preset").describedBy("Crossover preset frequency sets")
 					.mandatory().text().defaults("dnl").name("Predefined set of crossovers")
 					.describedBy("There are a few prestes for crossover frquencies:\n" +
 							"dnl    the original dynamic noise limiter by Philips, had one cut off at 4500 Hz\n" +
 							"tertz  from about 70 to 11000 Hz, all in tertz");
+	private final SwitchBuilder streaming =
+			cmd.optional("-b", "--block-streaming").describedBy("Stream the sound in blocks, instead of reading it into memory");
+	private final Value<Integer> blockFrames =
+			streaming.optional("-f", "--frames").describedBy("Frames per block")
+					.mandatory().integer().restrictTo(1024, 4194304).defaults(StreamingNoiseFilter.DEFAULT_BLOCK_FRAMES).name("Frames per block")
+					.describedBy("The number of frames that is read, filtered and written at once.\n" +
+							"The input file is read once for every measurement pass and once more for the noise reduction. " +
+							"Files that are too large to be read into memory are always streamed.");
+	private final SwitchBuilder execution =
+			cmd.optional("-x", "--execution").describedBy("How filtering is distributed over threads");
+	private final Value<String> executionModel =
+			execution.optional("-m", "--model").describedBy("Execution model")
+					.mandatory().text().defaults(ExecutionModel.DEFAULT.name()).name("Execution model")
+					.describedBy("The kind of threads that execute the filters:\n" +
+							"fork_join  a work-stealing pool with --threads threads\n" +
+							"fixed      a pool with a fixed number of --threads threads\n" +
+							"virtual    a virtual thread per task");
+	private final Value<Integer> threads =
+			execution.optional("-t", "--threads").describedBy("Number of threads")
+					.mandatory().integer().restrictTo(1, 1024).defaults(ExecutionModel.defaultParallelism()).name("Number of threads")
+					.describedBy("The maximum number of threads that execute filters at the same time. " +
+							"Defaults to the number of available processors.");
+	private final Value<String> scheduling =
+			execution.optional("-s", "--scheduling").describedBy("Scheduling of crossovers and band filters")
+					.mandatory().text().defaults(Scheduling.DEFAULT.name()).name("Scheduling")
+					.describedBy("How the work for a channel is divided into tasks:\n" +
+							"channel  a task per channel splits the bands and helps filtering them\n" +
+							"graph    every crossover and every band filter chain is a task, that starts the tasks " +
+							"depending on it");
+	private final Value<Integer> timeSegments =
+			execution.optional("-ts", "--segments").describedBy("Time segments per crossover")
+					.mandatory().integer().restrictTo(1, 1024).defaults(1).name("Number of segments")
+					.describedBy("The number of segments that each crossover pass is split into, to filter them in parallel. " +
+							"Each segment boundary adds an error below -150 dB. Not used when streaming.");
+	private final Value<String> segmentFiltering =
+			execution.optional("-L", "--segment-filtering").describedBy("How time segments are filtered")
+					.mandatory().text().defaults(SegmentFiltering.DEFAULT.name()).name("Segment filtering")
+					.describedBy("How the segments of --segments are filtered:\n" +
+							"tasks  a task per segment\n" +
+							"lanes  all segments side by side in the task of the crossover, with vector instructions " +
+							"if the virtual machine is started with --add-modules jdk.incubator.vector");
+	private final Value<Integer> bufferMemory =
+			execution.optional("-M", "--memory").describedBy("Memory budget for sample buffers")
+					.mandatory().integer().restrictTo(0, 1048576).defaults(0).name("Memory budget in MiB")
+					.describedBy("The maximum amount of memory in MiB used for the sample buffers of the frequency bands. " +
+							"Zero means three quarters of the free heap, or of the free direct memory with --off-heap. Not used when streaming.");
+	private final SwitchBuilder offHeap =
+			execution.optional("-o", "--off-heap").describedBy("Keep the samples of the frequency bands outside the heap. " +
+					"The virtual machine option -XX:MaxDirectMemorySize limits their memory. Not used when streaming.");
+	private final Value<String> precision =
+			execution.optional("-P", "--precision").describedBy("Precision of the samples of the frequency bands")
+					.mandatory().text().defaults(Precision.DEFAULT.name()).name("Precision")
+					.describedBy("How samples of the frequency bands are stored. This does not change the precision of the calculation: " +
+							"filters always calculate in double precision.\n" +
+							"double  64-bit samples\n" +
+							"float   32-bit samples, which halves their memory. The output deviates less than -125 dB from double.\n" +
+							"Not used when streaming.");
+	private final SwitchBuilder profileCache =
+			cmd.optional("-pc", "--profile-cache").describedBy("Keep measured noise profiles");
+	private final Value<File> profileCacheDirectory =
+			profileCache.mandatory().file().validatedBy(ProgramUtils.EXISTING_WRITABLE_TARGET_DIRECTORY).name("Profile cache directory")
+					.describedBy("An existing directory, in which the measured noise levels of each band are kept. " +
+							"When the same file is filtered again with the same noise measurement and crossover settings, " +
+							"the noise is not measured again, so that only the reduction settings can be changed quickly.");
 	private final Value<File> inputFile =
 			cmd.mandatory().file().validatedBy(ProgramUtils.EXISTING_NORMAL_READABLE_FILE_FILTER).name("inputFile")
 					.describedBy("An existing audio input file.");
@@ -185,16 +271,19 @@ public class NoiseRemover implements Program {
 		cmd.parse(args);
 
 		String sourcePath = inputFile.getValue().getAbsolutePath();
-		final SoundSource soundSource = SourceAndSinkProvider.createSource(new URI("file", URLEncoder.encode(sourcePath, "UTF-8"), null));
+		final URI sourceUri = new URI("file", URLEncoder.encode(sourcePath, "UTF-8"), null);
+		final SoundSource soundSource = SourceAndSinkProvider.createSource(sourceUri);
 		logger.info("Input: %s", soundSource);
 		final String absolutePath = new File(outputDirectory.getValue(), inputFile.getValue().getName()).getAbsolutePath();
 
 		try {
 			final SoundSink soundSink = SourceAndSinkProvider.createWithSameMetaData(soundSource, new URI("file", URLEncoder.encode(absolutePath, "UTF-8"), null));
 			logger.info("Output: %s", soundSink);
+			final ExecutorService executor = createExecutor();
 			try {
-				applyNoiseFilter(soundSource, soundSink);
+				applyNoiseFilter(sourceUri, soundSource, soundSink, executor);
 			} finally {
+				executor.shutdown();
 				soundSink.close();
 			}
 
@@ -203,13 +292,40 @@ public class NoiseRemover implements Program {
 		}
 	}
 
-	private void applyNoiseFilter(final SoundSource soundSource, final SoundSink soundSink) throws IOException, InterruptedException {
+	private void applyNoiseFilter(final URI sourceUri, final SoundSource soundSource, final SoundSink soundSink, final ExecutorService executor) throws IOException, InterruptedException {
 		final FrameType frameType = soundSource.getMetrics().getAudioFormat();
 		final long frameCount = soundSource.getMetrics().getFrames();
 		logger.trace("Frames=%d; channels=%d", frameCount, frameType.channels);
 
-		if (frameCount > Integer.MAX_VALUE / frameType.channels) {
-			throw new IllegalStateException("Too many frames (" + frameCount + ") in file for number of channels (" + frameType.channels + ")");
+		final CrossoverInfo crossoverInfo = createCrossoverInfo();
+		final NrDynamicsFactory nrDynamicsFactory = createNrDynamicsFactory();
+		final NrMeasurementSettings nrMeasurement = createNrMeasurementSettings();
+		final DefaultTimings timings = createTimings(crossoverInfo);
+
+		final boolean decimated = decimatedAnalysis.getValue() > 0;
+		final NoiseProfileCache cache = profileCache.present() ? new NoiseProfileCache(profileCacheDirectory.getValue()) : null;
+		final String profileKey = cache != null
+				? NoiseProfileCache.key(NoiseProfileCache.digest(inputFile.getValue()), frameType.sampleRate, nrMeasurement, crossoverInfo, timings, decimated)
+				: null;
+		final NoiseProfile cachedProfile = cache != null ? cache.get(profileKey) : null;
+		if (cache != null) {
+			logger.info(cachedProfile != null ? "Using cached noise profile %s" : "No cached noise profile %s", profileKey);
+		}
+		NoiseProfile knownProfile = cachedProfile;
+		if (knownProfile == null && decimated) {
+			logger.info("Analyzing noise with decimated low bands...");
+			knownProfile = new NoiseAnalyzer(frameType, frameCount, nrMeasurement, crossoverInfo, timings, blockFrames.getValue(), executor, true)
+					.analyze(() -> SourceAndSinkProvider.createSource(sourceUri));
+		}
+
+		if (streaming.present() || frameCount > Integer.MAX_VALUE / frameType.channels) {
+			logger.info("Filtering in blocks of %d frames...", blockFrames.getValue());
+			final StreamingNoiseFilter filter = new StreamingNoiseFilter(frameType, frameCount, nrMeasurement, nrDynamicsFactory, crossoverInfo, timings, blockFrames.getValue(), executor, knownProfile);
+			filter.filter(() -> SourceAndSinkProvider.createSource(sourceUri), soundSink);
+			if (cache != null && cachedProfile == null) {
+				storeProfile(cache, profileKey, filter.getNoiseProfile());
+			}
+			return;
 		}
 
 		float[] samples = new float[frameType.channels * (int) frameCount];
@@ -221,38 +337,80 @@ public class NoiseRemover implements Program {
 		}
 
 		logger.info("Filtering...");
-		createNoiseFilter(frameType, samples).filter();
+		final MultiBandNoiseFilter filter = new MultiBandNoiseFilter(samples, frameType, nrMeasurement, nrDynamicsFactory, crossoverInfo, timings, executor,
+				Scheduling.effectiveValueOf(scheduling.getValue()), createBufferSet(), timeSegments.getValue(),
+				SegmentFiltering.effectiveValueOf(segmentFiltering.getValue()), knownProfile);
+		filter.filter();
+		if (cache != null && cachedProfile == null) {
+			storeProfile(cache, profileKey, filter.getNoiseProfile());
+		}
 
 		logger.info("Write to " + soundSink);
 		soundSink.writeFrames(samples);
 	}
 
-	private MultiBandNoiseFilter createNoiseFilter(final FrameType frameType, float[] samples) {
-		final MultiBandNoiseFilter splitter;
+	private ExecutorService createExecutor() {
+		final ExecutionModel model = ExecutionModel.effectiveValueOf(executionModel.getValue());
+		logger.info("Execution: %s with %d threads", model, threads.getValue());
+		return model.create(threads.getValue());
+	}
+
+	private BufferSet createBufferSet() {
+		final long budget = bufferMemory.getValue() > 0 ? bufferMemory.getValue() * 1048576L : BufferSet.defaultBudget(offHeap.present());
+		final Precision bufferPrecision = Precision.effectiveValueOf(precision.getValue());
+		logger.info("Buffer memory budget: %d MiB%s, %s precision", budget / 1048576, offHeap.present() ? " off-heap" : "", bufferPrecision);
+		return new BufferSet(budget, BufferSet.DEFAULT_MAX_WAIT_MILLIS, offHeap.present(), bufferPrecision);
+	}
+
+	private void storeProfile(NoiseProfileCache cache, String key, NoiseProfile profile) {
+		try {
+			cache.put(key, profile);
+			logger.info("Stored noise profile %s", key);
+		}
+		catch (IOException e) {
+			logger.warn("Could not store noise profile %s: %s", key, e);
+		}
+	}
+
+	private CrossoverInfo createCrossoverInfo() {
 		final Direction direction = BandSplitFilterSet.Direction.effectiveValueOf(crossoverDirection.getValue());
 
 		final List<Double> crossoverValues = getCrossovers(crossovers.values(), crossoverPreset.getValue());
 		final CrossoverInfo crossoverInfo = new CrossoverInfo(direction, filterOrder.getValue(), crossoverValues);
 		logger.info(crossoverInfo);
+		return crossoverInfo;
+	}
+
+	private NrDynamicsFactory createNrDynamicsFactory() {
 		NrDynamicsFactory nrDynamicsFactory;
+		final int errorDb = amplificationError.getValue();
 		if (expansionReduction.present()) {
-			nrDynamicsFactory = new NrDynamicsFactory.Expansion(expansionThreshold.getValue(), expansionFactor.getValue());
+			nrDynamicsFactory = errorDb > 0
+					? new NrDynamicsFactory.Expansion(expansionThreshold.getValue(), expansionFactor.getValue(), NrDynamics.decibelToValue(-errorDb))
+					: new NrDynamicsFactory.Expansion(expansionThreshold.getValue(), expansionFactor.getValue());
 		} else {
-			nrDynamicsFactory = new NrDynamicsFactory.Subtraction(subtractionFactor.getValue(), subtractionRatio.getValue());
+			nrDynamicsFactory = errorDb > 0
+					? new NrDynamicsFactory.Subtraction(subtractionFactor.getValue(), subtractionRatio.getValue(), NrDynamics.decibelToValue(-errorDb))
+					: new NrDynamicsFactory.Subtraction(subtractionFactor.getValue(), subtractionRatio.getValue());
 		}
 		logger.info(nrDynamicsFactory);
+		return nrDynamicsFactory;
+	}
 
+	private NrMeasurementSettings createNrMeasurementSettings() {
 		NrMeasurementSettings nrMeasurement = new NrMeasurementSettings(
 				minSnRationDb.getValue(), maxSnRationDb.getValue(),
 				maxRmsWindow.getValue(), noiseRmsWindow.getValue(), skipMarkRmsWindow.getValue(),
 				skipStartSeconds.getValue(), skipEndSeconds.getValue(), irregularNoiseMeasurement.getValue(), frequencyScanning.getValue() > 0);
 
 		logger.info(nrMeasurement);
+		return nrMeasurement;
+	}
+
+	private DefaultTimings createTimings(final CrossoverInfo crossoverInfo) {
 		final DefaultTimings timings = new DefaultTimings(crossoverInfo, timeMeasurement.values(), timeAttack.values(), timeRelease.values());
 		logger.info(timings);
-
-		splitter = new MultiBandNoiseFilter(samples, frameType, nrMeasurement, nrDynamicsFactory, crossoverInfo, timings);
-		return splitter;
+		return timings;
 	}
 
 	private List<Double> getCrossovers(final List<Double> crossoverList, final String presetName) {
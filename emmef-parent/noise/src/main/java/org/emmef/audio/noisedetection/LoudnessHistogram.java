@@ -0,0 +1,177 @@
+package org.emmef.audio.noisedetection;
+
+import org.emmef.audio.buckets.Integration;
+
+/**
+ * Counts how often each loudness level occurs, in steps of a tenth of a
+ * decibel. Levels are identified by their index, which is the level in
+ * decibels times {@link #STEPS_PER_DB}.
+ * <p>
+ * Levels below {@link #MIN_DB} are counted as {@link #MIN_DB} and levels above
+ * {@link #MAX_DB} as {@link #MAX_DB}. The headroom above full scale leaves room
+ * for bands that overshoot and for floating point input.
+ */
+public final class LoudnessHistogram {
+	public static final int STEPS_PER_DB = 10;
+	public static final double MIN_DB = -120.0;
+	public static final double MAX_DB = 20.0;
+	public static final int MIN_INDEX = (int) (MIN_DB * STEPS_PER_DB);
+	public static final int MAX_INDEX = (int) (MAX_DB * STEPS_PER_DB);
+	public static final int SUMMING_WINDOW = 5;
+
+	private static final double MIN_DETECTION = Math.pow(10, MIN_DB / 20);
+	private static final double LOG_TO_INDEX = 20.0 * STEPS_PER_DB;
+
+	private final long[] counts = new long[MAX_INDEX - MIN_INDEX + 1];
+	private int firstIndex = MAX_INDEX + 1;
+	private int lastIndex = MIN_INDEX - 1;
+
+	/**
+	 * Counts the level of the given RMS value.
+	 */
+	public void add(double rms) {
+		final int index = indexFromDetection(Math.max(MIN_DETECTION, rms));
+		addCount(Math.min(MAX_INDEX, index), 1);
+	}
+
+	/**
+	 * Adds the counts of another histogram, for example of another band or
+	 * channel, to this one.
+	 */
+	public void add(LoudnessHistogram histogram) {
+		if (histogram == null) {
+			throw new NullPointerException("histogram");
+		}
+		for (int index = histogram.firstIndex; index <= histogram.lastIndex; index++) {
+			final long count = histogram.getCount(index);
+			if (count != 0) {
+				addCount(index, count);
+			}
+		}
+	}
+
+	public void clear() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = 0;
+		}
+		firstIndex = MAX_INDEX + 1;
+		lastIndex = MIN_INDEX - 1;
+	}
+
+	public boolean isEmpty() {
+		return firstIndex > lastIndex;
+	}
+
+	public long getCount(int index) {
+		return index >= MIN_INDEX && index <= MAX_INDEX ? counts[index - MIN_INDEX] : 0;
+	}
+
+	/**
+	 * Returns the index of the lowest level that occurred.
+	 * @throws IllegalStateException if the histogram is empty
+	 */
+	public int getFirstIndex() {
+		checkNotEmpty();
+		return firstIndex;
+	}
+
+	/**
+	 * Returns the index of the highest level that occurred.
+	 * @throws IllegalStateException if the histogram is empty
+	 */
+	public int getLastIndex() {
+		checkNotEmpty();
+		return lastIndex;
+	}
+
+	/**
+	 * Returns the index of the noise level: the most frequent level between
+	 * the given signal-to-noise ratios below the highest level. The counts are
+	 * summed over neighbouring levels and smoothed first, and if the
+	 * frequencies keep rising, the lowest local maximum is taken. If the levels
+	 * span less than the maximum ratio, the search starts at the lowest level.
+	 * @throws IllegalStateException if the histogram is empty
+	 */
+	public int getNoiseIndex(int minSnRatioDb, int maxSnRatioDb) {
+		checkNotEmpty();
+		int maxRmsIndex = lastIndex;
+
+		// Creates a 10-step-per-db array of occurrence frequencies
+		int rangeStart  = firstIndex - SUMMING_WINDOW;
+		int rangeEnd = lastIndex + SUMMING_WINDOW;
+		int rangeSize = 1 + rangeEnd - rangeStart;
+		double original[] = new double[rangeSize];
+		for (int index = firstIndex; index <= lastIndex; index++) {
+			original[index - rangeStart] = counts[index - MIN_INDEX];
+		}
+		double range[] = new double[rangeSize];
+		System.arraycopy(original, 0, range, 0, rangeSize);
+		for (int i = SUMMING_WINDOW; i < rangeSize - SUMMING_WINDOW; i++) {
+			double sum = 0.0;
+			for (int j = -SUMMING_WINDOW; j <= SUMMING_WINDOW; j++) {
+				sum += original[i + j];
+			}
+			range[i] = sum;
+		}
+
+		// Applies a zero-phase low-pass filter on the array of occurrence frequencies
+		Integration.Factors integration = new Integration.Factors(3);
+		double integrated;
+		integrated = 0;
+		for (int i = 0; i < range.length; i++) {
+			integrated = integration.integrated(integrated, range[i]);
+			range[i] = integrated;
+		}
+		integrated = 0;
+		for (int i = range.length - 1; i >= 0; i--) {
+			integrated = integration.integrated(integrated, range[i]);
+			range[i] = integrated;
+		}
+
+		// Detects the first maximum between the minimum and maximum allowed noise levels
+		int snrIndexMin = Math.max(0, maxRmsIndex - (int) (maxSnRatioDb * STEPS_PER_DB) - rangeStart);
+		int snrIndexMax = maxRmsIndex - (int) (minSnRatioDb * STEPS_PER_DB) - rangeStart;
+
+		int i = snrIndexMin;
+		double previous = range[i++];
+		int end = Math.min(range.length, snrIndexMax + 1);
+		while (i < end) {
+			double f = range[i];
+			if (f < previous) {
+				break;
+			}
+			previous = f;
+			i++;
+		}
+		// Returns the index of the maximum
+		return i + rangeStart - 1;
+	}
+
+	public static int indexFromDetection(double detection) {
+		return (int) Math.round(Math.log10(detection) * LOG_TO_INDEX);
+	}
+
+	public static double rmsFromIndex(int index) {
+		return Math.pow(10, 0.005 * index);
+	}
+
+	public static double dbFromIndex(int index) {
+		return 0.1 * index;
+	}
+
+	private void addCount(int index, long count) {
+		counts[index - MIN_INDEX] += count;
+		if (index < firstIndex) {
+			firstIndex = index;
+		}
+		if (index > lastIndex) {
+			lastIndex = index;
+		}
+	}
+
+	private void checkNotEmpty() {
+		if (isEmpty()) {
+			throw new IllegalStateException("Histogram is empty");
+		}
+	}
+}
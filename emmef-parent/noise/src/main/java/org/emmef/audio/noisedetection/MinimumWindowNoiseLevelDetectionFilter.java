@@ -12,7 +12,7 @@ public class MinimumWindowNoiseLevelDetectionFilter implements NoiseLevelDetecti
 	
 	private final Detection scanner;
 	private final byte[] ignored;
-	private int position;
+	private int index;
 	private final double maxRmsLevel;
 	private final NrMeasurementValues nrMeasurementSettings;
 
@@ -27,15 +27,17 @@ public class MinimumWindowNoiseLevelDetectionFilter implements NoiseLevelDetecti
 	@Override
 	public void reset() {
 		scanner.reset();
-		position = 0;
+		index = 0;
 	}
 
 	@Override
 	public double filter(double source) {
-		if ((ignored[position] & NoiseLevelDiscardFilter.MARK) == 0) {
+		if ((ignored[index] & NoiseLevelDiscardFilter.MARK) == 0) {
 			scanner.addSample(source);
 		}
-		position++;
+		if (++index == ignored.length) {
+			index = 0;
+		}
 		return source;
 	}
 	
@@ -6,12 +6,12 @@ import org.emmef.audio.noisereduction.ChainableFilter;
 import org.emmef.audio.noisereduction.FilterFactory;
 
 public class NoiseLevelDetectionFilterFactory implements FilterFactory {
-	private ThreadLocal<Detection> scanner = new ThreadLocal<>();
+	private final long sampleRate;
 	private final NrMeasurementValues nrMeasurementSettings;
 
 	public NoiseLevelDetectionFilterFactory(long sampleRate, NrMeasurementSettings nrMeasurementSettings) {
+		this.sampleRate = sampleRate;
 		this.nrMeasurementSettings = nrMeasurementSettings.withSampleRate(sampleRate);
-		scanner.set(new BucketScanner(sampleRate, NoiseLevelDetectionFilterFactory.this.nrMeasurementSettings.noiseWin));
 	}
 
 	@Override
@@ -19,12 +19,13 @@ public class NoiseLevelDetectionFilterFactory implements FilterFactory {
 		if (filterMetaData == null) {
 			throw new NullPointerException("filterMetaData");
 		}
+		final Detection scanner = new BucketScanner(sampleRate, nrMeasurementSettings.noiseWin);
 		if (nrMeasurementSettings.frequencyScanning) {
-			return new WindowFrequencyNoiseLevelDetectionFilter(scanner.get(), (Double) filterMetaData, nrMeasurementSettings);
+			return new WindowFrequencyNoiseLevelDetectionFilter(scanner, (Double) filterMetaData, nrMeasurementSettings);
 		}
 		else {
 			NoiseLevelDiscardFilter.DiscardInfo info = new NoiseLevelDiscardFilter.DiscardInfo(markers, (Double) filterMetaData);
-			return new MinimumWindowNoiseLevelDetectionFilter(scanner.get(), info, nrMeasurementSettings);
+			return new MinimumWindowNoiseLevelDetectionFilter(scanner, info, nrMeasurementSettings);
 		}
 	}
 
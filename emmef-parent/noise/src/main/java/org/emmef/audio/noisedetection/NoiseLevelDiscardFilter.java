@@ -1,7 +1,7 @@
 package org.emmef.audio.noisedetection;
 
-import org.emmef.audio.buckets.BucketScanner;
 import org.emmef.audio.buckets.Detection;
+import org.emmef.audio.buckets.LongBucketScanner;
 import org.emmef.audio.noisereduction.ChainableFilter;
 import org.emmef.audio.noisereduction.FilterFactory;
 import org.emmef.logging.FormatLogger;
@@ -16,27 +16,38 @@ public class NoiseLevelDiscardFilter implements ChainableFilter {
 	private final double thresholdUnsquared;
 	
 	private final Detection scanner;
-	private int position = 0;
+	private long position = 0;
+	private int index = 0;
 	private boolean isWiping;
-	private int ignoredCount;
+	private long ignoredCount;
 	private final NrMeasurementValues nrMeasurements;
-	private final int endPosition;
+	private final long endPosition;
 	private final double maxRmsLevel;
 
 	public NoiseLevelDiscardFilter(byte[] ignored, Detection scanner, NrMeasurementValues nrMeasurements, double maxRmsLevel) {
+		this(ignored, scanner, nrMeasurements, maxRmsLevel, ignored.length);
+	}
+
+	/**
+	 * Creates a discard filter for a band of {@code length} samples. If the
+	 * markers are shorter than that, they are used as a ring buffer and a
+	 * sample's mark is only final after another bucket of samples was filtered.
+	 */
+	public NoiseLevelDiscardFilter(byte[] ignored, Detection scanner, NrMeasurementValues nrMeasurements, double maxRmsLevel, long length) {
 		this.ignored = ignored;
 		this.scanner = scanner;
 		this.nrMeasurements = nrMeasurements;
 		this.maxRmsLevel = maxRmsLevel;
 		thresholdUnsquared = maxRmsLevel / nrMeasurements.maxSnRatio;
 		thresholdLo = thresholdUnsquared;
-		endPosition = ignored.length - nrMeasurements.skipEndSamples;
+		endPosition = length - nrMeasurements.skipEndSamples;
 		reset();
 	}
 	
 	@Override
 	public void reset() {
 		position = 0;
+		index = 0;
 		ignoredCount = 0;
 		for (int i = 0; i < ignored.length; i++) {
 			ignored[i] &= UNMARK;
@@ -52,10 +63,11 @@ public class NoiseLevelDiscardFilter implements ChainableFilter {
 	
 	@Override
 	public double filter(final double source) {
+		ignored[index] &= UNMARK;
 		if (position < nrMeasurements.skipStartSamples || position > endPosition) {
-			ignored[position] |= MARK;
+			ignored[index] |= MARK;
 			ignoredCount++;
-			position++;
+			next();
 			return source;
 		}
 		final double minimum = scanner.addSample(source);
@@ -63,7 +75,7 @@ public class NoiseLevelDiscardFilter implements ChainableFilter {
 		if (scanner.isWholeBucketScanned()) {
 			if (isWiping) {
 				if (minimum < thresholdLo) {
-					ignored[position] |= MARK;
+					ignored[index] |= MARK;
 					ignoredCount++;
 				}
 				else {
@@ -71,25 +83,40 @@ public class NoiseLevelDiscardFilter implements ChainableFilter {
 				}
 			}
 			else if (minimum < thresholdLo) {
-				for (int i = position + 1 - scanner.getBucketSize(); i <= position; i++) {
+				final int bucketSize = scanner.getBucketSize();
+				int i = index + 1 - bucketSize;
+				if (i < 0) {
+					i += ignored.length;
+				}
+				for (int marked = 0; marked < bucketSize; marked++) {
 					ignored[i] |= MARK;
 					ignoredCount++;
+					if (++i == ignored.length) {
+						i = 0;
+					}
 				}
 				isWiping = true;
 			}
 		}
-		position++;
+		next();
 		
 		return source;
 	}
+
+	private void next() {
+		position++;
+		if (++index == ignored.length) {
+			index = 0;
+		}
+	}
 	
 	@Override
 	public Double getMetaData() {
 		if (10 * ignoredCount / position > 0) {
-			logger.warn(this + " ignored " + ignoredCount + " samples");
+			logger.warn("%s ignored %d samples", this, ignoredCount);
 		}
 		else {
-			logger.trace(this + " ignored " + ignoredCount + " samples");
+			logger.trace("%s ignored %d samples", this, ignoredCount);
 		}
 		return maxRmsLevel;
 	}
@@ -115,7 +142,7 @@ public class NoiseLevelDiscardFilter implements ChainableFilter {
 				throw new NullPointerException("maxRms");
 			}
 			double threshold = maxRms.doubleValue() / nrMeasurements.maxSnRatio;
-			scanner.set(new BucketScanner(sampleRate, nrMeasurements.skipWin));
+			scanner.set(new LongBucketScanner(sampleRate, nrMeasurements.skipWin));
 			
 			return new NoiseLevelDiscardFilter(markers, scanner.get(), nrMeasurements, maxRms);
 		}
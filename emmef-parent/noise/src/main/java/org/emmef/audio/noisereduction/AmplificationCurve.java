@@ -0,0 +1,109 @@
+package org.emmef.audio.noisereduction;
+
+/**
+ * A precomputed amplification curve of {@link NrDynamics}, as a function of
+ * the relative level.
+ * <p>
+ * Each octave of relative levels is divided into the same number of bins. The
+ * bin is found from the exponent and the highest bits of the mantissa of the
+ * level, and the amplification is interpolated linearly within the bin. The
+ * number of bins is doubled until the interpolation error is within the given
+ * bound. Levels outside the table are calculated exactly.
+ */
+final class AmplificationCurve {
+	static final int MIN_EXPONENT = -32;
+	static final int MAX_EXPONENT = 32;
+	private static final int MIN_BITS = 4;
+	private static final int MAX_BITS = 12;
+	private static final int MANTISSA_BITS = 52;
+	private static final long MANTISSA_MASK = (1L << MANTISSA_BITS) - 1;
+	private static final int EXPONENT_BIAS = 1023;
+	private static final int CHECKS_PER_BIN = 4;
+
+	private final NrDynamics dynamics;
+	private final double maxError;
+	private final int bits;
+	private final long fractionMask;
+	private final double fractionScale;
+	private final double[] table;
+
+	AmplificationCurve(NrDynamics dynamics, double maxError) {
+		if (dynamics == null) {
+			throw new NullPointerException("dynamics");
+		}
+		if (!(maxError > 0.0)) {
+			throw new IllegalArgumentException("Maximum error must be positive: " + maxError);
+		}
+		this.dynamics = dynamics;
+		this.maxError = maxError;
+		int bits = MIN_BITS;
+		double[] table = createTable(dynamics, bits);
+		while (getError(dynamics, table, bits) > maxError) {
+			if (bits == MAX_BITS) {
+				throw new IllegalArgumentException("Cannot tabulate amplification with an error below " + maxError);
+			}
+			table = createTable(dynamics, ++bits);
+		}
+		this.bits = bits;
+		this.table = table;
+		this.fractionMask = (1L << (MANTISSA_BITS - bits)) - 1;
+		this.fractionScale = 1.0 / (1L << (MANTISSA_BITS - bits));
+	}
+
+	double getMaxError() {
+		return maxError;
+	}
+
+	int getBinsPerOctave() {
+		return 1 << bits;
+	}
+
+	/**
+	 * Returns the amplification for the given level relative to the threshold.
+	 */
+	double amplification(double relativeLevel) {
+		final long raw = Double.doubleToRawLongBits(relativeLevel);
+		final int exponent = (int)(raw >>> MANTISSA_BITS) - EXPONENT_BIAS;
+		if (exponent < MIN_EXPONENT || exponent >= MAX_EXPONENT) {
+			return dynamics.exactAmplification(relativeLevel);
+		}
+		final long mantissa = raw & MANTISSA_MASK;
+		final int index = ((exponent - MIN_EXPONENT) << bits) + (int)(mantissa >>> (MANTISSA_BITS - bits));
+		final double fraction = fractionScale * (mantissa & fractionMask);
+		final double lower = table[index];
+		return lower + fraction * (table[index + 1] - lower);
+	}
+
+	private static double[] createTable(NrDynamics dynamics, int bits) {
+		final int bins = 1 << bits;
+		final double[] table = new double[(MAX_EXPONENT - MIN_EXPONENT) * bins + 1];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = dynamics.exactAmplification(level(i, bits));
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the largest difference between the interpolated and the exact
+	 * amplification at a few points within each bin.
+	 */
+	private static double getError(NrDynamics dynamics, double[] table, int bits) {
+		double error = 0.0;
+		for (int i = 0; i < table.length - 1; i++) {
+			final double lower = level(i, bits);
+			final double width = level(i + 1, bits) - lower;
+			for (int check = 1; check < CHECKS_PER_BIN; check++) {
+				final double fraction = 1.0 * check / CHECKS_PER_BIN;
+				final double interpolated = table[i] + fraction * (table[i + 1] - table[i]);
+				error = Math.max(error, Math.abs(interpolated - dynamics.exactAmplification(lower + fraction * width)));
+			}
+		}
+		return error;
+	}
+
+	private static double level(int index, int bits) {
+		final int octave = index >> bits;
+		final double mantissa = 1.0 + 1.0 * (index & ((1 << bits) - 1)) / (1 << bits);
+		return Math.scalb(mantissa, octave + MIN_EXPONENT);
+	}
+}
@@ -0,0 +1,255 @@
+package org.emmef.audio.noisereduction;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Executor;
+
+import org.emmef.audio.frame.FrameType;
+import org.emmef.audio.nodes.SoundSink;
+import org.emmef.audio.nodes.SoundSource;
+import org.emmef.audio.noisereduction.StreamingNoiseFilter.SourceOpener;
+
+/**
+ * Streams a source in blocks through a {@link StreamingBandSplitter} for each
+ * channel, and lets a processor handle the samples of each band. Each pass
+ * re-opens the source. The channels of each block are processed in parallel
+ * on the given executor.
+ */
+final class BandStreamer {
+	private final FrameType frameType;
+	private final long frameCount;
+	private final CrossoverInfo crossoverInfo;
+	private final int blockFrames;
+	private final Executor executor;
+
+	BandStreamer(FrameType frameType, long frameCount, CrossoverInfo crossoverInfo, int blockFrames, Executor executor) {
+		if (frameType == null) {
+			throw new NullPointerException("frameType");
+		}
+		if (crossoverInfo == null) {
+			throw new NullPointerException("crossoverInfo");
+		}
+		if (executor == null) {
+			throw new NullPointerException("executor");
+		}
+		if (frameCount < 1) {
+			throw new IllegalArgumentException("Need at least one frame of samples");
+		}
+		if (blockFrames < 1) {
+			throw new IllegalArgumentException("Block must contain at least one frame");
+		}
+		this.frameType = frameType;
+		this.frameCount = frameCount;
+		this.crossoverInfo = crossoverInfo;
+		this.blockFrames = blockFrames;
+		this.executor = executor;
+	}
+
+	int getBands() {
+		return crossoverInfo.crossovers.size() + 1;
+	}
+
+	/**
+	 * Streams all samples of the source through the processors and returns
+	 * their meta-data, indexed by channel and by band from the lowest frequency
+	 * upward.
+	 */
+	double[][] measure(SourceOpener sources, ProcessorFactory factory) throws IOException {
+		return run(sources, frameCount, factory, 0, null);
+	}
+
+	/**
+	 * Streams the source through the processors, that replace the samples of
+	 * their band, and writes the sum of the bands to the sink.
+	 *
+	 * @param latency the number of samples by which the processors delay their output
+	 */
+	void filter(SourceOpener sources, ProcessorFactory factory, int latency, SoundSink sink) throws IOException {
+		if (sink == null) {
+			throw new NullPointerException("sink");
+		}
+		run(sources, frameCount + latency, factory, latency, sink);
+	}
+
+	/**
+	 * @param positions the number of samples in each band to process
+	 */
+	private double[][] run(SourceOpener sources, long positions, ProcessorFactory factory, int filterLatency, SoundSink sink) throws IOException {
+		if (sources == null) {
+			throw new NullPointerException("sources");
+		}
+		final int channels = frameType.channels;
+		final ChannelPass[] passes = new ChannelPass[channels];
+		for (int channel = 0; channel < channels; channel++) {
+			passes[channel] = new ChannelPass(channel, factory);
+		}
+		final long latency = passes[0].splitter.getLatency();
+		final float[] frames = new float[channels * blockFrames];
+
+		try (SoundSource source = sources.open()) {
+			if (source.getMetrics().getAudioFormat().getChannels() != channels) {
+				throw new IllegalStateException("Source has " + source.getMetrics().getAudioFormat().getChannels() + " channels instead of " + channels);
+			}
+			long framesRead = 0;
+			long blockPosition = -latency;
+			while (blockPosition < positions) {
+				final int read = framesRead < frameCount ? readBlock(source, frames, (int)Math.min(blockFrames, frameCount - framesRead)) : 0;
+				framesRead += read;
+				final int start = (int)Math.max(0, -blockPosition);
+				final int end = (int)Math.min(blockFrames, positions - blockPosition);
+				final int outStart = (int)Math.max(start, filterLatency - blockPosition);
+				final int outEnd = (int)Math.min(end, filterLatency + frameCount - blockPosition);
+				final int sumEnd = sink != null ? outEnd : outStart;
+				final TaskGroup group = new TaskGroup(executor);
+				for (ChannelPass pass : passes) {
+					group.submit(() -> pass.process(frames, read, start, end, outStart, sumEnd));
+				}
+				try {
+					group.awaitWithoutExceptions();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while filtering");
+				}
+				if (sink != null && outStart < outEnd) {
+					writeBlock(sink, frames, outStart, outEnd - outStart);
+				}
+				blockPosition += blockFrames;
+			}
+		}
+
+		final double[][] metaData = new double[channels][];
+		for (int channel = 0; channel < channels; channel++) {
+			metaData[channel] = passes[channel].finish();
+		}
+		return metaData;
+	}
+
+	private int readBlock(SoundSource source, float[] frames, int count) throws IOException {
+		final long read = source.readFrames(frames, count);
+		if (read < count) {
+			throw new IllegalStateException("Expected " + count + " frames but could only read " + read);
+		}
+		return count;
+	}
+
+	private void writeBlock(SoundSink sink, float[] frames, int offset, int count) throws IOException {
+		final int channels = frameType.channels;
+		if (offset > 0) {
+			System.arraycopy(frames, offset * channels, frames, 0, count * channels);
+		}
+		sink.writeFrames(frames, count);
+	}
+
+	/**
+	 * Splits and processes the samples of a single channel. Passes of different
+	 * channels only access their own samples in the interleaved frames.
+	 */
+	private final class ChannelPass {
+		private final int channel;
+		private final StreamingBandSplitter splitter;
+		private final BandProcessor[] processors;
+		private final double[] input = new double[blockFrames];
+		private final double[][] bandSamples;
+
+		ChannelPass(int channel, ProcessorFactory factory) {
+			this.channel = channel;
+			splitter = new StreamingBandSplitter(frameType.sampleRate, crossoverInfo, MultiBandNoiseFilter.CROSSOVER_BITS, blockFrames);
+			processors = new BandProcessor[splitter.getBands()];
+			for (int band = 0; band < processors.length; band++) {
+				final double lowerFrequency = splitter.getLowerFrequency(band);
+				processors[band] = factory.create(channel, crossoverInfo.getBand(lowerFrequency), lowerFrequency, splitter.getHigherFrequency(band));
+			}
+			bandSamples = new double[processors.length][blockFrames];
+		}
+
+		/**
+		 * Processes band positions {@code [start, end)} of the block and writes the
+		 * sum of the bands for positions {@code [outStart, outEnd)} back into the frames.
+		 */
+		void process(float[] frames, int read, int start, int end, int outStart, int outEnd) {
+			final int channels = frameType.channels;
+			for (int i = 0, j = channel; i < read; i++, j += channels) {
+				input[i] = frames[j];
+			}
+			for (int i = read; i < blockFrames; i++) {
+				input[i] = 0.0;
+			}
+			splitter.split(input, blockFrames, bandSamples);
+			if (start >= end) {
+				return;
+			}
+			for (int band = 0; band < processors.length; band++) {
+				processors[band].process(bandSamples[band], start, end - start);
+			}
+			for (int i = outStart, j = outStart * channels + channel; i < outEnd; i++, j += channels) {
+				double sum = 0.0;
+				for (int band = 0; band < processors.length; band++) {
+					sum += bandSamples[band][i];
+				}
+				frames[j] = (float)sum;
+			}
+		}
+
+		double[] finish() {
+			final double[] metaData = new double[processors.length];
+			for (int band = 0; band < processors.length; band++) {
+				metaData[crossoverInfo.getBand(splitter.getLowerFrequency(band))] = processors[band].finish();
+			}
+			return metaData;
+		}
+	}
+
+	interface ProcessorFactory {
+		/**
+		 * Creates the processor for a band, numbered from the lowest frequency upward.
+		 */
+		BandProcessor create(int channel, int band, double lowerFrequency, double higherFrequency);
+	}
+
+	/**
+	 * Processes consecutive samples of a single frequency band.
+	 */
+	interface BandProcessor {
+		void process(double[] samples, int offset, int count);
+
+		/**
+		 * Signals that all samples were processed and returns the measured level,
+		 * or {@link Double#NaN} if nothing was measured.
+		 */
+		double finish();
+	}
+
+	static final class Filtering implements BandProcessor {
+		private final ChainableFilter filter;
+		private final boolean replace;
+		private double[] discarded = new double[0];
+
+		Filtering(ChainableFilter filter, boolean replace) {
+			this.filter = filter;
+			this.replace = replace;
+		}
+
+		@Override
+		public void process(double[] samples, int offset, int count) {
+			if (replace) {
+				filter.filter(samples, samples, offset, count);
+				return;
+			}
+			final int end = offset + count;
+			if (discarded.length < end) {
+				discarded = new double[end];
+			}
+			filter.filter(samples, discarded, offset, count);
+		}
+
+		@Override
+		public double finish() {
+			return level(filter.getMetaData());
+		}
+	}
+
+	static double level(Double metaData) {
+		return metaData != null ? metaData : Double.NaN;
+	}
+}
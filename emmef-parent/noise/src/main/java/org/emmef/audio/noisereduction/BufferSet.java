@@ -1,28 +1,181 @@
 package org.emmef.audio.noisereduction;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+import org.emmef.audio.noisereduction.Buffer.Precision;
 import org.emmef.logging.FormatLogger;
 
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Pool of sample buffers within a memory budget.
+ * <p>
+ * Buffers are pooled per size class: all buffers of a class have the same
+ * number of samples, as filters derive the length of the sound from them.
+ * Each {@link Handle} caches the buffers it reserved until it is closed, after
+ * which they become available to other handles. A handle reserves its minimum
+ * number of buffers up front, all at once, and takes more, up to its
+ * preferred number, when they are needed and fit the budget. Idle buffers of other size
+ * classes are released when a new buffer does not fit the budget. Waiting for
+ * a buffer is bounded by a timeout.
+ * <p>
+ * The samples of the buffers can be kept off-heap, so that the size of the heap
+ * and garbage collection pauses do not grow with the length of the sound. Only
+ * the markers then remain on the heap. Off-heap memory is limited by the
+ * {@code -XX:MaxDirectMemorySize} option of the virtual machine. Samples can
+ * also be stored in single precision, which halves the memory of a buffer.
+ */
 public class BufferSet {
 	private static final FormatLogger logger = FormatLogger.getLogger(BufferSet.class);
 
+	/**
+	 * Part of the free heap, or free direct memory for off-heap buffers, that is
+	 * used as budget if no budget is given.
+	 */
+	public static final double DEFAULT_BUDGET_FRACTION = 0.75;
+	public static final long DEFAULT_MAX_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+	private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
 	public interface Handle {
 		Buffer get() throws InterruptedException;
+		/**
+		 * Returns a buffer if one is available without waiting and {@code null} otherwise.
+		 */
+		Buffer tryGet();
 		void put(Buffer buf);
 		void close();
 		void panic();
 	}
-	
-	private final Object[] mutex = new Object[0];
-	private boolean first = true;
-	private int sampleCount = -1;
-	private final LinkedList<Buffer> shared = new LinkedList<Buffer>();
-	private boolean panic = false;
-	private int pendingBuffersRequested;
 
+	private final long budget;
+	private final long maxWaitNanos;
+	private final boolean offHeap;
+	private final Precision precision;
+	private final int chunkSamples;
+	private final Map<Integer, ConcurrentLinkedQueue<Buffer>> idle = new ConcurrentHashMap<Integer, ConcurrentLinkedQueue<Buffer>>();
+	private final AtomicLong allocatedBytes = new AtomicLong();
+	private final AtomicLong peakBytes = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder waits = new LongAdder();
+	private volatile boolean panic = false;
+
+	public BufferSet() {
+		this(defaultBudget(), DEFAULT_MAX_WAIT_MILLIS);
+	}
+
+	public BufferSet(long budget, long maxWaitMillis) {
+		this(budget, maxWaitMillis, false);
+	}
+
+	public BufferSet(long budget, long maxWaitMillis, boolean offHeap) {
+		this(budget, maxWaitMillis, offHeap, Precision.DEFAULT);
+	}
+
+	public BufferSet(long budget, long maxWaitMillis, boolean offHeap, Precision precision) {
+		this(budget, maxWaitMillis, offHeap, precision, Buffer.DEFAULT_CHUNK_SAMPLES);
+	}
+
+	BufferSet(long budget, long maxWaitMillis, boolean offHeap, Precision precision, int chunkSamples) {
+		if (precision == null) {
+			throw new NullPointerException("precision");
+		}
+		if (budget < 1) {
+			throw new IllegalArgumentException("Budget must be at least one byte");
+		}
+		if (maxWaitMillis < 0) {
+			throw new IllegalArgumentException("Maximum wait time cannot be negative");
+		}
+		if (chunkSamples < 1 || Integer.bitCount(chunkSamples) != 1) {
+			throw new IllegalArgumentException("Samples per chunk must be a power of two");
+		}
+		this.budget = budget;
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		this.offHeap = offHeap;
+		this.precision = precision;
+		this.chunkSamples = chunkSamples;
+	}
+
+	public static long defaultBudget() {
+		return defaultBudget(false);
+	}
+
+	public static long defaultBudget(boolean offHeap) {
+		if (offHeap) {
+			return Math.max(1, (long)(DEFAULT_BUDGET_FRACTION * (maxDirectMemory() - usedDirectMemory())));
+		}
+		final Runtime runtime = Runtime.getRuntime();
+		final long used = runtime.totalMemory() - runtime.freeMemory();
+		return Math.max(1, (long)(DEFAULT_BUDGET_FRACTION * (runtime.maxMemory() - used)));
+	}
+
+	/**
+	 * Returns the limit of direct memory, which is set with
+	 * {@code -XX:MaxDirectMemorySize} and is the maximum heap size otherwise.
+	 */
+	static long maxDirectMemory() {
+		try {
+			final HotSpotDiagnosticMXBean diagnostics = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+			final long maximum = Long.parseLong(diagnostics.getVMOption("MaxDirectMemorySize").getValue());
+			if (maximum > 0) {
+				return maximum;
+			}
+		}
+		catch (RuntimeException e) {
+			logger.debug("Cannot read maximum direct memory size: %s", e);
+		}
+		return Runtime.getRuntime().maxMemory();
+	}
+
+	static long usedDirectMemory() {
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			if ("direct".equals(pool.getName())) {
+				return pool.getMemoryUsed();
+			}
+		}
+		return 0;
+	}
+
+	public static long bytesFor(int sampleCount) {
+		return bytesFor(sampleCount, Precision.DOUBLE);
+	}
+
+	public static long bytesFor(int sampleCount, Precision precision) {
+		return (long)sampleCount * (precision.bytes + Byte.BYTES);
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	public boolean isOffHeap() {
+		return offHeap;
+	}
+
+	public Precision getPrecision() {
+		return precision;
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(hits.sum(), misses.sum(), waits.sum(), allocatedBytes.get(), peakBytes.get());
+	}
+
+	/**
+	 * Reserves the minimum number of buffers for a new handle, waiting for other
+	 * handles to close if they do not fit the budget.
+	 */
 	Handle init(int sampleCount, int minimumBuffers, int preferredBuffers) throws InterruptedException {
 		if (sampleCount < 1) {
 			throw new IllegalStateException("Sample count should be at least one");
@@ -33,173 +186,294 @@ public class BufferSet {
 		if (preferredBuffers < minimumBuffers) {
 			throw new IllegalArgumentException("Preferred number of buffers (" + preferredBuffers + ") should be bigger than minimum (" + minimumBuffers + ")");
 		}
-		List<BufferAndState> newBuffers;
-		synchronized (mutex) {
-			pendingBuffersRequested += minimumBuffers;
-			try {
-				if (this.sampleCount != -1 && this.sampleCount != sampleCount) {
-					throw new IllegalStateException("Already initialized with buffer size " + this.sampleCount);
-				}
-				newBuffers = unsafeTryAllocate(sampleCount, minimumBuffers, preferredBuffers);
-				if (first && newBuffers == null) {
-					throw new IllegalStateException("Cannot allocate enough buffers to work with");
-				}
-				 
-				while (newBuffers == null) {
-					waitForMutex();
-					newBuffers = unsafeTryAllocate(sampleCount, minimumBuffers, preferredBuffers);
+		if (minimumBuffers * bytesFor(sampleCount, precision) > budget) {
+			throw new IllegalStateException("Cannot allocate enough buffers to work with: " + minimumBuffers + " buffers of " + sampleCount + " samples exceed budget of " + budget + " bytes");
+		}
+		final MyHandle handle = new MyHandle(sampleCount, preferredBuffers);
+		try {
+			final long deadline = System.nanoTime() + maxWaitNanos;
+			long parkNanos = MIN_PARK_NANOS;
+			boolean waited = false;
+			while (!reserveAll(handle, minimumBuffers)) {
+				if (!waited) {
+					waits.increment();
+					waited = true;
 				}
-				if (first) {
-					this.sampleCount = sampleCount;
-					first = false;
+				parkNanos = park(deadline, parkNanos);
+			}
+		}
+		catch (InterruptedException | RuntimeException e) {
+			handle.close();
+			throw e;
+		}
+		return handle;
+	}
+
+	/**
+	 * Reserves the given number of buffers for the handle, or none at all, so
+	 * that handles that wait for their minimum number of buffers do not hold
+	 * buffers that other waiting handles need.
+	 */
+	private boolean reserveAll(MyHandle handle, int count) {
+		final Buffer[] acquired = new Buffer[count];
+		int reserved = 0;
+		try {
+			for (; reserved < count; reserved++) {
+				acquired[reserved] = acquire(handle.sampleCount);
+				if (acquired[reserved] == null) {
+					return false;
 				}
 			}
-			finally {
-				pendingBuffersRequested -= minimumBuffers;
-				mutex.notifyAll();
+			for (Buffer buffer : acquired) {
+				handle.reserve(buffer);
+			}
+			return true;
+		}
+		finally {
+			if (reserved < count) {
+				for (int i = 0; i < reserved; i++) {
+					release(acquired[i]);
+				}
 			}
 		}
-		return new MyHandle(newBuffers);
 	}
 
-	private List<BufferAndState> unsafeTryAllocate(int sampleCount, int minimumBuffers, int preferredBuffers) {
-		final List<BufferAndState> result = new ArrayList<BufferAndState>(preferredBuffers);
+	/**
+	 * Returns an idle buffer of the size class or allocates one if it fits the
+	 * budget; returns {@code null} otherwise.
+	 */
+	private Buffer acquire(int sampleCount) {
+		checkPanic();
+		final Buffer pooled = idleBuffers(sampleCount).poll();
+		if (pooled != null) {
+			hits.increment();
+			return pooled;
+		}
+		final long bytes = bytesFor(sampleCount, precision);
+		if (!reserveBytes(bytes) && !(evictOtherSizes(sampleCount, bytes) && reserveBytes(bytes))) {
+			return null;
+		}
+		misses.increment();
 		try {
-			for (int i = 0; i < preferredBuffers; i++) {
-				result.add(new BufferAndState(new Buffer(sampleCount), true));
-			}
+			return new Buffer(sampleCount, offHeap, precision, chunkSamples);
 		}
 		catch (OutOfMemoryError e) {
-			// We exactly know what allocate failed.
+			allocatedBytes.addAndGet(-bytes);
+			throw e;
 		}
-		if (result.size() > minimumBuffers) {
-			logger.trace("Allocated %d buffers (min=%d)", result.size(), minimumBuffers);
-			for (int i = result.size() - 1; i >= minimumBuffers; i--) {
-				shared.add(result.remove(i).buffer);
+	}
+
+	private void release(Buffer buffer) {
+		idleBuffers(buffer.length()).add(buffer);
+	}
+
+	private ConcurrentLinkedQueue<Buffer> idleBuffers(int sampleCount) {
+		return idle.computeIfAbsent(sampleCount, size -> new ConcurrentLinkedQueue<Buffer>());
+	}
+
+	private boolean reserveBytes(long bytes) {
+		while (true) {
+			final long allocated = allocatedBytes.get();
+			final long newAllocated = allocated + bytes;
+			if (newAllocated > budget) {
+				return false;
+			}
+			if (allocatedBytes.compareAndSet(allocated, newAllocated)) {
+				peakBytes.accumulateAndGet(newAllocated, Math::max);
+				return true;
 			}
-			return result;
-		}
-		else {
-			logger.info("Couldn't allocate preferred number of buffers; processing performance might not be optimal");
 		}
-		int deficient = minimumBuffers - result.size();
-		if (deficient == 0) {
-			return result;
+	}
+
+	/**
+	 * Drops idle buffers of other size classes until the given number of bytes
+	 * fits the budget.
+	 *
+	 * @return {@code true} if any buffer was dropped
+	 */
+	private boolean evictOtherSizes(int sampleCount, long bytes) {
+		boolean evicted = false;
+		for (Map.Entry<Integer, ConcurrentLinkedQueue<Buffer>> entry : idle.entrySet()) {
+			if (entry.getKey() == sampleCount) {
+				continue;
+			}
+			Buffer buffer;
+			while (allocatedBytes.get() + bytes > budget && (buffer = entry.getValue().poll()) != null) {
+				allocatedBytes.addAndGet(-bytesFor(buffer.length(), precision));
+				evicted = true;
+			}
 		}
-		if (deficient > shared.size()) {
-			logger.trace("Will have to wait");
-			result.clear();
-			return null;
+		return evicted;
+	}
+
+	private long park(long deadline, long parkNanos) throws InterruptedException {
+		checkPanic();
+		final long remaining = deadline - System.nanoTime();
+		if (remaining <= 0) {
+			throw new IllegalStateException("Waited more than " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " msec for a buffer");
 		}
-		logger.trace("Lending %d buffers from shared pool", deficient);
-		for (int i = 0; i < deficient; i++) {
-			result.add(new BufferAndState(shared.remove(), false));
+		LockSupport.parkNanos(Math.min(parkNanos, remaining));
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
 		}
-		
-		return result;
+		return Math.min(MAX_PARK_NANOS, 2 * parkNanos);
 	}
 
-	private void waitForMutex() throws InterruptedException {
-		mutex.wait();
+	private void checkPanic() {
 		if (panic) {
 			throw new IllegalStateException("There was panic: shutdown");
 		}
 	}
-	
+
 	private class MyHandle implements Handle {
-		private final LinkedList<BufferAndState> buffers = new LinkedList<BufferAndState>();
+		private final int sampleCount;
+		private final int maximumBuffers;
+		private final ConcurrentLinkedQueue<Buffer> owned = new ConcurrentLinkedQueue<Buffer>();
+		private final ConcurrentLinkedQueue<Buffer> free = new ConcurrentLinkedQueue<Buffer>();
+		private final Semaphore freeCount = new Semaphore(0);
+		private final AtomicInteger reserved = new AtomicInteger();
+		private volatile boolean closed;
+		private final AtomicBoolean warned = new AtomicBoolean();
+
+		MyHandle(int sampleCount, int maximumBuffers) {
+			this.sampleCount = sampleCount;
+			this.maximumBuffers = maximumBuffers;
+		}
 
-		public MyHandle(List<BufferAndState> newBuffers) {
-			for (BufferAndState b : newBuffers) {
-				buffers.add(b);
+		void reserve(Buffer buffer) {
+			reserved.incrementAndGet();
+			owned.add(buffer);
+			put(buffer);
+		}
+
+		/**
+		 * Reserves an extra buffer from the pool if this handle has less than its
+		 * maximum number of buffers.
+		 */
+		private Buffer reserveExtra() {
+			if (reserved.incrementAndGet() > maximumBuffers) {
+				reserved.decrementAndGet();
+				return null;
 			}
+			final Buffer buffer = acquire(sampleCount);
+			if (buffer != null) {
+				owned.add(buffer);
+				if (closed) {
+					// the handle was closed concurrently and may not have released the buffer
+					if (owned.remove(buffer)) {
+						release(buffer);
+					}
+					throw new IllegalStateException("Handle is already closed");
+				}
+			}
+			else {
+				reserved.decrementAndGet();
+				if (warned.compareAndSet(false, true)) {
+					logger.info("Couldn't allocate preferred number of buffers; processing performance might not be optimal");
+				}
+			}
+			return buffer;
 		}
-		
+
 		@Override
 		public void panic() {
-			synchronized (mutex) {
-				panic = true;
-				mutex.notifyAll();
-			}
+			panic = true;
 		}
-		
+
 		@Override
 		public Buffer get() throws InterruptedException {
-			Buffer buff;
-			synchronized (mutex) {
-				if (buffers.isEmpty()) {
-					throw new IllegalStateException("Handle is already closed");
+			Buffer buff = tryGet();
+			if (buff != null) {
+				return buff;
+			}
+			waits.increment();
+			final long deadline = System.nanoTime() + maxWaitNanos;
+			long parkNanos = MIN_PARK_NANOS;
+			while (buff == null) {
+				if (freeCount.tryAcquire(parkNanos, TimeUnit.NANOSECONDS)) {
+					hits.increment();
+					buff = free.poll();
 				}
-				buff = unsafeGet();
-				while (buff == null) {
-					waitForMutex();
-					buff = unsafeGet();
+				else {
+					buff = reserveExtra();
+					if (buff == null) {
+						parkNanos = park(deadline, parkNanos);
+					}
 				}
 			}
-			synchronized (buff) {
+			buff.clear();
+			return buff;
+		}
+
+		@Override
+		public Buffer tryGet() {
+			if (closed) {
+				throw new IllegalStateException("Handle is already closed");
+			}
+			checkPanic();
+			Buffer buff;
+			if (freeCount.tryAcquire()) {
+				hits.increment();
+				buff = free.poll();
+			}
+			else {
+				buff = reserveExtra();
+			}
+			if (buff != null) {
 				buff.clear();
 			}
 			return buff;
 		}
-		
+
+		/**
+		 * Returns a buffer to this handle. Buffers that are returned after the
+		 * handle was closed are ignored, as closing returned them to the pool.
+		 */
 		@Override
 		public void put(Buffer buf) {
-			synchronized (mutex) {
-				try {
-					for (BufferAndState entry : buffers) {
-						if (entry.buffer == buf) {
-							entry.occupied = false;
-							return;
-						}
-					}
-					shared.add(buf);
-				}
-				finally {
-					mutex.notifyAll();
-				}
+			if (closed) {
+				return;
 			}
+			free.add(buf);
+			freeCount.release();
 		}
-		
+
+		/**
+		 * Returns all buffers reserved by this handle to the pool, including
+		 * those that were not put back.
+		 */
 		@Override
 		public void close() {
-			synchronized (mutex) {
-				try {
-					while (!buffers.isEmpty()) {
-						final BufferAndState removed = buffers.remove();
-						if (!removed.isPrivate || shared.size() < pendingBuffersRequested) {
-							shared.add(removed.buffer);
-						}
-					}
-					buffers.clear();
-				}
-				finally {
-					mutex.notifyAll();
-				}
+			if (closed) {
+				return;
 			}
-		}
-
-		private Buffer unsafeGet() {
-			for (BufferAndState entry : buffers) {
-				if (!entry.occupied) {
-					entry.occupied = true;
-					return entry.buffer;
-				}
+			closed = true;
+			free.clear();
+			Buffer buffer;
+			while ((buffer = owned.poll()) != null) {
+				release(buffer);
 			}
-			if (!shared.isEmpty()) {
-				return shared.remove();
-			}
-			return null;
 		}
 	}
-	
-	private class BufferAndState {
-		final Buffer buffer;
-		final boolean isPrivate;
-		boolean occupied = false;
-		
-		public BufferAndState(Buffer buffer, boolean isPrivate) {
-			this.buffer = buffer;
-			this.isPrivate = isPrivate;
+
+	public static final class Statistics {
+		public final long hits;
+		public final long misses;
+		public final long waits;
+		public final long allocatedBytes;
+		public final long peakBytes;
+
+		Statistics(long hits, long misses, long waits, long allocatedBytes, long peakBytes) {
+			this.hits = hits;
+			this.misses = misses;
+			this.waits = waits;
+			this.allocatedBytes = allocatedBytes;
+			this.peakBytes = peakBytes;
+		}
+
+		@Override
+		public String toString() {
+			return "Buffers {hits=" + hits + "; misses=" + misses + "; waits=" + waits + "; allocated=" + allocatedBytes + " bytes; peak=" + peakBytes + " bytes}";
 		}
 	}
 }
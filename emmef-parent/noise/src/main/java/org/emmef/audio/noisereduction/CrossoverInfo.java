@@ -10,6 +10,8 @@ import java.util.TreeSet;
 import org.emmef.audio.noisereduction.BandSplitFilterSet.Direction;
 
 public class CrossoverInfo {
+	public static final int MAX_FILTER_ORDER = 8;
+
 	public final int filterOrder;
 	public final Direction direction;
 	public final List<Double> crossovers;
@@ -25,8 +27,8 @@ public class CrossoverInfo {
 		if (filterOrder < 1) {
 			this.filterOrder = 1; 
 		}
-		else if (filterOrder > 4) {
-			this.filterOrder = 4;
+		else if (filterOrder > MAX_FILTER_ORDER) {
+			this.filterOrder = MAX_FILTER_ORDER;
 		}
 		else {
 			this.filterOrder = filterOrder;
@@ -59,4 +61,16 @@ public class CrossoverInfo {
 	public final double get(int i) {
 		return crossovers.get(i);
 	}
+
+	/**
+	 * Returns the number of the band that starts at the given frequency,
+	 * counting from the lowest band.
+	 */
+	public final int getBand(double lowerFrequency) {
+		int band = 0;
+		while (band < crossovers.size() && crossovers.get(band) <= lowerFrequency) {
+			band++;
+		}
+		return band;
+	}
 }
@@ -0,0 +1,94 @@
+package org.emmef.audio.noisereduction;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Determines on what kind of threads the filters are executed.
+ */
+public enum ExecutionModel {
+	/**
+	 * A work-stealing pool with a bounded number of threads.
+	 */
+	FORK_JOIN {
+		@Override
+		public ExecutorService create(int parallelism) {
+			return new ForkJoinPool(checkParallelism(parallelism));
+		}
+	},
+	/**
+	 * A pool with a fixed number of threads.
+	 */
+	FIXED {
+		@Override
+		public ExecutorService create(int parallelism) {
+			return Executors.newFixedThreadPool(checkParallelism(parallelism), new DaemonThreadFactory());
+		}
+	},
+	/**
+	 * A new virtual thread per task. The parallelism is determined by the
+	 * scheduler of virtual threads and is ignored.
+	 */
+	VIRTUAL {
+		@Override
+		public ExecutorService create(int parallelism) {
+			checkParallelism(parallelism);
+			return Executors.newVirtualThreadPerTaskExecutor();
+		}
+	};
+
+	public static final ExecutionModel DEFAULT = FORK_JOIN;
+
+	public static ExecutionModel effectiveValueOf(String value) {
+		if (value == null) {
+			throw new NullPointerException("value");
+		}
+		final String name = value.replace('-', '_');
+		for (ExecutionModel model : values()) {
+			if (model.name().equalsIgnoreCase(name)) {
+				return model;
+			}
+		}
+		return DEFAULT;
+	}
+
+	public static int defaultParallelism() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Returns the executor that is shared by all filters that were not given an
+	 * executor explicitly. It uses the {@link #DEFAULT} model and
+	 * {@link #defaultParallelism()} and is never shut down.
+	 */
+	public static ExecutorService shared() {
+		return SharedExecutor.INSTANCE;
+	}
+
+	public abstract ExecutorService create(int parallelism);
+
+	private static int checkParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		return parallelism;
+	}
+
+	private static final class SharedExecutor {
+		static final ExecutorService INSTANCE = DEFAULT.create(defaultParallelism());
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable task) {
+			final Thread thread = new Thread(task, "Filter " + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
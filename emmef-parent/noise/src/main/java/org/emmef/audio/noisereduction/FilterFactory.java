@@ -3,6 +3,14 @@ package org.emmef.audio.noisereduction;
 public interface FilterFactory {
 	ChainableFilter createFilter(Object filterMetaData, double minFreq, double maxFreq, byte[] markers);
 
+	/**
+	 * Creates the filter for a band of a channel. Bands are numbered from the
+	 * lowest frequency upward. By default, the channel and band are ignored.
+	 */
+	default ChainableFilter createFilter(int channel, int band, Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
+		return createFilter(filterMetaData, minFreq, maxFreq, markers);
+	}
+
 	default int getLatency() {
 		return 0;
 	}
@@ -1,7 +1,7 @@
 package org.emmef.audio.noisereduction;
 
-import org.emmef.audio.buckets.BucketScanner;
 import org.emmef.audio.buckets.Detection;
+import org.emmef.audio.buckets.LongBucketScanner;
 import org.emmef.audio.noisedetection.NrMeasurementSettings;
 import org.emmef.audio.noisedetection.NrMeasurementValues;
 import org.emmef.logging.FormatLogger;
@@ -11,7 +11,7 @@ public class IrregularNoiseDetectionFilter implements ChainableFilter {
 	private final Detection scanner;
 	private final double noiseLevel;
 	private final byte[] markers;
-	private int position;
+	private int index;
 
 	IrregularNoiseDetectionFilter(Detection scanner, double noiseLevel, byte[] markers) {
 		this.scanner = scanner;
@@ -22,16 +22,18 @@ public class IrregularNoiseDetectionFilter implements ChainableFilter {
 
 	@Override
 	public double filter(double input) {
-		if ((markers[position] & NoiseLevelMarkerFilter.MARK) != 0) {
+		if ((markers[index] & NoiseLevelMarkerFilter.MARK) != 0) {
 			scanner.addSample(input);
 		}
-		position++;
+		if (++index == markers.length) {
+			index = 0;
+		}
 		return input;
 	}
 
 	@Override
 	public void reset() {
-		position = 0;
+		index = 0;
 		scanner.reset();
 	}
 
@@ -52,6 +54,11 @@ public class IrregularNoiseDetectionFilter implements ChainableFilter {
 		return newNoiseLevel;
 	}
 
+	@Override
+	public Double getMetaData() {
+		return getNoiseLevel();
+	}
+
 
 	public static class Factory implements FilterFactory {
 		private final NrMeasurementValues nrMeasurements;
@@ -69,7 +76,7 @@ public class IrregularNoiseDetectionFilter implements ChainableFilter {
 				throw new NullPointerException("filterMetaData");
 			}
 			final int bucketSize = ratedTimings.getEffectiveMeasurementSamples(nrMeasurements, minFreq);
-			final Detection newScanner = new BucketScanner(ratedTimings.sampleRate, ratedTimings.timings.getEffectiveMeasurementTime(nrMeasurements, minFreq));
+			final Detection newScanner = new LongBucketScanner(ratedTimings.sampleRate, ratedTimings.timings.getEffectiveMeasurementTime(nrMeasurements, minFreq));
 			scanner.set(newScanner);
 			return new IrregularNoiseDetectionFilter(newScanner, ((Double) filterMetaData).doubleValue(), markers);
 		}
@@ -1,7 +1,7 @@
 package org.emmef.audio.noisereduction;
 
-import org.emmef.audio.buckets.BucketScanner;
 import org.emmef.audio.buckets.Detection;
+import org.emmef.audio.buckets.LongBucketScanner;
 import org.emmef.audio.noisedetection.NrMeasurementSettings;
 import org.emmef.logging.FormatLogger;
 
@@ -12,7 +12,7 @@ public class MaxRmsDetectionFilter implements ChainableFilter {
 	private int count = 0;
 
 	public MaxRmsDetectionFilter(long sampleRate, double windowSeconds) {
-		bucketScanner = new BucketScanner(sampleRate, windowSeconds);
+		bucketScanner = new LongBucketScanner(sampleRate, windowSeconds);
 	}
 	
 	@Override
@@ -3,8 +3,11 @@ package org.emmef.audio.noisereduction;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
 import org.emmef.audio.frame.FrameType;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Scheduling;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.SegmentFiltering;
 import org.emmef.audio.noisedetection.*;
 import org.emmef.logging.FormatLogger;
 
@@ -12,13 +15,51 @@ import org.emmef.logging.FormatLogger;
 public class MultiBandNoiseFilter {
 	private static final FormatLogger logger = FormatLogger.getLogger(MultiBandNoiseFilter.class);
 
+	/**
+	 * Resolution in bits below which the response of the crossover filters is considered to have decayed.
+	 */
+	static final int CROSSOVER_BITS = 25;
+
 	private final BandSplitFilterSet set;
 	private final FrameType frameType;
 	private final float[] samples;
-	private final BufferSet buffers = new BufferSet();
-	;
+	private final BufferSet buffers;
+	private final NoiseProfile profile;
+	private final NoiseProfileRecorder recorder;
 
 	public MultiBandNoiseFilter(float[] samples, FrameType frameType, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, CrossoverInfo crossoverInfo, Timings timings) {
+		this(samples, frameType, nrMeasurements, nrDynamicsFactory, crossoverInfo, timings, ExecutionModel.shared());
+	}
+
+	public MultiBandNoiseFilter(float[] samples, FrameType frameType, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, CrossoverInfo crossoverInfo, Timings timings, Executor executor) {
+		this(samples, frameType, nrMeasurements, nrDynamicsFactory, crossoverInfo, timings, executor, Scheduling.DEFAULT, new BufferSet());
+	}
+
+	public MultiBandNoiseFilter(float[] samples, FrameType frameType, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, CrossoverInfo crossoverInfo, Timings timings, Executor executor, Scheduling scheduling, BufferSet buffers) {
+		this(samples, frameType, nrMeasurements, nrDynamicsFactory, crossoverInfo, timings, executor, scheduling, buffers, 1);
+	}
+
+	/**
+	 * @param timeSegments the number of segments that each crossover pass is split
+	 *            into to be filtered in parallel, see {@link BandSplitFilterSet}
+	 */
+	public MultiBandNoiseFilter(float[] samples, FrameType frameType, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, CrossoverInfo crossoverInfo, Timings timings, Executor executor, Scheduling scheduling, BufferSet buffers, int timeSegments) {
+		this(samples, frameType, nrMeasurements, nrDynamicsFactory, crossoverInfo, timings, executor, scheduling, buffers, timeSegments, null);
+	}
+
+	/**
+	 * @param profile the noise levels to reduce, or {@code null} to measure them;
+	 *            given levels skip all measurement filters
+	 */
+	public MultiBandNoiseFilter(float[] samples, FrameType frameType, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, CrossoverInfo crossoverInfo, Timings timings, Executor executor, Scheduling scheduling, BufferSet buffers, int timeSegments, NoiseProfile profile) {
+		this(samples, frameType, nrMeasurements, nrDynamicsFactory, crossoverInfo, timings, executor, scheduling, buffers, timeSegments, SegmentFiltering.DEFAULT, profile);
+	}
+
+	/**
+	 * @param segmentFiltering how the time segments of a crossover pass are
+	 *            filtered, see {@link SegmentFiltering}
+	 */
+	public MultiBandNoiseFilter(float[] samples, FrameType frameType, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, CrossoverInfo crossoverInfo, Timings timings, Executor executor, Scheduling scheduling, BufferSet buffers, int timeSegments, SegmentFiltering segmentFiltering, NoiseProfile profile) {
 		this.frameType = frameType;
 		if (samples == null) {
 			throw new NullPointerException("samples");
@@ -29,31 +70,95 @@ public class MultiBandNoiseFilter {
 		if (crossoverInfo == null) {
 			throw new NullPointerException("crossoverInfo");
 		}
+		if (buffers == null) {
+			throw new NullPointerException("buffers");
+		}
 		if (samples.length == 0) {
 			throw new IllegalArgumentException("Need at least one frame of samples");
 		}
 		if (samples.length % frameType.channels != 0) {
 			throw new IllegalArgumentException("Number of samples must be multiple of the number of channels");
 		}
+		final int bands = crossoverInfo.crossovers.size() + 1;
+		if (profile != null && (profile.getChannels() != frameType.channels || profile.getBands() != bands)) {
+			throw new IllegalArgumentException("Profile has " + profile.getChannels() + " channels and " + profile.getBands() +
+					" bands instead of " + frameType.channels + " and " + bands);
+		}
 		this.samples = samples;
+		this.buffers = buffers;
+		this.profile = profile;
+		final List<FilterFactory> filterFactories;
+		if (profile != null) {
+			recorder = null;
+			filterFactories = List.of(profile.createReductionFactory(createReductionFactory(frameType.sampleRate, nrMeasurements, nrDynamicsFactory, timings)));
+		}
+		else {
+			recorder = new NoiseProfileRecorder(frameType.channels, bands);
+			filterFactories = createFilterFactories(frameType.sampleRate, nrMeasurements, nrDynamicsFactory, timings, recorder);
+		}
+
+		set = new BandSplitFilterSet(buffers, frameType.sampleRate, samples.length / frameType.channels, CROSSOVER_BITS, filterFactories, crossoverInfo, executor, scheduling, timeSegments, segmentFiltering);
+	}
+
+	/**
+	 * Creates the measurement factories followed by the reduction factory. If
+	 * a recorder is given, the factories whose meta-data make up the noise
+	 * profile are wrapped to record it.
+	 */
+	static List<FilterFactory> createFilterFactories(long sampleRate, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, Timings timings, NoiseProfileRecorder recorder) {
 		List<FilterFactory> filterFactories = new ArrayList<FilterFactory>();
-		RatedTimings ratedTimings = new RatedTimings(timings, frameType.sampleRate);
+		RatedTimings ratedTimings = new RatedTimings(timings, sampleRate);
 		if (nrMeasurements.frequencyScanning) {
-			filterFactories.add(new WeighedRmsLoudnessMeasurementFilter.Factory(frameType.sampleRate, nrMeasurements));
-			filterFactories.add(new WeighedRmsNoiserReductionFilter.Factory(frameType.sampleRate, nrDynamicsFactory, nrMeasurements));
+			filterFactories.add(recordNoiseLevel(recorder, new WeighedRmsLoudnessMeasurementFilter.Factory(sampleRate, nrMeasurements)));
 		}
 		else {
-			filterFactories.add(new MaxRmsDetectionFilter.Factory(frameType.sampleRate, nrMeasurements));
-			filterFactories.add(new NoiseLevelDiscardFilter.Factory(frameType.sampleRate, nrMeasurements));
-			filterFactories.add(new NoiseLevelDetectionFilterFactory(frameType.sampleRate, nrMeasurements));
+			filterFactories.add(recordMaxRms(recorder, new MaxRmsDetectionFilter.Factory(sampleRate, nrMeasurements)));
+			filterFactories.add(new NoiseLevelDiscardFilter.Factory(sampleRate, nrMeasurements));
 			if (nrMeasurements.measureIrregularNoise != 0) {
-				filterFactories.add(new NoiseLevelMarkerFilter.Factory(frameType.sampleRate, nrMeasurements));
-				filterFactories.add(new IrregularNoiseDetectionFilter.Factory(nrMeasurements, ratedTimings));
+				filterFactories.add(new NoiseLevelDetectionFilterFactory(sampleRate, nrMeasurements));
+				filterFactories.add(new NoiseLevelMarkerFilter.Factory(sampleRate, nrMeasurements));
+				filterFactories.add(recordNoiseLevel(recorder, new IrregularNoiseDetectionFilter.Factory(nrMeasurements, ratedTimings)));
 			}
-			filterFactories.add(new NoiseReductionFilter.Factory(ratedTimings, nrDynamicsFactory, nrMeasurements));
+			else {
+				filterFactories.add(recordNoiseLevel(recorder, new NoiseLevelDetectionFilterFactory(sampleRate, nrMeasurements)));
+			}
+		}
+		filterFactories.add(createReductionFactory(sampleRate, nrMeasurements, nrDynamicsFactory, timings));
+		return filterFactories;
+	}
+
+	static NoiseReductionFactory createReductionFactory(long sampleRate, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, Timings timings) {
+		if (nrMeasurements.frequencyScanning) {
+			return new WeighedRmsNoiserReductionFilter.Factory(sampleRate, nrDynamicsFactory, nrMeasurements);
+		}
+		return new NoiseReductionFilter.Factory(new RatedTimings(timings, sampleRate), nrDynamicsFactory, nrMeasurements);
+	}
+
+	/**
+	 * Returns the latency of the reduction that {@link #createReductionFactory}
+	 * creates, which does not depend on the reduction settings.
+	 */
+	static int getReductionLatency(long sampleRate, NrMeasurementSettings nrMeasurements, Timings timings) {
+		if (nrMeasurements.frequencyScanning) {
+			return WeighedRmsNoiserReductionFilter.Factory.latency(sampleRate, nrMeasurements);
 		}
+		return NoiseReductionFilter.Factory.latency(new RatedTimings(timings, sampleRate), nrMeasurements);
+	}
+
+	private static FilterFactory recordNoiseLevel(NoiseProfileRecorder recorder, FilterFactory factory) {
+		return recorder != null ? recorder.recordNoiseLevel(factory) : factory;
+	}
+
+	private static FilterFactory recordMaxRms(NoiseProfileRecorder recorder, FilterFactory factory) {
+		return recorder != null ? recorder.recordMaxRms(factory) : factory;
+	}
 
-		set = new BandSplitFilterSet(buffers, frameType.sampleRate, samples.length / frameType.channels, 25, filterFactories, crossoverInfo);
+	/**
+	 * Returns the noise profile that was given, or the one that was measured
+	 * by {@link #filter()}.
+	 */
+	public NoiseProfile getNoiseProfile() {
+		return profile != null ? profile : recorder.toProfile();
 	}
 
 	public void filter() throws InterruptedException {
@@ -64,6 +169,7 @@ public class MultiBandNoiseFilter {
 		}
 
 		latch.await();
+		logger.info(buffers.getStatistics());
 
 		final List<Exception> exceptions = set.getExceptions();
 
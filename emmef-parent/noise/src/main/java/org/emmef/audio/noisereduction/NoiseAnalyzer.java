@@ -0,0 +1,270 @@
+package org.emmef.audio.noisereduction;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import org.emmef.audio.buckets.LongBucketScanner;
+import org.emmef.audio.frame.FrameType;
+import org.emmef.audio.noisedetection.NoiseLevelDetectionFilterFactory;
+import org.emmef.audio.noisedetection.NoiseLevelDiscardFilter;
+import org.emmef.audio.noisedetection.NrMeasurementSettings;
+import org.emmef.audio.noisedetection.NrMeasurementValues;
+import org.emmef.audio.noisedetection.WeighedRmsLoudnessMeasurementFilter;
+import org.emmef.audio.noisereduction.BandStreamer.BandProcessor;
+import org.emmef.audio.noisereduction.BandStreamer.Filtering;
+import org.emmef.audio.noisereduction.StreamingNoiseFilter.SourceOpener;
+import org.emmef.logging.FormatLogger;
+
+/**
+ * Measures the noise profile of a sound, without reducing its noise. The
+ * sound is streamed in blocks from a source, that is re-opened for each
+ * measurement pass, so memory usage does not depend on the length of the
+ * sound. An analyzer keeps no state between calls, so that different sounds
+ * can be analyzed concurrently by different analyzers.
+ * <p>
+ * The profile can be used to reduce the noise with {@link MultiBandNoiseFilter}
+ * or {@link StreamingNoiseFilter}, with any reduction settings. The levels
+ * are the same as those these filters measure themselves, within the
+ * resolution of the crossover filters (see {@link StreamingBandSplitter}).
+ * <p>
+ * Optionally, low bands are measured after a {@link PolyphaseDecimator} has
+ * reduced their sample rate. All measurement windows and timings are then
+ * expressed at that rate, which makes measuring those bands much cheaper, at
+ * the cost of slightly different levels.
+ */
+public class NoiseAnalyzer {
+	private static final FormatLogger logger = FormatLogger.getLogger(NoiseAnalyzer.class);
+
+	private final FrameType frameType;
+	private final NrMeasurementSettings nrMeasurements;
+	private final NrMeasurementValues nrMeasurementValues;
+	private final RatedTimings ratedTimings;
+	private final BandStreamer streamer;
+	private final long markerLength;
+	private final boolean decimateLowBands;
+
+	public NoiseAnalyzer(FrameType frameType, long frameCount, NrMeasurementSettings nrMeasurements, CrossoverInfo crossoverInfo, Timings timings, int blockFrames) {
+		this(frameType, frameCount, nrMeasurements, crossoverInfo, timings, blockFrames, ExecutionModel.shared());
+	}
+
+	public NoiseAnalyzer(FrameType frameType, long frameCount, NrMeasurementSettings nrMeasurements, CrossoverInfo crossoverInfo, Timings timings, int blockFrames, Executor executor) {
+		this(frameType, frameCount, nrMeasurements, crossoverInfo, timings, blockFrames, executor, false);
+	}
+
+	/**
+	 * @param decimateLowBands whether to measure bands without high frequencies
+	 *            at a reduced sample rate
+	 */
+	public NoiseAnalyzer(FrameType frameType, long frameCount, NrMeasurementSettings nrMeasurements, CrossoverInfo crossoverInfo, Timings timings, int blockFrames, Executor executor, boolean decimateLowBands) {
+		if (nrMeasurements == null) {
+			throw new NullPointerException("nrMeasurements");
+		}
+		if (timings == null) {
+			throw new NullPointerException("timings");
+		}
+		this.streamer = new BandStreamer(frameType, frameCount, crossoverInfo, blockFrames, executor);
+		this.frameType = frameType;
+		this.nrMeasurements = nrMeasurements;
+		this.nrMeasurementValues = nrMeasurements.withSampleRate(frameType.sampleRate);
+		this.ratedTimings = new RatedTimings(timings, frameType.sampleRate);
+		this.decimateLowBands = decimateLowBands;
+		/*
+		 * The in-memory filter uses the length of its padded buffers to determine where
+		 * measurement ends, so we use the same length.
+		 */
+		markerLength = frameCount
+				+ 2L * BandSplitFilterSet.bitLevelPeriods(frameType.sampleRate, MultiBandNoiseFilter.CROSSOVER_BITS, crossoverInfo)
+				+ MultiBandNoiseFilter.getReductionLatency(frameType.sampleRate, nrMeasurements, timings);
+	}
+
+	/**
+	 * Measures the noise profile of the sound that the given opener provides.
+	 */
+	public NoiseProfile analyze(SourceOpener sources) throws IOException {
+		if (sources == null) {
+			throw new NullPointerException("sources");
+		}
+		if (nrMeasurements.frequencyScanning) {
+			logger.info("Measuring loudness distribution...");
+			final double[][] noiseLevels = streamer.measure(sources, (channel, band, lowerFrequency, higherFrequency) -> {
+				final BandRate rate = new BandRate(higherFrequency);
+				return rate.measure(new Filtering(new WeighedRmsLoudnessMeasurementFilter(rate.sampleRate, nrMeasurements, lowerFrequency, higherFrequency, rate.markerLength), false));
+			});
+			final double[][] maxRmsLevels = new double[noiseLevels.length][streamer.getBands()];
+			for (double[] levels : maxRmsLevels) {
+				Arrays.fill(levels, Double.NaN);
+			}
+			return new NoiseProfile(noiseLevels, maxRmsLevels);
+		}
+
+		logger.info("Measuring maximum RMS levels...");
+		final double[][] maxRmsLevels = streamer.measure(sources, (channel, band, lowerFrequency, higherFrequency) -> {
+			final BandRate rate = new BandRate(higherFrequency);
+			return rate.measure(new Filtering(new MaxRmsDetectionFilter.Factory(rate.sampleRate, nrMeasurements).createFilter(null, lowerFrequency, higherFrequency, null), false));
+		});
+
+		logger.info("Measuring noise levels...");
+		final double[][] noiseLevels = streamer.measure(sources, (channel, band, lowerFrequency, higherFrequency) -> {
+			final BandRate rate = new BandRate(higherFrequency);
+			final LongBucketScanner scanner = new LongBucketScanner(rate.sampleRate, rate.values.skipWin);
+			final byte[] markers = new byte[scanner.getBucketSize() + 1];
+			final double maxRms = maxRmsLevels[channel][band];
+			return rate.measure(new Lagging(
+					new NoiseLevelDiscardFilter(markers, scanner, rate.values, maxRms, rate.markerLength),
+					scanner.getBucketSize(),
+					new NoiseLevelDetectionFilterFactory(rate.sampleRate, nrMeasurements).createFilter(maxRms, lowerFrequency, higherFrequency, markers)));
+		});
+
+		if (nrMeasurements.measureIrregularNoise == 0) {
+			return new NoiseProfile(noiseLevels, maxRmsLevels);
+		}
+
+		logger.info("Measuring irregular noise levels...");
+		return new NoiseProfile(streamer.measure(sources, (channel, band, lowerFrequency, higherFrequency) -> {
+			final BandRate rate = new BandRate(higherFrequency);
+			final LongBucketScanner scanner = new LongBucketScanner(rate.sampleRate, rate.values.skipWin);
+			final byte[] markers = new byte[scanner.getBucketSize() + 1];
+			final double maxRms = maxRmsLevels[channel][band];
+			final double noiseLevel = noiseLevels[channel][band];
+			/*
+			 * The marker filter only marks the sample it is filtering, so the irregular
+			 * noise detection can follow it without delay.
+			 */
+			final ChainableFilter marker = new NoiseLevelMarkerFilter.Factory(rate.sampleRate, nrMeasurements).createFilter(noiseLevel, lowerFrequency, higherFrequency, markers);
+			return rate.measure(new Lagging(
+					new NoiseLevelDiscardFilter(markers, scanner, rate.values, maxRms, rate.markerLength),
+					scanner.getBucketSize(),
+					marker,
+					new IrregularNoiseDetectionFilter.Factory(nrMeasurements, rate.timings).createFilter(noiseLevel, lowerFrequency, higherFrequency, markers)));
+		}), maxRmsLevels);
+	}
+
+	/**
+	 * The sample rate at which a band is measured, and the measurement values
+	 * and timings at that rate.
+	 */
+	private final class BandRate {
+		final long sampleRate;
+		final NrMeasurementValues values;
+		final RatedTimings timings;
+		final long markerLength;
+		private final PolyphaseDecimator decimator;
+
+		BandRate(double higherFrequency) {
+			final int factor = decimateLowBands ? PolyphaseDecimator.getFactor(frameType.sampleRate, higherFrequency) : 1;
+			if (factor > 1) {
+				decimator = new PolyphaseDecimator(frameType.sampleRate, factor, higherFrequency);
+				sampleRate = frameType.sampleRate / factor;
+				values = nrMeasurements.withSampleRate(sampleRate);
+				timings = ratedTimings.withSampleRate(sampleRate);
+				markerLength = (NoiseAnalyzer.this.markerLength + factor - 1) / factor;
+			}
+			else {
+				decimator = null;
+				sampleRate = frameType.sampleRate;
+				values = nrMeasurementValues;
+				timings = ratedTimings;
+				markerLength = NoiseAnalyzer.this.markerLength;
+			}
+		}
+
+		BandProcessor measure(BandProcessor processor) {
+			return decimator != null ? new Decimating(decimator, processor) : processor;
+		}
+	}
+
+	/**
+	 * Lets a processor measure the decimated samples of a band.
+	 */
+	private static final class Decimating implements BandProcessor {
+		private final PolyphaseDecimator decimator;
+		private final BandProcessor processor;
+		private double[] decimated = new double[0];
+
+		Decimating(PolyphaseDecimator decimator, BandProcessor processor) {
+			this.decimator = decimator;
+			this.processor = processor;
+		}
+
+		@Override
+		public void process(double[] samples, int offset, int count) {
+			ensureCapacity(count);
+			processor.process(decimated, 0, decimator.decimate(samples, offset, count, decimated));
+		}
+
+		@Override
+		public double finish() {
+			ensureCapacity(0);
+			processor.process(decimated, 0, decimator.flush(decimated));
+			return processor.finish();
+		}
+
+		private void ensureCapacity(int count) {
+			final int capacity = decimator.getMaxOutput(count);
+			if (decimated.length < capacity) {
+				decimated = new double[capacity];
+			}
+		}
+	}
+
+	/**
+	 * Runs a filter that marks samples, followed by filters that read those
+	 * markers. As marks can be set retroactively up to {@code lag} samples, the
+	 * followers filter the samples that much later.
+	 */
+	private static final class Lagging implements BandProcessor {
+		private final ChainableFilter marking;
+		private final ChainableFilter[] following;
+		private final double[] delay;
+		private int position;
+		private boolean filled;
+
+		Lagging(ChainableFilter marking, int lag, ChainableFilter... following) {
+			this.marking = marking;
+			this.following = following;
+			this.delay = new double[lag];
+		}
+
+		@Override
+		public void process(double[] samples, int offset, int count) {
+			final int end = offset + count;
+			for (int i = offset; i < end; i++) {
+				final double sample = samples[i];
+				marking.filter(sample);
+				if (filled) {
+					follow(delay[position]);
+				}
+				delay[position] = sample;
+				if (++position == delay.length) {
+					position = 0;
+					filled = true;
+				}
+			}
+		}
+
+		@Override
+		public double finish() {
+			if (filled) {
+				for (int i = position; i < delay.length; i++) {
+					follow(delay[i]);
+				}
+			}
+			for (int i = 0; i < position; i++) {
+				follow(delay[i]);
+			}
+			marking.getMetaData();
+			Double metaData = null;
+			for (ChainableFilter filter : following) {
+				metaData = filter.getMetaData();
+			}
+			return BandStreamer.level(metaData);
+		}
+
+		private void follow(double sample) {
+			for (ChainableFilter filter : following) {
+				filter.filter(sample);
+			}
+		}
+	}
+}
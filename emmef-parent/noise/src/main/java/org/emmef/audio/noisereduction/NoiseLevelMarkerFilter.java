@@ -16,7 +16,7 @@ public class NoiseLevelMarkerFilter implements ChainableFilter {
 	private final byte[] markers;
 	private final double noiseLevel;
 	private final double threshold;
-	private int position;
+	private int index;
 	private int marks;
 	private boolean marking = false;
 
@@ -36,15 +36,16 @@ public class NoiseLevelMarkerFilter implements ChainableFilter {
 
 	@Override
 	public double filter(double input) {
-		if ((markers[position] & NoiseLevelDiscardFilter.MARK) != 0) {
-			position++;
+		markers[index] &= UNMARK;
+		if ((markers[index] & NoiseLevelDiscardFilter.MARK) != 0) {
+			next();
 			return input;
 		}
 		final double average = scanner.addSample(input);
 		if (scanner.isWholeBucketScanned()) {
 			if (marking) {
 				if (average < threshold) {
-					markers[position] |= MARK;
+					markers[index] |= MARK;
 					marks++;
 				}
 				else {
@@ -52,12 +53,12 @@ public class NoiseLevelMarkerFilter implements ChainableFilter {
 				}
 			}
 			else if (average < threshold) {
-				int i = position;
+				int i = index;
 				int j = 0;
 				final int bucketSize = scanner.getBucketSize();
 				while (j < bucketSize) {
 					while ((markers[i] & NoiseLevelDiscardFilter.MARK) != 0) {
-						i--;
+						i = i == 0 ? markers.length - 1 : i - 1;
 					}
 					markers[i] |= MARK;
 					marks++;
@@ -69,13 +70,19 @@ public class NoiseLevelMarkerFilter implements ChainableFilter {
 //				log.trace("Average %1.3e threshold %1.3e", average, threshold);
 //			}
 		}
-		position++;
+		next();
 		return input;
 	}
 
+	private void next() {
+		if (++index == markers.length) {
+			index = 0;
+		}
+	}
+
 	@Override
 	public void reset() {
-		position = 0;
+		index = 0;
 		scanner.reset();
 		for (int i = 0; i < markers.length; i++) {
 			markers[i] &= UNMARK;
@@ -85,12 +92,12 @@ public class NoiseLevelMarkerFilter implements ChainableFilter {
 	}
 
 	public static class Factory implements FilterFactory {
-		private final ThreadLocal<Detection> scanner = new ThreadLocal<>();
+		private final long sampleRate;
 		private final NrMeasurementValues nrMeasurements;
 		
 		public Factory(long sampleRate, NrMeasurementSettings nrMeasurements) {
+			this.sampleRate = sampleRate;
 			this.nrMeasurements = nrMeasurements.withSampleRate(sampleRate);
-			scanner.set(new BucketScanner(sampleRate, Factory.this.nrMeasurements.noiseWin));
 		}
 
 		@Override
@@ -100,7 +107,7 @@ public class NoiseLevelMarkerFilter implements ChainableFilter {
 			}
 			double noiseLevel = (Double)filterMetaData;
 			
-			return new NoiseLevelMarkerFilter(scanner.get(), markers, noiseLevel);
+			return new NoiseLevelMarkerFilter(new BucketScanner(sampleRate, nrMeasurements.noiseWin), markers, noiseLevel);
 		}
 
 		@Override
@@ -0,0 +1,118 @@
+package org.emmef.audio.noisereduction;
+
+/**
+ * The noise level and maximum RMS level that were measured in each band of
+ * each channel. Bands are numbered from the lowest frequency upward. Levels
+ * are linear RMS values relative to full scale; a maximum RMS level is
+ * {@link Double#NaN} if the measurement did not determine it.
+ */
+public final class NoiseProfile {
+	private final double[][] noiseLevels;
+	private final double[][] maxRmsLevels;
+
+	/**
+	 * Creates a profile from levels that are indexed by channel and band.
+	 */
+	public NoiseProfile(double[][] noiseLevels, double[][] maxRmsLevels) {
+		if (noiseLevels == null) {
+			throw new NullPointerException("noiseLevels");
+		}
+		if (maxRmsLevels == null) {
+			throw new NullPointerException("maxRmsLevels");
+		}
+		if (noiseLevels.length == 0) {
+			throw new IllegalArgumentException("Need at least one channel");
+		}
+		if (maxRmsLevels.length != noiseLevels.length) {
+			throw new IllegalArgumentException("Noise levels for " + noiseLevels.length + " channels but maximum RMS levels for " + maxRmsLevels.length);
+		}
+		if (noiseLevels[0] == null) {
+			throw new NullPointerException("noiseLevels[0]");
+		}
+		final int bands = noiseLevels[0].length;
+		if (bands == 0) {
+			throw new IllegalArgumentException("Need at least one band");
+		}
+		this.noiseLevels = new double[noiseLevels.length][];
+		this.maxRmsLevels = new double[noiseLevels.length][];
+		for (int channel = 0; channel < noiseLevels.length; channel++) {
+			this.noiseLevels[channel] = copyBands(noiseLevels[channel], bands, "noiseLevels", channel);
+			this.maxRmsLevels[channel] = copyBands(maxRmsLevels[channel], bands, "maxRmsLevels", channel);
+		}
+	}
+
+	public int getChannels() {
+		return noiseLevels.length;
+	}
+
+	public int getBands() {
+		return noiseLevels[0].length;
+	}
+
+	public double getNoiseLevel(int channel, int band) {
+		return noiseLevels[channel][band];
+	}
+
+	public double getMaxRms(int channel, int band) {
+		return maxRmsLevels[channel][band];
+	}
+
+	/**
+	 * Returns a factory that creates the reduction filter of each band with
+	 * the noise level of that band, so that no measurement filters need to
+	 * precede it.
+	 */
+	FilterFactory createReductionFactory(NoiseReductionFactory reduction) {
+		if (reduction == null) {
+			throw new NullPointerException("reduction");
+		}
+		return new FilterFactory() {
+			@Override
+			public ChainableFilter createFilter(Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
+				throw new IllegalStateException("Noise level depends on the channel and band");
+			}
+
+			@Override
+			public ChainableFilter createFilter(int channel, int band, Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
+				return reduction.createFilter(noiseLevels[channel][band], minFreq, maxFreq);
+			}
+
+			@Override
+			public int getLatency() {
+				return reduction.getLatency();
+			}
+
+			@Override
+			public int getStartOffset() {
+				return reduction.getStartOffset();
+			}
+
+			@Override
+			public int getEndOffset() {
+				return reduction.getEndOffset();
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder text = new StringBuilder("NoiseProfile(");
+		for (int channel = 0; channel < noiseLevels.length; channel++) {
+			text.append(channel == 0 ? "" : "; ").append("channel ").append(channel).append(':');
+			for (int band = 0; band < noiseLevels[channel].length; band++) {
+				text.append(String.format(" %1.1fdB", NrDynamics.valueToDecibel(noiseLevels[channel][band])));
+			}
+		}
+		return text.append(')').toString();
+	}
+
+	private static double[] copyBands(double[] levels, int bands, String name, int channel) {
+		if (levels == null) {
+			throw new NullPointerException(name + "[" + channel + "]");
+		}
+		if (levels.length != bands) {
+			throw new IllegalArgumentException(name + " of channel " + channel + " has " + levels.length + " bands instead of " + bands);
+		}
+		return levels.clone();
+	}
+}
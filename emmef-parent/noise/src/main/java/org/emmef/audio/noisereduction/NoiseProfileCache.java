@@ -0,0 +1,206 @@
+package org.emmef.audio.noisereduction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.emmef.audio.noisedetection.NrMeasurementSettings;
+import org.emmef.logging.FormatLogger;
+
+/**
+ * Keeps measured noise profiles in a directory, so that a sound can be reduced
+ * again with other reduction settings without measuring its noise again.
+ * <p>
+ * A profile is stored under a key that is derived from the content of the
+ * source and from everything that influences the measurement: the sample rate,
+ * the measurement settings, the crossovers and, if irregular noise is measured,
+ * the measurement times, and whether low bands were decimated. A profile that
+ * was measured while streaming can be used in memory and vice versa, as both
+ * measure the same levels within the resolution of the crossover filters.
+ */
+public class NoiseProfileCache {
+	private static final FormatLogger logger = FormatLogger.getLogger(NoiseProfileCache.class);
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final String SUFFIX = ".noiseprofile";
+	private static final int FORMAT = 0x4e500001;
+
+	private final File directory;
+
+	public NoiseProfileCache(File directory) {
+		if (directory == null) {
+			throw new NullPointerException("directory");
+		}
+		if (!directory.isDirectory()) {
+			throw new IllegalArgumentException("Not a directory: " + directory);
+		}
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the digest of the content of the given file.
+	 */
+	public static byte[] digest(File file) throws IOException {
+		if (file == null) {
+			throw new NullPointerException("file");
+		}
+		final MessageDigest digest = createDigest();
+		final byte[] buffer = new byte[65536];
+		try (InputStream input = Files.newInputStream(file.toPath())) {
+			int read;
+			while ((read = input.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Returns the key of the profile of a source with the given digest, that is
+	 * measured with the given settings.
+	 */
+	public static String key(byte[] sourceDigest, long sampleRate, NrMeasurementSettings settings, CrossoverInfo crossoverInfo, Timings timings) {
+		return key(sourceDigest, sampleRate, settings, crossoverInfo, timings, false);
+	}
+
+	/**
+	 * @param decimated whether low bands are measured by a {@link NoiseAnalyzer}
+	 *            at a reduced sample rate
+	 */
+	public static String key(byte[] sourceDigest, long sampleRate, NrMeasurementSettings settings, CrossoverInfo crossoverInfo, Timings timings, boolean decimated) {
+		if (sourceDigest == null) {
+			throw new NullPointerException("sourceDigest");
+		}
+		if (settings == null) {
+			throw new NullPointerException("settings");
+		}
+		if (crossoverInfo == null) {
+			throw new NullPointerException("crossoverInfo");
+		}
+		if (timings == null) {
+			throw new NullPointerException("timings");
+		}
+		final StringBuilder description = new StringBuilder();
+		description.append("format=").append(FORMAT)
+				.append(";source=").append(HexFormat.of().formatHex(sourceDigest))
+				.append(";sampleRate=").append(sampleRate)
+				.append(";snr=").append(settings.minSnRatioDb).append(',').append(settings.maxSnRatioDb)
+				.append(";windows=").append(settings.rmsWin).append(',').append(settings.noiseWin).append(',').append(settings.skipWin)
+				.append(";skip=").append(settings.skipStartSecs).append(',').append(settings.skipEndSecs)
+				.append(";irregular=").append(settings.measureIrregularNoise)
+				.append(";scanning=").append(settings.frequencyScanning)
+				.append(";crossovers=").append(crossoverInfo.direction).append(',').append(crossoverInfo.filterOrder)
+				.append(',').append(MultiBandNoiseFilter.CROSSOVER_BITS).append(',').append(crossoverInfo.crossovers);
+		if (settings.measureIrregularNoise != 0 && !settings.frequencyScanning) {
+			description.append(";measurement=").append(timings.getEffectiveMeasurementTime(settings, BandSplitFilterSet.LOW_BANDWIDTH_LIMIT));
+			for (double crossover : crossoverInfo.crossovers) {
+				description.append(',').append(timings.getEffectiveMeasurementTime(settings, crossover));
+			}
+		}
+		if (decimated) {
+			description.append(";decimated=").append(PolyphaseDecimator.HEADROOM).append(',').append(PolyphaseDecimator.MIN_FACTOR);
+		}
+		return HexFormat.of().formatHex(createDigest().digest(description.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Returns the profile with the given key, or {@code null} if there is none
+	 * or if it cannot be read.
+	 */
+	public NoiseProfile get(String key) {
+		final File file = file(key);
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+			if (input.readInt() != FORMAT) {
+				logger.warn("Ignoring noise profile of unknown format: %s", file);
+				return null;
+			}
+			final int channels = input.readInt();
+			final int bands = input.readInt();
+			if (channels < 1 || bands < 1) {
+				logger.warn("Ignoring noise profile with %d channels and %d bands: %s", channels, bands, file);
+				return null;
+			}
+			final double[][] noiseLevels = new double[channels][bands];
+			final double[][] maxRmsLevels = new double[channels][bands];
+			for (int channel = 0; channel < channels; channel++) {
+				for (int band = 0; band < bands; band++) {
+					noiseLevels[channel][band] = input.readDouble();
+					maxRmsLevels[channel][band] = input.readDouble();
+				}
+			}
+			return new NoiseProfile(noiseLevels, maxRmsLevels);
+		}
+		catch (IOException e) {
+			logger.warn("Ignoring noise profile that cannot be read: %s: %s", file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores a profile under the given key. The profile is written to a
+	 * temporary file first, so that it is never read half-written.
+	 */
+	public void put(String key, NoiseProfile profile) throws IOException {
+		if (profile == null) {
+			throw new NullPointerException("profile");
+		}
+		final Path target = file(key).toPath();
+		final Path temporary = Files.createTempFile(directory.toPath(), key, ".tmp");
+		try {
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+				output.writeInt(FORMAT);
+				output.writeInt(profile.getChannels());
+				output.writeInt(profile.getBands());
+				for (int channel = 0; channel < profile.getChannels(); channel++) {
+					for (int band = 0; band < profile.getBands(); band++) {
+						output.writeDouble(profile.getNoiseLevel(channel, band));
+						output.writeDouble(profile.getMaxRms(channel, band));
+					}
+				}
+			}
+			try {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private File file(String key) {
+		if (key == null) {
+			throw new NullPointerException("key");
+		}
+		if (key.isEmpty() || !key.chars().allMatch(Character::isLetterOrDigit)) {
+			throw new IllegalArgumentException("Not a valid key: \"" + key + "\"");
+		}
+		return new File(directory, key + SUFFIX);
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+		}
+	}
+}
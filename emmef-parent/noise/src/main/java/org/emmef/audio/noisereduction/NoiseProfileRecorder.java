@@ -0,0 +1,143 @@
+package org.emmef.audio.noisereduction;
+
+import java.util.Arrays;
+
+/**
+ * Collects a {@link NoiseProfile} from the meta-data of measurement filters.
+ * Bands of different channels can record their levels concurrently, as each
+ * band has its own slot.
+ */
+final class NoiseProfileRecorder {
+	private final double[][] noiseLevels;
+	private final double[][] maxRmsLevels;
+	private final boolean[][] recorded;
+
+	NoiseProfileRecorder(int channels, int bands) {
+		noiseLevels = new double[channels][bands];
+		maxRmsLevels = new double[channels][bands];
+		recorded = new boolean[channels][bands];
+		for (int channel = 0; channel < channels; channel++) {
+			Arrays.fill(noiseLevels[channel], Double.NaN);
+			Arrays.fill(maxRmsLevels[channel], Double.NaN);
+		}
+	}
+
+	void setNoiseLevel(int channel, int band, Object metaData) {
+		noiseLevels[channel][band] = level(metaData);
+		recorded[channel][band] = true;
+	}
+
+	void setMaxRms(int channel, int band, Object metaData) {
+		maxRmsLevels[channel][band] = level(metaData);
+	}
+
+	/**
+	 * Returns a factory that records the meta-data of the filters of the given
+	 * factory as the noise level of their band.
+	 */
+	FilterFactory recordNoiseLevel(FilterFactory factory) {
+		return new Recording(factory, false);
+	}
+
+	/**
+	 * Returns a factory that records the meta-data of the filters of the given
+	 * factory as the maximum RMS level of their band.
+	 */
+	FilterFactory recordMaxRms(FilterFactory factory) {
+		return new Recording(factory, true);
+	}
+
+	/**
+	 * Returns the recorded profile.
+	 *
+	 * @throws IllegalStateException if the noise level of a band was not recorded
+	 */
+	NoiseProfile toProfile() {
+		for (int channel = 0; channel < noiseLevels.length; channel++) {
+			for (int band = 0; band < noiseLevels[channel].length; band++) {
+				if (!recorded[channel][band]) {
+					throw new IllegalStateException("No noise level recorded for band " + band + " of channel " + channel);
+				}
+			}
+		}
+		return new NoiseProfile(noiseLevels, maxRmsLevels);
+	}
+
+	private static double level(Object metaData) {
+		if (metaData instanceof Double level) {
+			return level;
+		}
+		throw new IllegalArgumentException("Expected a level as meta-data, but got " + metaData);
+	}
+
+	private final class Recording implements FilterFactory {
+		private final FilterFactory factory;
+		private final boolean maxRms;
+
+		Recording(FilterFactory factory, boolean maxRms) {
+			if (factory == null) {
+				throw new NullPointerException("factory");
+			}
+			this.factory = factory;
+			this.maxRms = maxRms;
+		}
+
+		@Override
+		public ChainableFilter createFilter(Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
+			throw new IllegalStateException("Recording a level needs the channel and band");
+		}
+
+		@Override
+		public ChainableFilter createFilter(int channel, int band, Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
+			final ChainableFilter filter = factory.createFilter(channel, band, filterMetaData, minFreq, maxFreq, markers);
+			return new ChainableFilter() {
+				@Override
+				public double filter(double input) {
+					return filter.filter(input);
+				}
+
+				@Override
+				public void filter(double[] input, double[] output, int offset, int length) {
+					filter.filter(input, output, offset, length);
+				}
+
+				@Override
+				public void filterBackward(double[] input, double[] output, int offset, int length) {
+					filter.filterBackward(input, output, offset, length);
+				}
+
+				@Override
+				public void reset() {
+					filter.reset();
+				}
+
+				@Override
+				public Double getMetaData() {
+					final Double metaData = filter.getMetaData();
+					if (maxRms) {
+						setMaxRms(channel, band, metaData);
+					}
+					else {
+						setNoiseLevel(channel, band, metaData);
+					}
+					return metaData;
+				}
+			};
+		}
+
+		@Override
+		public int getLatency() {
+			return factory.getLatency();
+		}
+
+		@Override
+		public int getStartOffset() {
+			return factory.getStartOffset();
+		}
+
+		@Override
+		public int getEndOffset() {
+			return factory.getEndOffset();
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package org.emmef.audio.noisereduction;
+
+/**
+ * Creates the filters that reduce the noise in a band, given the noise level
+ * of that band, for example from a {@link NoiseProfile}.
+ */
+public interface NoiseReductionFactory extends FilterFactory {
+	/**
+	 * Creates the filter for a band with the given noise level, as a linear
+	 * RMS value relative to full scale.
+	 */
+	ChainableFilter createFilter(double noiseLevel, double minFreq, double maxFreq);
+}
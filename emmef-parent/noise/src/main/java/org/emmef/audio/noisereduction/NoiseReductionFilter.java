@@ -140,7 +140,7 @@ public class NoiseReductionFilter implements ChainableFilter {
 		return dynamics.amplification(rmsValue) * sample;
 	}
 
-	public static class Factory implements FilterFactory {
+	public static class Factory implements NoiseReductionFactory {
 		private final int latency;
 		
 		private final NrDynamicsFactory nrDynamicsFactory;
@@ -152,13 +152,20 @@ public class NoiseReductionFilter implements ChainableFilter {
 			this.ratedTimings = ratedTimings;
 			this.nrDynamicsFactory = nrDynamicsFactory;
 			this.nrSettings = nrSettings;
-			final Times slowTimes = new Times(ratedTimings, this.nrSettings, ratedTimings.getLowestFrequency());
-			latency = slowTimes.predictionSamples;
+			latency = latency(ratedTimings, nrSettings);
+		}
+
+		static int latency(RatedTimings ratedTimings, NrMeasurementSettings nrSettings) {
+			return new Times(ratedTimings, nrSettings, ratedTimings.getLowestFrequency()).predictionSamples;
 		}
 
 		@Override
 		public ChainableFilter createFilter(Object metaData, double minFreq, double maxFreq, byte[] markers) {
-			double noiseLevel = metaData instanceof Double ? (Double)metaData : 1e-3;
+			return createFilter(metaData instanceof Double ? (Double)metaData : 1e-3, minFreq, maxFreq);
+		}
+
+		@Override
+		public ChainableFilter createFilter(double noiseLevel, double minFreq, double maxFreq) {
 			return new NoiseReductionFilter(latency, ratedTimings, nrSettings, minFreq, nrDynamicsFactory.create(noiseLevel));
 		}
 
@@ -4,8 +4,17 @@ public abstract class NrDynamics {
 	private final double noiseLevel;
 	private final double threshold;
 	private final double relativeThresholdDb;
+	private final AmplificationCurve curve;
 
 	protected NrDynamics(double noiseLevel, double relativeThresholdDb) {
+		this(noiseLevel, relativeThresholdDb, null);
+	}
+
+	/**
+	 * @param curve the precomputed amplification curve of dynamics with the
+	 *            same parameters, or {@code null} to calculate exactly
+	 */
+	NrDynamics(double noiseLevel, double relativeThresholdDb, AmplificationCurve curve) {
 		if (noiseLevel < 1e-12) {
 			throw new IllegalArgumentException("Noise level must be greater than 1e-12: " + noiseLevel);
 		}
@@ -15,6 +24,7 @@ public abstract class NrDynamics {
 		this.relativeThresholdDb = relativeThresholdDb;
 		this.noiseLevel = noiseLevel;
 		this.threshold = noiseLevel * decibelToValue(relativeThresholdDb);
+		this.curve = curve;
 	}
 
 	public final double getNoiseLevel() {
@@ -30,7 +40,24 @@ public abstract class NrDynamics {
 	}
 
 	public final double amplification(double level) {
-		return Math.max(0.0, Math.min(1.0, calculateAmplification(getRelativeLevel(level))));
+		final double relativeLevel = getRelativeLevel(level);
+		return curve != null ? curve.amplification(relativeLevel) : exactAmplification(relativeLevel);
+	}
+
+	final double exactAmplification(double relativeLevel) {
+		return Math.max(0.0, Math.min(1.0, calculateAmplification(relativeLevel)));
+	}
+
+	/**
+	 * Returns whether {@link #amplification(double)} is interpolated from a
+	 * precomputed curve.
+	 */
+	public final boolean isTabulated() {
+		return curve != null;
+	}
+
+	final AmplificationCurve getAmplificationCurve() {
+		return curve;
 	}
 
 	public abstract double calculateAmplification(double relativeLevel);
@@ -39,15 +66,32 @@ public abstract class NrDynamics {
 
 	public abstract NrDynamics withNoiseLevel(double noiseLevel);
 
+	/**
+	 * Returns the same dynamics, with an amplification that is interpolated
+	 * from a precomputed curve. The curve is shared with the dynamics that
+	 * {@link #withNoiseLevel(double)} returns.
+	 *
+	 * @param maxError the largest allowed absolute error of the amplification
+	 */
+	public abstract NrDynamics withAmplificationCurve(double maxError);
+
 	public String toString(String paramName, double paramValue) {
-		return String.format("%s(noiseLevel=%1.1fdB; relativeLevel=%1.1fdB; %s=%1.1f)", getDescription(), valueToDecibel(noiseLevel), getRelativeThresholdInDb(), paramName, paramValue);
+		final String dynamics = String.format("%s(noiseLevel=%1.1fdB; relativeLevel=%1.1fdB; %s=%1.1f", getDescription(), valueToDecibel(noiseLevel), getRelativeThresholdInDb(), paramName, paramValue);
+		if (curve == null) {
+			return dynamics + ")";
+		}
+		return String.format("%s; curve=%d bins/octave, error<%1.0e)", dynamics, curve.getBinsPerOctave(), curve.getMaxError());
 	}
 
 	public static class AbstractExpansionNoiseReduction extends NrDynamics {
 		public final double expansionRatio;
 
 		public AbstractExpansionNoiseReduction(double relativeThresholdInDb, double expansionRatio, double noiseLevel) {
-			super(noiseLevel, relativeThresholdInDb);
+			this(relativeThresholdInDb, expansionRatio, noiseLevel, null);
+		}
+
+		private AbstractExpansionNoiseReduction(double relativeThresholdInDb, double expansionRatio, double noiseLevel, AmplificationCurve curve) {
+			super(noiseLevel, relativeThresholdInDb, curve);
 			if (expansionRatio < 1.25) {
 				throw new IllegalArgumentException("Expansion ratio must be at least 1.25");
 			}
@@ -63,7 +107,12 @@ public abstract class NrDynamics {
 
 		@Override
 		public AbstractExpansionNoiseReduction withNoiseLevel(double noiseLevel) {
-			return new AbstractExpansionNoiseReduction(getRelativeThresholdInDb(), expansionRatio, noiseLevel);
+			return new AbstractExpansionNoiseReduction(getRelativeThresholdInDb(), expansionRatio, noiseLevel, getAmplificationCurve());
+		}
+
+		@Override
+		public AbstractExpansionNoiseReduction withAmplificationCurve(double maxError) {
+			return new AbstractExpansionNoiseReduction(getRelativeThresholdInDb(), expansionRatio, getNoiseLevel(), new AmplificationCurve(this, maxError));
 		}
 
 		@Override
@@ -86,7 +135,11 @@ public abstract class NrDynamics {
 		public final double subtractiveRatio;
 
 		public AbstractSubtractiveNoiseReduction(double relativeThresholdInDb, double subtractiveRatio, double noiseLevel) {
-			super(noiseLevel, relativeThresholdInDb);
+			this(relativeThresholdInDb, subtractiveRatio, noiseLevel, null);
+		}
+
+		private AbstractSubtractiveNoiseReduction(double relativeThresholdInDb, double subtractiveRatio, double noiseLevel, AmplificationCurve curve) {
+			super(noiseLevel, relativeThresholdInDb, curve);
 			if (subtractiveRatio < 0.0 || subtractiveRatio > 0.9) {
 				throw new IllegalArgumentException("Subraction ratio must be between 0 and 0.9");
 			}
@@ -99,7 +152,12 @@ public abstract class NrDynamics {
 
 		@Override
 		public AbstractSubtractiveNoiseReduction withNoiseLevel(double noiseLevel) {
-			return new AbstractSubtractiveNoiseReduction(getRelativeThresholdInDb(), subtractiveRatio, noiseLevel);
+			return new AbstractSubtractiveNoiseReduction(getRelativeThresholdInDb(), subtractiveRatio, noiseLevel, getAmplificationCurve());
+		}
+
+		@Override
+		public AbstractSubtractiveNoiseReduction withAmplificationCurve(double maxError) {
+			return new AbstractSubtractiveNoiseReduction(getRelativeThresholdInDb(), subtractiveRatio, getNoiseLevel(), new AmplificationCurve(this, maxError));
 		}
 
 		@Override
@@ -31,6 +31,14 @@ public abstract class NrDynamicsFactory {
 		public Expansion(double thresholdDb, double expansionRatio) {
 			super(new NrDynamics.AbstractExpansionNoiseReduction(thresholdDb, expansionRatio));
 		}
+
+		/**
+		 * Creates dynamics whose amplification is interpolated from a precomputed
+		 * curve, with at most the given absolute error.
+		 */
+		public Expansion(double thresholdDb, double expansionRatio, double maxError) {
+			super(new NrDynamics.AbstractExpansionNoiseReduction(thresholdDb, expansionRatio).withAmplificationCurve(maxError));
+		}
 	}
 	
 	public static class Subtraction extends NrDynamicsFactory {
@@ -39,5 +47,13 @@ public abstract class NrDynamicsFactory {
 		public Subtraction(double factorDb, double subtractionRatio) {
 			super(new AbstractSubtractiveNoiseReduction(factorDb, subtractionRatio));
 		}
+
+		/**
+		 * Creates dynamics whose amplification is interpolated from a precomputed
+		 * curve, with at most the given absolute error.
+		 */
+		public Subtraction(double factorDb, double subtractionRatio, double maxError) {
+			super(new AbstractSubtractiveNoiseReduction(factorDb, subtractionRatio).withAmplificationCurve(maxError));
+		}
 	}
 }
@@ -0,0 +1,150 @@
+package org.emmef.audio.noisereduction;
+
+/**
+ * Low-pass filters a stream of samples and keeps every {@code factor}-th
+ * sample. The FIR filter is only evaluated for the samples that are kept, as
+ * in a polyphase decimator, so the cost per input sample is the number of
+ * taps divided by the factor.
+ * <p>
+ * The filter passes everything up to the pass frequency. Its stop band starts
+ * where frequencies would alias back into the pass band, so that frequencies
+ * between the pass frequency and the new Nyquist frequency are kept, but
+ * attenuated. Output sample {@code k} is centered on input sample
+ * {@code k * factor}, so the decimated stream is not delayed.
+ */
+final class PolyphaseDecimator {
+	/**
+	 * The decimated sample rate is at least this many times the highest frequency in the band.
+	 */
+	static final double HEADROOM = 8.0;
+	/**
+	 * Smaller factors do not save enough work to pay for the filter.
+	 */
+	static final int MIN_FACTOR = 4;
+	/**
+	 * Transition bandwidth times number of taps for a Blackman window.
+	 */
+	private static final double BLACKMAN_TRANSITION = 5.5;
+
+	private final int factor;
+	private final double[] taps;
+	private final double[] history;
+	private final int delay;
+	private int position;
+	private int untilOutput;
+
+	/**
+	 * Returns the largest factor that divides the sample rate and that leaves
+	 * enough headroom above the given frequency, or 1 if decimating is not
+	 * worthwhile.
+	 */
+	static int getFactor(long sampleRate, double highestFrequency) {
+		final long limit = (long)(sampleRate / (HEADROOM * highestFrequency));
+		for (long factor = Math.min(limit, Integer.MAX_VALUE); factor >= MIN_FACTOR; factor--) {
+			if (sampleRate % factor == 0) {
+				return (int)factor;
+			}
+		}
+		return 1;
+	}
+
+	PolyphaseDecimator(long sampleRate, int factor, double passFrequency) {
+		if (factor < 2) {
+			throw new IllegalArgumentException("Decimation factor must be at least 2");
+		}
+		final double decimatedRate = 1.0 * sampleRate / factor;
+		if (!(passFrequency > 0.0 && 2.0 * passFrequency < decimatedRate)) {
+			throw new IllegalArgumentException("Pass frequency must be positive and below " + (0.5 * decimatedRate) + " Hz");
+		}
+		final double transition = (decimatedRate - 2.0 * passFrequency) / sampleRate;
+		final int length = 1 + 2 * (int)Math.ceil(0.5 * BLACKMAN_TRANSITION / transition);
+		final double cutoff = 0.5 / factor;
+		final double center = 0.5 * (length - 1);
+		taps = new double[length];
+		double sum = 0.0;
+		for (int i = 0; i < length; i++) {
+			final double x = i - center;
+			final double sinc = x == 0.0 ? 2.0 * cutoff : Math.sin(2.0 * Math.PI * cutoff * x) / (Math.PI * x);
+			final double phase = 2.0 * Math.PI * i / (length - 1);
+			final double window = 0.42 - 0.5 * Math.cos(phase) + 0.08 * Math.cos(2.0 * phase);
+			taps[i] = sinc * window;
+			sum += taps[i];
+		}
+		for (int i = 0; i < length; i++) {
+			taps[i] /= sum;
+		}
+		this.factor = factor;
+		this.delay = length / 2;
+		this.history = new double[2 * length];
+		this.untilOutput = delay + 1;
+	}
+
+	int getFactor() {
+		return factor;
+	}
+
+	/**
+	 * Returns the largest number of output samples for the given number of
+	 * input samples, including those of {@link #flush(double[])}.
+	 */
+	int getMaxOutput(int count) {
+		return (Math.max(count, delay) + factor - 1) / factor + 1;
+	}
+
+	/**
+	 * Decimates {@code count} samples and writes the output to the start of
+	 * {@code output}.
+	 *
+	 * @return the number of output samples
+	 */
+	int decimate(double[] input, int offset, int count, double[] output) {
+		final int end = offset + count;
+		int outputs = 0;
+		for (int i = offset; i < end; i++) {
+			if (push(input[i])) {
+				output[outputs++] = convolve();
+			}
+		}
+		return outputs;
+	}
+
+	/**
+	 * Outputs the samples that are still centered on received input.
+	 *
+	 * @return the number of output samples
+	 */
+	int flush(double[] output) {
+		int outputs = 0;
+		for (int i = 0; i < delay; i++) {
+			if (push(0.0)) {
+				output[outputs++] = convolve();
+			}
+		}
+		return outputs;
+	}
+
+	/**
+	 * Writes the sample twice, so that the last {@code taps.length} samples are
+	 * always in one contiguous range, and returns whether an output is due.
+	 */
+	private boolean push(double sample) {
+		history[position] = sample;
+		history[position + taps.length] = sample;
+		if (++position == taps.length) {
+			position = 0;
+		}
+		if (--untilOutput == 0) {
+			untilOutput = factor;
+			return true;
+		}
+		return false;
+	}
+
+	private double convolve() {
+		double sum = 0.0;
+		for (int i = 0, j = position; i < taps.length; i++, j++) {
+			sum += taps[i] * history[j];
+		}
+		return sum;
+	}
+}
@@ -17,6 +17,14 @@ public class RatedTimings implements Timings {
 		this.sampleRate = sampleRate;
 	}
 
+	/**
+	 * Returns the same timings for another sample rate, for example that of a
+	 * decimated band.
+	 */
+	public final RatedTimings withSampleRate(long sampleRate) {
+		return new RatedTimings(timings, sampleRate);
+	}
+
 	public final double getAttackTime(double lowestFrequencyInBand) {
 		return timings.getAttackTime(lowestFrequencyInBand);
 	}
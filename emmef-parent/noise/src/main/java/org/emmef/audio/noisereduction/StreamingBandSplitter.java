@@ -0,0 +1,251 @@
+package org.emmef.audio.noisereduction;
+
+import org.emmef.audio.filter.Filter;
+import org.emmef.audio.filter.iir.butterworth.Butterworth;
+import org.emmef.audio.filter.iir.butterworth.PassType;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Direction;
+
+/**
+ * Splits a stream of samples into frequency bands, block by block, with the
+ * same zero-phase crossovers as {@link BandSplitFilterSet}.
+ * <p>
+ * The backward pass of each crossover needs samples from the future. Each
+ * crossover therefore keeps a look-ahead of samples, long enough for its response
+ * to decay below the configured number of bits. Starting the backward pass there
+ * instead of at the end of the file gives an error below that resolution. All
+ * bands are delayed to the same, total latency of the crossovers; for a
+ * {@link Direction#BINARY_TREE} that is the latency of its deepest branch.
+ */
+final class StreamingBandSplitter {
+	private final Stage[] stages;
+	private final TreeNode tree;
+	private final DelayLine[] alignment;
+	private final double[] lowerFrequencies;
+	private final double[] higherFrequencies;
+	private final double[] residual;
+	private final double[] nextResidual;
+	private final int blockSize;
+	private final int latency;
+
+	StreamingBandSplitter(long sampleRate, CrossoverInfo crossoverInfo, int bits, int blockSize) {
+		if (crossoverInfo == null) {
+			throw new NullPointerException("crossoverInfo");
+		}
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be positive");
+		}
+		final int crossovers = crossoverInfo.size();
+		this.blockSize = blockSize;
+		lowerFrequencies = new double[crossovers + 1];
+		higherFrequencies = new double[crossovers + 1];
+		final int[] bandLatency = new int[crossovers + 1];
+		int totalLatency = 0;
+		if (crossoverInfo.direction == Direction.BINARY_TREE) {
+			stages = new Stage[0];
+			tree = new TreeNode(sampleRate, crossoverInfo, bits, blockSize, 0, crossovers, BandSplitFilterSet.LOW_BANDWIDTH_LIMIT, 0.5 * sampleRate, 0, bandLatency);
+			for (int band = 0; band <= crossovers; band++) {
+				totalLatency = Math.max(totalLatency, bandLatency[band]);
+			}
+		}
+		else {
+			tree = null;
+			stages = new Stage[crossovers];
+			if (crossoverInfo.direction == Direction.UPWARD) {
+				double lowerFrequency = BandSplitFilterSet.LOW_BANDWIDTH_LIMIT;
+				for (int band = 0; band < crossovers; band++) {
+					final double higherFrequency = crossoverInfo.get(band);
+					stages[band] = new Stage(sampleRate, crossoverInfo.filterOrder, bits, higherFrequency, PassType.LOW_PASS, blockSize);
+					totalLatency += stages[band].lookAhead;
+					bandLatency[band] = totalLatency;
+					lowerFrequencies[band] = lowerFrequency;
+					higherFrequencies[band] = higherFrequency;
+					lowerFrequency = higherFrequency;
+				}
+				lowerFrequencies[crossovers] = lowerFrequency;
+				higherFrequencies[crossovers] = 0.5 * sampleRate;
+			}
+			else {
+				double higherFrequency = 0.5 * sampleRate;
+				for (int band = 0; band < crossovers; band++) {
+					final double lowerFrequency = crossoverInfo.get(crossovers - 1 - band);
+					stages[band] = new Stage(sampleRate, crossoverInfo.filterOrder, bits, lowerFrequency, PassType.HIGH_PASS, blockSize);
+					totalLatency += stages[band].lookAhead;
+					bandLatency[band] = totalLatency;
+					lowerFrequencies[band] = lowerFrequency;
+					higherFrequencies[band] = higherFrequency;
+					higherFrequency = lowerFrequency;
+				}
+				lowerFrequencies[crossovers] = BandSplitFilterSet.LOW_BANDWIDTH_LIMIT;
+				higherFrequencies[crossovers] = higherFrequency;
+			}
+			bandLatency[crossovers] = totalLatency;
+		}
+		latency = totalLatency;
+		alignment = new DelayLine[crossovers + 1];
+		for (int band = 0; band <= crossovers; band++) {
+			alignment[band] = new DelayLine(totalLatency - bandLatency[band]);
+		}
+		residual = new double[blockSize];
+		nextResidual = new double[blockSize];
+	}
+
+	/**
+	 * Returns the number of samples by which all band outputs lag the input.
+	 */
+	int getLatency() {
+		return latency;
+	}
+
+	int getBands() {
+		return alignment.length;
+	}
+
+	int getBlockSize() {
+		return blockSize;
+	}
+
+	double getLowerFrequency(int band) {
+		return lowerFrequencies[band];
+	}
+
+	double getHigherFrequency(int band) {
+		return higherFrequencies[band];
+	}
+
+	/**
+	 * Splits {@code count} input samples into bands. The output for each band
+	 * is written to the first {@code count} samples of {@code bands[band]}, and
+	 * lags the input by {@link #getLatency()} samples.
+	 */
+	void split(double[] input, int count, double[][] bands) {
+		if (count < 0 || count > blockSize) {
+			throw new IllegalArgumentException("Count must be between 0 and block size " + blockSize);
+		}
+		if (bands.length != alignment.length) {
+			throw new IllegalArgumentException("Need exactly one output per band (" + alignment.length + ")");
+		}
+		if (tree != null) {
+			tree.split(input, count, bands);
+		}
+		else {
+			System.arraycopy(input, 0, residual, 0, count);
+			for (int band = 0; band < stages.length; band++) {
+				stages[band].split(residual, count, bands[band], nextResidual);
+				System.arraycopy(nextResidual, 0, residual, 0, count);
+			}
+			System.arraycopy(residual, 0, bands[stages.length], 0, count);
+		}
+		for (int band = 0; band < alignment.length; band++) {
+			alignment[band].delay(bands[band], count);
+		}
+	}
+
+	/**
+	 * Node of a {@link Direction#BINARY_TREE}, that either splits its input at the
+	 * middle crossover or, if there are no crossovers left, contains a band.
+	 */
+	private final class TreeNode {
+		private final int band;
+		private final Stage stage;
+		private final TreeNode low;
+		private final TreeNode high;
+		private final double[] lowSamples;
+		private final double[] highSamples;
+
+		/**
+		 * Creates the node for the bands between crossovers {@code from} (inclusive)
+		 * and {@code to} (exclusive) and registers the latency of its bands.
+		 */
+		TreeNode(long sampleRate, CrossoverInfo crossoverInfo, int bits, int blockSize, int from, int to, double lowerFrequency, double higherFrequency, int latency, int[] bandLatency) {
+			if (from == to) {
+				band = from;
+				stage = null;
+				low = null;
+				high = null;
+				lowSamples = null;
+				highSamples = null;
+				bandLatency[band] = latency;
+				lowerFrequencies[band] = lowerFrequency;
+				higherFrequencies[band] = higherFrequency;
+				return;
+			}
+			final int middle = (from + to) / 2;
+			final double crossover = crossoverInfo.get(middle);
+			band = -1;
+			stage = new Stage(sampleRate, crossoverInfo.filterOrder, bits, crossover, PassType.LOW_PASS, blockSize);
+			final int childLatency = latency + stage.lookAhead;
+			low = new TreeNode(sampleRate, crossoverInfo, bits, blockSize, from, middle, lowerFrequency, crossover, childLatency, bandLatency);
+			high = new TreeNode(sampleRate, crossoverInfo, bits, blockSize, middle + 1, to, crossover, higherFrequency, childLatency, bandLatency);
+			lowSamples = new double[blockSize];
+			highSamples = new double[blockSize];
+		}
+
+		void split(double[] input, int count, double[][] bands) {
+			if (stage == null) {
+				System.arraycopy(input, 0, bands[band], 0, count);
+				return;
+			}
+			stage.split(input, count, lowSamples, highSamples);
+			low.split(lowSamples, count, bands);
+			high.split(highSamples, count, bands);
+		}
+	}
+
+	private static final class Stage {
+		private final Filter forward;
+		private final Filter backward;
+		private final int lookAhead;
+		private final double[] source;
+		private final double[] filtered;
+		private final double[] settling;
+
+		Stage(long sampleRate, int order, int bits, double frequency, PassType passType, int blockSize) {
+			forward = Butterworth.create(frequency / sampleRate, order, passType);
+			backward = Butterworth.create(frequency / sampleRate, order, passType);
+			lookAhead = BandSplitFilterSet.settlingSamples(sampleRate, bits, order, frequency);
+			source = new double[lookAhead + blockSize];
+			filtered = new double[lookAhead + blockSize];
+			settling = new double[lookAhead + blockSize];
+		}
+
+		/**
+		 * Appends {@code count} samples to the look-ahead and emits the band and
+		 * the residual for the oldest {@code count} samples.
+		 */
+		void split(double[] input, int count, double[] band, double[] residual) {
+			System.arraycopy(input, 0, source, lookAhead, count);
+			forward.filter(source, filtered, lookAhead, count);
+			backward.reset();
+			backward.filterBackward(filtered, settling, count, lookAhead);
+			backward.filterBackward(filtered, band, 0, count);
+			for (int i = 0; i < count; i++) {
+				residual[i] = source[i] - band[i];
+			}
+			System.arraycopy(source, count, source, 0, lookAhead);
+			System.arraycopy(filtered, count, filtered, 0, lookAhead);
+		}
+	}
+
+	private static final class DelayLine {
+		private final double[] memory;
+		private int position;
+
+		DelayLine(int delay) {
+			memory = new double[delay];
+		}
+
+		void delay(double[] samples, int count) {
+			if (memory.length == 0) {
+				return;
+			}
+			for (int i = 0; i < count; i++) {
+				final double delayed = memory[position];
+				memory[position] = samples[i];
+				samples[i] = delayed;
+				if (++position == memory.length) {
+					position = 0;
+				}
+			}
+		}
+	}
+}
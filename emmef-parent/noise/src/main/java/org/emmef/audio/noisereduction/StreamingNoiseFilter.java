@@ -0,0 +1,94 @@
+package org.emmef.audio.noisereduction;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import org.emmef.audio.frame.FrameType;
+import org.emmef.audio.nodes.SoundSink;
+import org.emmef.audio.nodes.SoundSource;
+import org.emmef.audio.noisedetection.NrMeasurementSettings;
+import org.emmef.audio.noisereduction.BandStreamer.Filtering;
+import org.emmef.logging.FormatLogger;
+
+/**
+ * Applies the same noise reduction as {@link MultiBandNoiseFilter}, but streams
+ * the sound in blocks from a source to a sink, so that memory usage does not
+ * depend on the length of the sound.
+ * <p>
+ * Unless a profile is given, the noise levels are measured first by a
+ * {@link NoiseAnalyzer}, in separate passes over the source, that is re-opened
+ * for each pass. Markers of discarded samples are kept in ring buffers that are
+ * only as large as the discard window, so the measurement needs bounded memory
+ * as well. Results are the same as those of {@link MultiBandNoiseFilter},
+ * within the resolution of the crossover filters (see {@link StreamingBandSplitter}).
+ * The channels of each block are processed in parallel on the given executor.
+ */
+public class StreamingNoiseFilter {
+	private static final FormatLogger logger = FormatLogger.getLogger(StreamingNoiseFilter.class);
+
+	public static final int DEFAULT_BLOCK_FRAMES = 16384;
+
+	public interface SourceOpener {
+		SoundSource open() throws IOException;
+	}
+
+	private final NoiseAnalyzer analyzer;
+	private final BandStreamer streamer;
+	private final NoiseReductionFactory reductionFactory;
+	private NoiseProfile profile;
+
+	public StreamingNoiseFilter(FrameType frameType, long frameCount, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, CrossoverInfo crossoverInfo, Timings timings, int blockFrames) {
+		this(frameType, frameCount, nrMeasurements, nrDynamicsFactory, crossoverInfo, timings, blockFrames, ExecutionModel.shared());
+	}
+
+	public StreamingNoiseFilter(FrameType frameType, long frameCount, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, CrossoverInfo crossoverInfo, Timings timings, int blockFrames, Executor executor) {
+		this(frameType, frameCount, nrMeasurements, nrDynamicsFactory, crossoverInfo, timings, blockFrames, executor, null);
+	}
+
+	/**
+	 * @param profile the noise levels to reduce, or {@code null} to measure them;
+	 *            given levels skip all measurement passes
+	 */
+	public StreamingNoiseFilter(FrameType frameType, long frameCount, NrMeasurementSettings nrMeasurements, NrDynamicsFactory nrDynamicsFactory, CrossoverInfo crossoverInfo, Timings timings, int blockFrames, Executor executor, NoiseProfile profile) {
+		this.analyzer = new NoiseAnalyzer(frameType, frameCount, nrMeasurements, crossoverInfo, timings, blockFrames, executor);
+		this.streamer = new BandStreamer(frameType, frameCount, crossoverInfo, blockFrames, executor);
+		if (profile != null && (profile.getChannels() != frameType.channels || profile.getBands() != streamer.getBands())) {
+			throw new IllegalArgumentException("Profile has " + profile.getChannels() + " channels and " + profile.getBands() +
+					" bands instead of " + frameType.channels + " and " + streamer.getBands());
+		}
+		this.profile = profile;
+		this.reductionFactory = MultiBandNoiseFilter.createReductionFactory(frameType.sampleRate, nrMeasurements, nrDynamicsFactory, timings);
+	}
+
+	public void filter(SourceOpener sources, SoundSink sink) throws IOException {
+		if (sources == null) {
+			throw new NullPointerException("sources");
+		}
+		if (sink == null) {
+			throw new NullPointerException("sink");
+		}
+		if (profile == null) {
+			profile = analyzer.analyze(sources);
+		}
+		else {
+			logger.info("Using known noise levels");
+		}
+		final NoiseProfile levels = profile;
+
+		logger.info("Reducing noise...");
+		streamer.filter(sources, (channel, band, lowerFrequency, higherFrequency) ->
+				new Filtering(reductionFactory.createFilter(levels.getNoiseLevel(channel, band), lowerFrequency, higherFrequency), true),
+				reductionFactory.getLatency(), sink);
+	}
+
+	/**
+	 * Returns the noise profile that was given, or the one that was measured
+	 * by {@link #filter(SourceOpener, SoundSink)}.
+	 */
+	public NoiseProfile getNoiseProfile() {
+		if (profile == null) {
+			throw new IllegalStateException("Noise levels were not measured yet");
+		}
+		return profile;
+	}
+}
@@ -0,0 +1,156 @@
+package org.emmef.audio.noisereduction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A group of tasks that are run by an executor. A thread that waits for the
+ * group runs the tasks that did not start yet itself, so tasks that wait for
+ * other tasks cannot exhaust a bounded executor. Once there is nothing left to
+ * run, it waits as a {@link ForkJoinPool.ManagedBlocker}, so that a
+ * {@link ForkJoinPool} can compensate for the blocked worker.
+ */
+final class TaskGroup {
+	private final Executor executor;
+	private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<Runnable>();
+	private final List<Throwable> exceptions = new CopyOnWriteArrayList<Throwable>();
+	private final Object[] mutex = new Object[0];
+	private int unfinished;
+
+	TaskGroup(Executor executor) {
+		if (executor == null) {
+			throw new NullPointerException("executor");
+		}
+		this.executor = executor;
+	}
+
+	/**
+	 * Submits a task to the executor. If the executor rejects the task, it is
+	 * not part of the group and the exception is thrown.
+	 */
+	void submit(Runnable task) {
+		if (task == null) {
+			throw new NullPointerException("task");
+		}
+		synchronized (mutex) {
+			unfinished++;
+		}
+		pending.add(task);
+		try {
+			executor.execute(this::help);
+		}
+		catch (RejectedExecutionException e) {
+			// unless a helping thread already started the task
+			if (pending.remove(task)) {
+				synchronized (mutex) {
+					unfinished--;
+					mutex.notifyAll();
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Runs a task that did not start yet in the calling thread.
+	 *
+	 * @return {@code false} if there were no tasks left to start
+	 */
+	boolean help() {
+		final Runnable task = pending.poll();
+		if (task == null) {
+			return false;
+		}
+		try {
+			task.run();
+		}
+		catch (RuntimeException | Error e) {
+			exceptions.add(e);
+		}
+		finally {
+			synchronized (mutex) {
+				unfinished--;
+				mutex.notifyAll();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Runs tasks that did not start yet and then waits until all tasks finished.
+	 */
+	void await() throws InterruptedException {
+		while (help()) {
+			// keep helping
+		}
+		ForkJoinPool.managedBlock(new Completion());
+	}
+
+	/**
+	 * Drops the tasks that did not start yet and waits until the others
+	 * finished, also if the calling thread is interrupted.
+	 */
+	void cancel() {
+		while (pending.poll() != null) {
+			synchronized (mutex) {
+				unfinished--;
+				mutex.notifyAll();
+			}
+		}
+		boolean interrupted = false;
+		while (true) {
+			try {
+				ForkJoinPool.managedBlock(new Completion());
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits for all tasks and throws an {@link IllegalStateException} if any of them failed.
+	 */
+	void awaitWithoutExceptions() throws InterruptedException {
+		await();
+		if (!exceptions.isEmpty()) {
+			final IllegalStateException exception = new IllegalStateException("Exceptions occurred: " + exceptions.get(0), exceptions.get(0));
+			for (int i = 1; i < exceptions.size(); i++) {
+				exception.addSuppressed(exceptions.get(i));
+			}
+			throw exception;
+		}
+	}
+
+	List<Throwable> getExceptions() {
+		return new ArrayList<Throwable>(exceptions);
+	}
+
+	private final class Completion implements ForkJoinPool.ManagedBlocker {
+		@Override
+		public boolean block() throws InterruptedException {
+			synchronized (mutex) {
+				while (unfinished > 0) {
+					mutex.wait();
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public boolean isReleasable() {
+			synchronized (mutex) {
+				return unfinished == 0;
+			}
+		}
+	}
+}
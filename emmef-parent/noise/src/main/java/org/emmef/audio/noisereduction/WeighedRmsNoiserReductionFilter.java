@@ -19,6 +19,7 @@ public class WeighedRmsNoiserReductionFilter implements ChainableFilter {
 	private final Detection rmsDetection;
 	private final double[] delayBuffer;
 	private int delayPointer = 0;
+	private double[] detections = new double[0];
 
 	static Detection createDetection(long sampleRate, NrMeasurementSettings settings) {
 		return new RmsDetection(sampleRate, settings.rmsWin);
@@ -45,6 +46,23 @@ public class WeighedRmsNoiserReductionFilter implements ChainableFilter {
 		return nrDynamics.amplification(detection) * delayedSample;
 	}
 
+	@Override
+	public void filter(double[] input, double[] output, int offset, int length) {
+		final int end = offset + length;
+		if (detections.length < end) {
+			detections = new double[end];
+		}
+		rmsDetection.addSamples(input, detections, offset, length);
+		for (int i = offset; i < end; i++) {
+			final double delayedSample = delayBuffer[delayPointer];
+			delayBuffer[delayPointer] = input[i];
+			if (++delayPointer == delayBuffer.length) {
+				delayPointer = 0;
+			}
+			output[i] = nrDynamics.amplification(detections[i]) * delayedSample;
+		}
+	}
+
 	@Override
 	public void reset() {
 		Arrays.fill(delayBuffer, 0);
@@ -55,7 +73,7 @@ public class WeighedRmsNoiserReductionFilter implements ChainableFilter {
 		return String.format("WeighedRmsNoiseReduction: %1.0fHz~%1.0fHz: %s", minFreq, maxFreq, nrDynamics);
 	}
 
-	public static class Factory implements FilterFactory {
+	public static class Factory implements NoiseReductionFactory {
 		private final long sampleRate;
 		private final NrDynamicsFactory nrDynamicsFactory;
 		private final NrMeasurementSettings nrMeasurements;
@@ -65,19 +83,21 @@ public class WeighedRmsNoiserReductionFilter implements ChainableFilter {
 			this.sampleRate = sampleRate;
 			this.nrDynamicsFactory = nrDynamicsFactory;
 			this.nrMeasurements = nrMeasurements;
-			this.latency = createDetection(sampleRate, nrMeasurements).getHoldCount();
+			this.latency = latency(sampleRate, nrMeasurements);
+		}
+
+		static int latency(long sampleRate, NrMeasurementSettings nrMeasurements) {
+			return createDetection(sampleRate, nrMeasurements).getHoldCount();
 		}
 
 		@Override
 		public ChainableFilter createFilter(Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
-			double noiseLevel;
-			if (filterMetaData instanceof Double level) {
-				noiseLevel = Math.max(1e-14, Math.min(1.0, level));
-			}
-			else {
-				noiseLevel = 1e-6;
-			}
-			NrDynamics nrDynamics = nrDynamicsFactory.create(noiseLevel);
+			return createFilter(filterMetaData instanceof Double level ? level : 1e-6, minFreq, maxFreq);
+		}
+
+		@Override
+		public ChainableFilter createFilter(double noiseLevel, double minFreq, double maxFreq) {
+			NrDynamics nrDynamics = nrDynamicsFactory.create(Math.max(1e-14, Math.min(1.0, noiseLevel)));
 			return new WeighedRmsNoiserReductionFilter(nrDynamics, nrMeasurements, minFreq, maxFreq, sampleRate);
 		}
 
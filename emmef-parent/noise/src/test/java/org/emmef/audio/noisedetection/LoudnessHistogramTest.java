@@ -0,0 +1,197 @@
+package org.emmef.audio.noisedetection;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.emmef.audio.buckets.Integration;
+import org.junit.Test;
+
+/**
+ * Tests that the histogram selects the same noise level as the map of counts
+ * that it replaced, that levels at and beyond its edges are counted in the
+ * outer slots, and that adding histograms equals counting all levels in one.
+ */
+public class LoudnessHistogramTest {
+	private static final int[][] SN_RATIOS = { { 10, 60 }, { 20, 50 }, { 0, 80 }, { 30, 35 } };
+	private static final int LEVELS = 100000;
+
+	@Test
+	public void testNoiseIndexEqualsTreeMap() {
+		for (long seed = 1; seed <= 5; seed++) {
+			final double[] detections = createDetections(seed);
+			final LoudnessHistogram histogram = new LoudnessHistogram();
+			final SortedMap<Integer, Long> map = new TreeMap<>();
+			for (double detection : detections) {
+				histogram.add(detection);
+				final int index = LoudnessHistogram.indexFromDetection(Math.max(Math.pow(10, LoudnessHistogram.MIN_DB / 20), detection));
+				map.merge(index, 1L, Long::sum);
+			}
+			assertEquals(map.firstKey().intValue(), histogram.getFirstIndex());
+			assertEquals(map.lastKey().intValue(), histogram.getLastIndex());
+			for (int[] ratios : SN_RATIOS) {
+				assertEquals("Seed " + seed + ", S/N " + ratios[0] + " to " + ratios[1] + " dB",
+						treeMapNoiseIndex(map, ratios[0], ratios[1]), histogram.getNoiseIndex(ratios[0], ratios[1]));
+			}
+		}
+	}
+
+	@Test
+	public void testEdges() {
+		final LoudnessHistogram histogram = new LoudnessHistogram();
+		histogram.add(0.0);
+		histogram.add(1e-9);
+		histogram.add(Math.pow(10, -120.04 / 20));
+		histogram.add(Math.pow(10, -120.0 / 20));
+		histogram.add(Math.pow(10, -119.9 / 20));
+		assertEquals(4, histogram.getCount(LoudnessHistogram.MIN_INDEX));
+		assertEquals(1, histogram.getCount(LoudnessHistogram.MIN_INDEX + 1));
+		assertEquals(LoudnessHistogram.MIN_INDEX, histogram.getFirstIndex());
+
+		histogram.add(Math.pow(10, 19.9 / 20));
+		histogram.add(Math.pow(10, 20.0 / 20));
+		histogram.add(Math.pow(10, 20.04 / 20));
+		histogram.add(1000.0);
+		histogram.add(Double.MAX_VALUE);
+		assertEquals(1, histogram.getCount(LoudnessHistogram.MAX_INDEX - 1));
+		assertEquals(4, histogram.getCount(LoudnessHistogram.MAX_INDEX));
+		assertEquals(LoudnessHistogram.MAX_INDEX, histogram.getLastIndex());
+
+		assertEquals(0, histogram.getCount(LoudnessHistogram.MIN_INDEX - 1));
+		assertEquals(0, histogram.getCount(LoudnessHistogram.MAX_INDEX + 1));
+		assertEquals(-120.0, LoudnessHistogram.dbFromIndex(LoudnessHistogram.MIN_INDEX), 1e-9);
+		assertEquals(20.0, LoudnessHistogram.dbFromIndex(LoudnessHistogram.MAX_INDEX), 1e-9);
+		assertEquals(10.0, LoudnessHistogram.rmsFromIndex(LoudnessHistogram.MAX_INDEX), 1e-12);
+	}
+
+	/**
+	 * The map of counts failed when the levels spanned less than the maximum
+	 * signal-to-noise ratio.
+	 */
+	@Test
+	public void testNarrowRangeStartsAtLowestLevel() {
+		final LoudnessHistogram histogram = new LoudnessHistogram();
+		for (int i = 0; i < 1000; i++) {
+			histogram.add(Math.pow(10, (-30.0 + 0.02 * i) / 20));
+		}
+		final int noiseIndex = histogram.getNoiseIndex(10, 60);
+		assertTrue(noiseIndex >= histogram.getFirstIndex() - LoudnessHistogram.SUMMING_WINDOW);
+		assertTrue(noiseIndex <= histogram.getLastIndex() - 100);
+		histogram.getNoiseIndex(40, 60);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testEmptyHasNoNoiseIndex() {
+		new LoudnessHistogram().getNoiseIndex(10, 60);
+	}
+
+	@Test
+	public void testAddedHalvesEqualWhole() {
+		final double[] detections = createDetections(6);
+		final LoudnessHistogram whole = new LoudnessHistogram();
+		final LoudnessHistogram low = new LoudnessHistogram();
+		final LoudnessHistogram high = new LoudnessHistogram();
+		for (int i = 0; i < detections.length; i++) {
+			whole.add(detections[i]);
+			(i < detections.length / 2 ? low : high).add(detections[i]);
+		}
+		final LoudnessHistogram merged = new LoudnessHistogram();
+		merged.add(low);
+		merged.add(high);
+		low.add(high);
+		for (LoudnessHistogram histogram : new LoudnessHistogram[] { merged, low }) {
+			assertEquals(whole.getFirstIndex(), histogram.getFirstIndex());
+			assertEquals(whole.getLastIndex(), histogram.getLastIndex());
+			for (int index = LoudnessHistogram.MIN_INDEX; index <= LoudnessHistogram.MAX_INDEX; index++) {
+				assertEquals("Index " + index, whole.getCount(index), histogram.getCount(index));
+			}
+			for (int[] ratios : SN_RATIOS) {
+				assertEquals(whole.getNoiseIndex(ratios[0], ratios[1]), histogram.getNoiseIndex(ratios[0], ratios[1]));
+			}
+		}
+	}
+
+	/**
+	 * Creates RMS levels of a noise floor around -70 dB, of signal between -60
+	 * and -3 dB and a few below the lowest level.
+	 */
+	private static double[] createDetections(long seed) {
+		final Random random = new Random(seed);
+		final double[] detections = new double[LEVELS];
+		final double noiseDb = -75.0 + 10.0 * random.nextDouble();
+		for (int i = 0; i < LEVELS; i++) {
+			final double choice = random.nextDouble();
+			final double db;
+			if (choice < 0.6) {
+				db = noiseDb + 3.0 * random.nextGaussian();
+			}
+			else if (choice < 0.999) {
+				db = -60.0 + 57.0 * random.nextDouble();
+			}
+			else {
+				db = -130.0 + 20.0 * random.nextDouble();
+			}
+			detections[i] = Math.pow(10, db / 20);
+		}
+		return detections;
+	}
+
+	/**
+	 * Selects the noise level like WeighedRmsLoudnessMeasurementFilter did
+	 * before it used a {@link LoudnessHistogram}.
+	 */
+	private static int treeMapNoiseIndex(SortedMap<Integer, Long> loudnessFrequency, int minSnRatioDb, int maxSnRatioDb) {
+		final int summingWindow = LoudnessHistogram.SUMMING_WINDOW;
+		final int stepsPerDb = LoudnessHistogram.STEPS_PER_DB;
+		int maxRmsIndex = loudnessFrequency.lastKey();
+
+		int rangeStart = loudnessFrequency.firstKey() - summingWindow;
+		int rangeEnd = loudnessFrequency.lastKey() + summingWindow;
+		int rangeSize = 1 + rangeEnd - rangeStart;
+		double original[] = new double[rangeSize];
+		for (Map.Entry<Integer, Long> entry : loudnessFrequency.entrySet()) {
+			original[entry.getKey() - rangeStart] = entry.getValue();
+		}
+		double range[] = new double[rangeSize];
+		System.arraycopy(original, 0, range, 0, rangeSize);
+		for (int i = summingWindow; i < rangeSize - summingWindow; i++) {
+			double sum = 0.0;
+			for (int j = -summingWindow; j <= summingWindow; j++) {
+				sum += original[i + j];
+			}
+			range[i] = sum;
+		}
+
+		Integration.Factors integration = new Integration.Factors(3);
+		double integrated;
+		integrated = 0;
+		for (int i = 0; i < range.length; i++) {
+			integrated = integration.integrated(integrated, range[i]);
+			range[i] = integrated;
+		}
+		integrated = 0;
+		for (int i = range.length - 1; i >= 0; i--) {
+			integrated = integration.integrated(integrated, range[i]);
+			range[i] = integrated;
+		}
+
+		int snrIndexMin = maxRmsIndex - (int) (maxSnRatioDb * stepsPerDb) - rangeStart;
+		int snrIndexMax = maxRmsIndex - (int) (minSnRatioDb * stepsPerDb) - rangeStart;
+
+		int i = snrIndexMin;
+		double previous = range[i++];
+		int end = Math.min(range.length, snrIndexMax + 1);
+		while (i < end) {
+			double f = range[i];
+			if (f < previous) {
+				break;
+			}
+			previous = f;
+			i++;
+		}
+		return i + rangeStart - 1;
+	}
+}
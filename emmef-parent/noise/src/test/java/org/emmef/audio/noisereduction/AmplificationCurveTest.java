@@ -0,0 +1,59 @@
+package org.emmef.audio.noisereduction;
+
+import static org.junit.Assert.*;
+
+import org.emmef.audio.noisereduction.NrDynamics.AbstractExpansionNoiseReduction;
+import org.emmef.audio.noisereduction.NrDynamics.AbstractSubtractiveNoiseReduction;
+import org.junit.Test;
+
+/**
+ * Tests that an {@link AmplificationCurve} stays within its maximum error for
+ * all relative levels in the table, and not only at the points within each bin
+ * where the error is checked when the table is created. The dynamics have the
+ * extreme ratios, as those have the most curved amplification.
+ */
+public class AmplificationCurveTest {
+	private static final double[] MAX_ERRORS = { NrDynamics.decibelToValue(-60), NrDynamics.decibelToValue(-90) };
+	private static final int LEVELS_PER_OCTAVE = 10007;
+
+	@Test
+	public void testExpansionWithinMaxError() {
+		for (double ratio : new double[] { 1.25, 4.0 }) {
+			assertWithinMaxError(new AbstractExpansionNoiseReduction(0.0, ratio));
+		}
+	}
+
+	@Test
+	public void testSubtractionWithinMaxError() {
+		for (double ratio : new double[] { 0.0, 0.9 }) {
+			assertWithinMaxError(new AbstractSubtractiveNoiseReduction(0.0, ratio));
+		}
+	}
+
+	@Test
+	public void testExactOutsideTable() {
+		final NrDynamics dynamics = new AbstractSubtractiveNoiseReduction(0.0, 0.9);
+		final AmplificationCurve curve = new AmplificationCurve(dynamics, MAX_ERRORS[0]);
+		for (double level : new double[] { 0.0, Math.scalb(1.0, AmplificationCurve.MIN_EXPONENT - 1), Math.scalb(1.0, AmplificationCurve.MAX_EXPONENT) }) {
+			assertEquals("Level " + level, dynamics.exactAmplification(level), curve.amplification(level), 0.0);
+		}
+	}
+
+	private static void assertWithinMaxError(NrDynamics dynamics) {
+		final int octaves = AmplificationCurve.MAX_EXPONENT - AmplificationCurve.MIN_EXPONENT;
+		for (double maxError : MAX_ERRORS) {
+			final AmplificationCurve curve = new AmplificationCurve(dynamics, maxError);
+			double error = 0.0;
+			double worstLevel = 0.0;
+			for (int i = 0; i < octaves * LEVELS_PER_OCTAVE; i++) {
+				final double level = Math.scalb(1.0 + 1.0 * (i % LEVELS_PER_OCTAVE) / LEVELS_PER_OCTAVE, AmplificationCurve.MIN_EXPONENT + i / LEVELS_PER_OCTAVE);
+				final double difference = Math.abs(curve.amplification(level) - dynamics.exactAmplification(level));
+				if (difference > error) {
+					error = difference;
+					worstLevel = level;
+				}
+			}
+			assertTrue(dynamics + ": error " + error + " at level " + worstLevel + " exceeds " + maxError, error <= maxError);
+		}
+	}
+}
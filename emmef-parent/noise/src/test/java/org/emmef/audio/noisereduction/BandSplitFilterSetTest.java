@@ -0,0 +1,358 @@
+package org.emmef.audio.noisereduction;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Direction;
+import org.emmef.audio.noisereduction.Buffer.Precision;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Scheduling;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.SegmentFiltering;
+import org.junit.Test;
+
+/**
+ * Tests that splitting each crossover pass into time segments changes the
+ * bands by less than -150 dB of the peak input, whether the segments are tasks
+ * or lanes of a single cascade, that the bands do not depend
+ * on the threads that split them or on where the buffers are stored, that
+ * buffers in single precision stay close to double precision, and that a
+ * binary tree splits like a cascade.
+ */
+public class BandSplitFilterSetTest {
+	private static final long SAMPLE_RATE = 44100;
+	private static final int FRAMES = 2 * (int)SAMPLE_RATE;
+	private static final int SEGMENTS = 8;
+	private static final int CHANNELS = 2;
+	private static final int PARALLELISM = 4;
+	private static final int CHUNK_SAMPLES = 4096;
+	private static final double MAXIMUM_ERROR = Math.pow(10.0, -150.0 / 20.0);
+	private static final double MAXIMUM_FLOAT_ERROR = Math.pow(10.0, -125.0 / 20.0);
+	private static final List<Double> TERTZ = Arrays.asList(70.0, 89.0, 112.0, 141.0, 177.0, 223.0, 281.0, 354.0, 446.0, 563.0, 709.0, 893.0,
+			1125.0, 1417.0, 1786.0, 2250.0, 2835.0, 3572.0, 4500.0, 5670.0, 7143.0, 9000.0, 11339.0, 14287.0);
+
+	@Test
+	public void testSegmentsEqualSinglePass() throws InterruptedException {
+		final float[] input = createInput();
+		double peak = 0.0;
+		for (float sample : input) {
+			peak = Math.max(peak, Math.abs(sample));
+		}
+		for (Direction direction : Direction.values()) {
+			final CrossoverInfo crossoverInfo = new CrossoverInfo(direction, 4, Arrays.asList(200.0, 1000.0, 5000.0));
+			final Map<Integer, double[]> expected = split(input.clone(), 1, crossoverInfo, ExecutionModel.shared(), Scheduling.DEFAULT, 1);
+			final Map<Integer, double[]> actual = split(input.clone(), 1, crossoverInfo, ExecutionModel.shared(), Scheduling.DEFAULT, SEGMENTS);
+			assertEquals(crossoverInfo.size() + 1, expected.size());
+			for (int band = 0; band <= crossoverInfo.size(); band++) {
+				final double[] expectedBand = expected.get(band);
+				final double[] actualBand = actual.get(band);
+				assertEquals(expectedBand.length, actualBand.length);
+				double error = 0.0;
+				for (int i = 0; i < expectedBand.length; i++) {
+					error = Math.max(error, Math.abs(expectedBand[i] - actualBand[i]));
+				}
+				assertTrue(direction + " band " + band + " differs by " + 20.0 * Math.log10(error / peak) + " dB", error < MAXIMUM_ERROR * peak);
+			}
+		}
+	}
+
+	/**
+	 * Segments that are filtered side by side as lanes give the same bands as
+	 * segments that are filtered as separate tasks; for order two, where the
+	 * tasks do not use second-order sections, they stay within the error of a
+	 * segment boundary.
+	 */
+	@Test
+	public void testLanesEqualSegmentTasks() throws InterruptedException {
+		final float[] input = createInput();
+		double peak = 0.0;
+		for (float sample : input) {
+			peak = Math.max(peak, Math.abs(sample));
+		}
+		for (int order : new int[] { 2, 3, 4 }) {
+			for (Direction direction : Direction.values()) {
+				final String name = direction + " of order " + order;
+				final CrossoverInfo crossoverInfo = new CrossoverInfo(direction, order, Arrays.asList(200.0, 1000.0, 5000.0));
+				final Map<Integer, double[]> expected = split(input.clone(), 1, crossoverInfo, ExecutionModel.shared(), Scheduling.DEFAULT, SEGMENTS,
+						new BufferSet(), SegmentFiltering.TASKS);
+				final Map<Integer, double[]> actual = split(input.clone(), 1, crossoverInfo, ExecutionModel.shared(), Scheduling.DEFAULT, SEGMENTS,
+						new BufferSet(), SegmentFiltering.LANES);
+				assertEquals(name, expected.keySet(), actual.keySet());
+				for (Integer key : expected.keySet()) {
+					assertArrayEquals(name + " band " + key, expected.get(key), actual.get(key), order < 3 ? MAXIMUM_ERROR * peak : 0.0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The bands of a binary tree stay within the deviation from an upward
+	 * cascade that {@link Direction#BINARY_TREE} documents, for white noise.
+	 */
+	@Test
+	public void testBinaryTreeCloseToUpward() throws InterruptedException {
+		assertTreeDeviation(Arrays.asList(1000.0), 0.0, 0.0);
+		assertTreeDeviation(Arrays.asList(80.0, 3000.0, 9000.0), 1e-9, 1e-9);
+		assertTreeDeviation(TERTZ, 0.027, 0.025);
+	}
+
+	private static void assertTreeDeviation(List<Double> crossovers, double maximumRmsDeviation, double maximumPeakDeviation) throws InterruptedException {
+		final Random random = new Random(2);
+		final float[] input = new float[FRAMES];
+		double peak = 0.0;
+		double power = 0.0;
+		for (int i = 0; i < FRAMES; i++) {
+			input[i] = (float)(0.25 * random.nextGaussian());
+			peak = Math.max(peak, Math.abs(input[i]));
+			power += input[i] * input[i];
+		}
+		final double rms = Math.sqrt(power / FRAMES);
+		final Map<Integer, double[]> upward = split(input.clone(), 1, new CrossoverInfo(Direction.UPWARD, 4, crossovers), ExecutionModel.shared(), Scheduling.DEFAULT, 1);
+		final Map<Integer, double[]> tree = split(input.clone(), 1, new CrossoverInfo(Direction.BINARY_TREE, 4, crossovers), ExecutionModel.shared(), Scheduling.DEFAULT, 1);
+		for (int band = 0; band <= crossovers.size(); band++) {
+			final double[] upwardBand = upward.get(band);
+			final double[] treeBand = tree.get(band);
+			double deviationPower = 0.0;
+			double deviationPeak = 0.0;
+			for (int i = 0; i < upwardBand.length; i++) {
+				final double deviation = treeBand[i] - upwardBand[i];
+				deviationPower += deviation * deviation;
+				deviationPeak = Math.max(deviationPeak, Math.abs(deviation));
+			}
+			final String name = crossovers.size() + " crossovers, band " + band;
+			assertTrue(name + " RMS deviates " + Math.sqrt(deviationPower / FRAMES) / rms, Math.sqrt(deviationPower / FRAMES) <= maximumRmsDeviation * rms);
+			assertTrue(name + " peak deviates " + deviationPeak / peak, deviationPeak <= maximumPeakDeviation * peak);
+		}
+	}
+
+	/**
+	 * Splits two channels on every execution model with every scheduling, and
+	 * compares the bands and the output with those of the calling thread.
+	 */
+	@Test
+	public void testExecutionModelsEqualSequential() throws InterruptedException {
+		final float[] input = new float[CHANNELS * FRAMES];
+		final float[] channel = createInput();
+		for (int i = 0; i < FRAMES; i++) {
+			input[CHANNELS * i] = channel[i];
+			input[CHANNELS * i + 1] = channel[FRAMES - 1 - i];
+		}
+		for (Direction direction : Direction.values()) {
+			final CrossoverInfo crossoverInfo = new CrossoverInfo(direction, 4, Arrays.asList(200.0, 1000.0, 5000.0));
+			final float[] expectedOutput = input.clone();
+			final Map<Integer, double[]> expected = split(expectedOutput, CHANNELS, crossoverInfo, Runnable::run, Scheduling.CHANNEL, 1);
+			assertEquals(CHANNELS * (crossoverInfo.size() + 1), expected.size());
+			for (ExecutionModel model : ExecutionModel.values()) {
+				final ExecutorService executor = model.create(PARALLELISM);
+				try {
+					for (Scheduling scheduling : Scheduling.values()) {
+						final String name = direction + " on " + model + " with " + scheduling;
+						final float[] output = input.clone();
+						final Map<Integer, double[]> actual = split(output, CHANNELS, crossoverInfo, executor, scheduling, 1);
+						assertEquals(name, expected.keySet(), actual.keySet());
+						for (Integer key : expected.keySet()) {
+							assertArrayEquals(name + " band " + key, expected.get(key), actual.get(key), 0.0);
+						}
+						// the bands are added in the order in which they finish
+						assertArrayEquals(name, expectedOutput, output, 1e-6f);
+					}
+				}
+				finally {
+					executor.shutdown();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits with off-heap buffers in chunks that do not divide the length of
+	 * the sound or the blocks of the filters, and compares the bands and the
+	 * output with those of heap buffers.
+	 */
+	@Test
+	public void testOffHeapEqualsHeap() throws InterruptedException {
+		final float[] input = createInput();
+		for (Precision precision : Precision.values()) {
+			for (Direction direction : Direction.values()) {
+				final String name = direction + " in " + precision + " precision";
+				final CrossoverInfo crossoverInfo = new CrossoverInfo(direction, 4, Arrays.asList(200.0, 1000.0, 5000.0));
+				final float[] expectedOutput = input.clone();
+				final Map<Integer, double[]> expected = split(expectedOutput, 1, crossoverInfo, ExecutionModel.shared(), Scheduling.DEFAULT, SEGMENTS,
+						new BufferSet(BufferSet.defaultBudget(), BufferSet.DEFAULT_MAX_WAIT_MILLIS, false, precision), SegmentFiltering.DEFAULT);
+				final float[] output = input.clone();
+				final Map<Integer, double[]> actual = split(output, 1, crossoverInfo, ExecutionModel.shared(), Scheduling.DEFAULT, SEGMENTS,
+						new BufferSet(BufferSet.defaultBudget(true), BufferSet.DEFAULT_MAX_WAIT_MILLIS, true, precision, CHUNK_SAMPLES), SegmentFiltering.DEFAULT);
+				assertEquals(name, expected.keySet(), actual.keySet());
+				for (Integer key : expected.keySet()) {
+					assertArrayEquals(name + " band " + key, expected.get(key), actual.get(key), 0.0);
+				}
+				assertArrayEquals(name, expectedOutput, output, 1e-6f);
+			}
+		}
+	}
+
+	/**
+	 * Weighs the bands of white noise differently and compares the output of
+	 * buffers in single precision with the bound that {@link Precision#FLOAT}
+	 * and the denoizer document.
+	 */
+	@Test
+	public void testFloatCloseToDouble() throws InterruptedException {
+		final Random random = new Random(3);
+		final float[] input = new float[FRAMES];
+		double peak = 0.0;
+		for (int i = 0; i < FRAMES; i++) {
+			input[i] = (float)(0.25 * random.nextGaussian());
+			peak = Math.max(peak, Math.abs(input[i]));
+		}
+		final List<CrossoverInfo> crossovers = Arrays.asList(
+				new CrossoverInfo(Direction.UPWARD, 4, TERTZ),
+				new CrossoverInfo(Direction.BINARY_TREE, 4, TERTZ),
+				new CrossoverInfo(Direction.UPWARD, 4, Arrays.asList(80.0, 3000.0, 9000.0)));
+		for (CrossoverInfo crossoverInfo : crossovers) {
+			final float[] expected = input.clone();
+			weigh(expected, crossoverInfo, Precision.DOUBLE);
+			final float[] actual = input.clone();
+			weigh(actual, crossoverInfo, Precision.FLOAT);
+			double error = 0.0;
+			for (int i = 0; i < FRAMES; i++) {
+				error = Math.max(error, Math.abs(expected[i] - actual[i]));
+			}
+			final String name = crossoverInfo.size() + " crossovers " + crossoverInfo.direction;
+assertTrue(name + " differs by " + 20.0 * Math.log10(error / peak) + " dB", error < MAXIMUM_FLOAT_ERROR * peak);
+		}
+	}
+
+	private static void weigh(float[] data, CrossoverInfo crossoverInfo, Precision precision) throws InterruptedException {
+		final BandSplitFilterSet set = new BandSplitFilterSet(new BufferSet(BufferSet.defaultBudget(), BufferSet.DEFAULT_MAX_WAIT_MILLIS, false, precision),
+				SAMPLE_RATE, FRAMES, MultiBandNoiseFilter.CROSSOVER_BITS, Collections.singletonList(new GainFilterFactory(crossoverInfo)),
+				crossoverInfo, ExecutionModel.shared(), Scheduling.DEFAULT, 1);
+		final CountDownLatch latch = new CountDownLatch(1);
+		set.filter(data, 0, 1, latch);
+		latch.await();
+		assertEquals(Collections.emptyList(), set.getExceptions());
+	}
+
+	private static Map<Integer, double[]> split(float[] data, int channels, CrossoverInfo crossoverInfo, Executor executor, Scheduling scheduling, int segments) throws InterruptedException {
+		return split(data, channels, crossoverInfo, executor, scheduling, segments, new BufferSet(), SegmentFiltering.DEFAULT);
+	}
+
+	/**
+	 * Splits the interleaved channels of the data and returns the samples of
+	 * each band, as they are offered to the filters of the band.
+	 */
+	private static Map<Integer, double[]> split(float[] data, int channels, CrossoverInfo crossoverInfo, Executor executor, Scheduling scheduling, int segments, BufferSet buffers, SegmentFiltering segmentFiltering) throws InterruptedException {
+		final RecordingFilterFactory recorder = new RecordingFilterFactory(crossoverInfo);
+		final BandSplitFilterSet set = new BandSplitFilterSet(buffers, SAMPLE_RATE, FRAMES, MultiBandNoiseFilter.CROSSOVER_BITS,
+				Collections.singletonList(recorder), crossoverInfo, executor, scheduling, segments, segmentFiltering);
+		final CountDownLatch latch = new CountDownLatch(channels);
+		for (int channel = 0; channel < channels; channel++) {
+			set.filter(data, channel, channels, latch);
+		}
+		latch.await();
+		assertEquals(Collections.emptyList(), set.getExceptions());
+		return recorder.bands;
+	}
+
+	private static float[] createInput() {
+		final Random random = new Random(1);
+		final float[] input = new float[FRAMES];
+		for (int i = 0; i < FRAMES; i++) {
+			input[i] = (float)(0.5 * random.nextGaussian() + 0.4 * Math.sin(2.0 * Math.PI * 100.0 * i / SAMPLE_RATE));
+		}
+		return input;
+	}
+
+	/**
+	 * Creates filters that record the samples of band {@code band} of channel
+	 * {@code channel} under key {@code channel * bands + band}.
+	 */
+	private static final class RecordingFilterFactory implements FilterFactory {
+		private final CrossoverInfo crossoverInfo;
+		private final Map<Integer, double[]> bands = new ConcurrentHashMap<>();
+
+		RecordingFilterFactory(CrossoverInfo crossoverInfo) {
+			this.crossoverInfo = crossoverInfo;
+		}
+
+		@Override
+		public ChainableFilter createFilter(Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
+			return createFilter(0, crossoverInfo.getBand(minFreq), filterMetaData, minFreq, maxFreq, markers);
+		}
+
+		@Override
+		public ChainableFilter createFilter(int channel, int band, Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
+			return new Recorder(bands, channel * (crossoverInfo.size() + 1) + band);
+		}
+	}
+
+	/**
+	 * Creates filters that amplify band {@code band} by {@code 1 / (1 + band % 4)}.
+	 */
+	private static final class GainFilterFactory implements FilterFactory {
+		private final CrossoverInfo crossoverInfo;
+
+		GainFilterFactory(CrossoverInfo crossoverInfo) {
+			this.crossoverInfo = crossoverInfo;
+		}
+
+		@Override
+		public ChainableFilter createFilter(Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
+			return createFilter(0, crossoverInfo.getBand(minFreq), filterMetaData, minFreq, maxFreq, markers);
+		}
+
+		@Override
+		public ChainableFilter createFilter(int channel, int band, Object filterMetaData, double minFreq, double maxFreq, byte[] markers) {
+			final double gain = 1.0 / (1 + band % 4);
+			return new ChainableFilter() {
+				@Override
+				public double filter(double input) {
+					return gain * input;
+				}
+
+				@Override
+				public void reset() {
+				}
+			};
+		}
+	}
+
+	private static final class Recorder implements ChainableFilter {
+		private final Map<Integer, double[]> bands;
+		private final int key;
+		private double[] samples = new double[FRAMES];
+		private int count;
+
+		Recorder(Map<Integer, double[]> bands, int key) {
+			this.bands = bands;
+			this.key = key;
+		}
+
+		@Override
+		public double filter(double input) {
+			if (count == samples.length) {
+				samples = Arrays.copyOf(samples, 2 * count);
+			}
+			samples[count++] = input;
+			return input;
+		}
+
+		@Override
+		public void filter(double[] input, double[] output, int offset, int length) {
+			ChainableFilter.super.filter(input, output, offset, length);
+			bands.put(key, Arrays.copyOf(samples, count));
+		}
+
+		@Override
+		public void reset() {
+			count = 0;
+		}
+	}
+}
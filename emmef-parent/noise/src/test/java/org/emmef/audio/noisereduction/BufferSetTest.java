@@ -0,0 +1,173 @@
+package org.emmef.audio.noisereduction;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.emmef.audio.noisereduction.BufferSet.Handle;
+import org.junit.Test;
+
+/**
+ * Tests that the buffers of a {@link BufferSet} stay within its budget and
+ * are never handed to two holders at the same time.
+ */
+public class BufferSetTest {
+	private static final int[] SIZES = { 1000, 1500 };
+	private static final int THREADS = 8;
+	private static final int HANDLES_PER_THREAD = 50;
+	private static final int ROUNDS_PER_HANDLE = 20;
+	private static final int MINIMUM_BUFFERS = 2;
+	private static final int PREFERRED_BUFFERS = 4;
+
+	@Test
+	public void testConcurrentHandlesWithinBudget() throws InterruptedException {
+		// fits about seven buffers, while the threads want up to 32
+		final long budget = 7 * BufferSet.bytesFor(SIZES[1]);
+		final BufferSet buffers = new BufferSet(budget, 60000);
+		final Set<Buffer> held = Collections.newSetFromMap(new IdentityHashMap<Buffer, Boolean>());
+		final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<String>();
+		final CountDownLatch done = new CountDownLatch(THREADS);
+		for (int thread = 0; thread < THREADS; thread++) {
+			final int id = thread;
+			new Thread(() -> {
+				try {
+					useHandles(buffers, id, held, failures);
+				}
+				catch (Throwable e) {
+					failures.add("Thread " + id + ": " + e);
+				}
+				finally {
+					done.countDown();
+				}
+			}).start();
+		}
+		done.await();
+		assertEquals(Collections.emptyList(), new ArrayList<String>(failures));
+		final BufferSet.Statistics statistics = buffers.getStatistics();
+		assertTrue(statistics.toString(), statistics.peakBytes <= budget);
+		assertTrue(statistics.toString(), statistics.allocatedBytes <= budget);
+		assertTrue("Other handles should have waited: " + statistics, statistics.waits > 0);
+	}
+
+	private static void useHandles(BufferSet buffers, int id, Set<Buffer> held, ConcurrentLinkedQueue<String> failures) throws InterruptedException {
+		final Random random = new Random(id);
+		for (int i = 0; i < HANDLES_PER_THREAD; i++) {
+			final int size = SIZES[random.nextInt(SIZES.length)];
+			final Handle handle = buffers.init(size, MINIMUM_BUFFERS, PREFERRED_BUFFERS);
+			try {
+				for (int round = 0; round < ROUNDS_PER_HANDLE; round++) {
+					final List<Buffer> mine = new ArrayList<Buffer>();
+					for (int j = 0; j < MINIMUM_BUFFERS; j++) {
+						mine.add(handle.get());
+					}
+					Buffer extra;
+					while (mine.size() <= PREFERRED_BUFFERS && (extra = handle.tryGet()) != null) {
+						mine.add(extra);
+					}
+					if (mine.size() > PREFERRED_BUFFERS) {
+						failures.add("Handle gave " + mine.size() + " buffers instead of at most " + PREFERRED_BUFFERS);
+					}
+					for (Buffer buffer : mine) {
+						synchronized (held) {
+							if (!held.add(buffer)) {
+								failures.add("Buffer handed out twice");
+							}
+						}
+						if (buffer.length() != size) {
+							failures.add("Buffer of " + buffer.length() + " samples instead of " + size);
+						}
+						buffer.set(0, id);
+						buffer.set(size - 1, round);
+					}
+					final long allocated = buffers.getStatistics().allocatedBytes;
+					if (allocated > buffers.getBudget()) {
+						failures.add("Allocated " + allocated + " bytes of a budget of " + buffers.getBudget());
+					}
+					Thread.yield();
+					for (Buffer buffer : mine) {
+						if (buffer.get(0) != id || buffer.get(size - 1) != round) {
+							failures.add("Buffer was changed by another holder");
+						}
+						synchronized (held) {
+							held.remove(buffer);
+						}
+						handle.put(buffer);
+					}
+				}
+			}
+			finally {
+				handle.close();
+			}
+		}
+	}
+
+	@Test
+	public void testIdleBuffersOfOtherSizeAreEvicted() throws InterruptedException {
+		final long budget = 2 * BufferSet.bytesFor(SIZES[0]) + BufferSet.bytesFor(SIZES[1]);
+		final BufferSet buffers = new BufferSet(budget, 1000);
+		final Handle small = buffers.init(SIZES[0], 2, 2);
+		small.close();
+		final Handle large = buffers.init(SIZES[1], 2, 2);
+		assertEquals(SIZES[1], large.get().length());
+		assertEquals(SIZES[1], large.get().length());
+		assertTrue(buffers.getStatistics().allocatedBytes <= budget);
+		large.close();
+	}
+
+	@Test
+	public void testExtraBuffersWithinBudget() throws InterruptedException {
+		final BufferSet buffers = new BufferSet(3 * BufferSet.bytesFor(SIZES[0]), 1000);
+		final Handle handle = buffers.init(SIZES[0], 1, 5);
+		assertNotNull(handle.get());
+		assertNotNull(handle.tryGet());
+		assertNotNull(handle.tryGet());
+		// a failed reservation of an extra buffer must not count
+		assertNull(handle.tryGet());
+		assertNull(handle.tryGet());
+		assertEquals(3 * BufferSet.bytesFor(SIZES[0]), buffers.getStatistics().allocatedBytes);
+		handle.close();
+		final Handle other = buffers.init(SIZES[0], 3, 3);
+		other.close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWaitForBufferIsBounded() throws InterruptedException {
+		final BufferSet buffers = new BufferSet(BufferSet.bytesFor(SIZES[0]), 100);
+		final Handle handle = buffers.init(SIZES[0], 1, 2);
+		try {
+			handle.get();
+			handle.get();
+		}
+		finally {
+			handle.close();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWaitForHandleIsBounded() throws InterruptedException {
+		final BufferSet buffers = new BufferSet(BufferSet.bytesFor(SIZES[0]), 100);
+		final Handle handle = buffers.init(SIZES[0], 1, 1);
+		try {
+			buffers.init(SIZES[0], 1, 1);
+		}
+		finally {
+			handle.close();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNoBuffersAfterPanic() throws InterruptedException {
+		final BufferSet buffers = new BufferSet(4 * BufferSet.bytesFor(SIZES[0]), 1000);
+		final Handle handle = buffers.init(SIZES[0], 1, 1);
+		handle.panic();
+		handle.close();
+		buffers.init(SIZES[0], 1, 1);
+	}
+}
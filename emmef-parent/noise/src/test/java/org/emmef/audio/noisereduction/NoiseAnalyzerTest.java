@@ -0,0 +1,75 @@
+package org.emmef.audio.noisereduction;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.emmef.audio.format.AudioFormat;
+import org.emmef.audio.format.AudioFormats;
+import org.emmef.audio.noisedetection.NrMeasurementSettings;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Direction;
+import org.emmef.audio.noisereduction.StreamingNoiseFilterTest.MemorySource;
+import org.junit.Test;
+
+/**
+ * Tests that a {@link NoiseAnalyzer} that streams the sound measures the same
+ * noise levels per channel and band as a {@link MultiBandNoiseFilter} that
+ * filters the whole sound in memory.
+ */
+public class NoiseAnalyzerTest {
+	private static final long SAMPLE_RATE = 44100;
+	private static final int CHANNELS = 2;
+	private static final int FRAMES = 2 * (int)SAMPLE_RATE;
+	private static final int BLOCK_FRAMES = 4099;
+	private static final AudioFormat FORMAT = AudioFormats.pcm().channels(CHANNELS).rate(SAMPLE_RATE).bitDepth(16);
+	private static final double MAXIMUM_DIFFERENCE = 1e-9;
+
+	@Test
+	public void testIrregularNoiseEqualsInMemory() throws IOException, InterruptedException {
+		assertAnalysisEqualsInMemory(new NrMeasurementSettings(30, 75, 0.050, 0.300, 0.200, 0.1, 0.1, 3, false));
+	}
+
+	@Test
+	public void testRegularNoiseEqualsInMemory() throws IOException, InterruptedException {
+		assertAnalysisEqualsInMemory(new NrMeasurementSettings(30, 75, 0.050, 0.300, 0.200, 0.1, 0.1, 0, false));
+	}
+
+	@Test
+	public void testFrequencyScanningEqualsInMemory() throws IOException, InterruptedException {
+		assertAnalysisEqualsInMemory(new NrMeasurementSettings(30, 75, 0.050, 0.300, 0.200, 0.1, 0.1, 0, true));
+	}
+
+	private static void assertAnalysisEqualsInMemory(NrMeasurementSettings measurementSettings) throws IOException, InterruptedException {
+		final float[] input = StreamingNoiseFilterTest.createInput();
+		for (Direction direction : new Direction[] { Direction.DOWNWARD, Direction.BINARY_TREE }) {
+			final CrossoverInfo crossoverInfo = new CrossoverInfo(direction, 4, Arrays.asList(80.0, 3000.0, 9000.0));
+			final DefaultTimings timings = new DefaultTimings(crossoverInfo, Arrays.asList(0.025, 0.075), Arrays.asList(0.0015, 0.010), Arrays.asList(0.075, 0.200));
+
+			final MultiBandNoiseFilter filter = new MultiBandNoiseFilter(input.clone(), FORMAT, measurementSettings, new NrDynamicsFactory.Subtraction(0.0, 0.25), crossoverInfo, timings);
+			filter.filter();
+			final NoiseProfile expected = filter.getNoiseProfile();
+			final NoiseProfile actual = new NoiseAnalyzer(FORMAT, FRAMES, measurementSettings, crossoverInfo, timings, BLOCK_FRAMES)
+					.analyze(() -> new MemorySource(input));
+
+			assertEquals(CHANNELS, actual.getChannels());
+			assertEquals(crossoverInfo.size() + 1, actual.getBands());
+			for (int channel = 0; channel < CHANNELS; channel++) {
+				for (int band = 0; band < actual.getBands(); band++) {
+					final String name = direction + ", channel " + channel + ", band " + band;
+					assertClose(name + " noise level", expected.getNoiseLevel(channel, band), actual.getNoiseLevel(channel, band));
+					if (measurementSettings.frequencyScanning) {
+						assertTrue(name, Double.isNaN(actual.getMaxRms(channel, band)));
+					}
+					else {
+						assertClose(name + " maximum RMS", expected.getMaxRms(channel, band), actual.getMaxRms(channel, band));
+					}
+				}
+			}
+		}
+	}
+
+	private static void assertClose(String name, double expected, double actual) {
+		assertTrue(name + " is " + actual + " instead of " + expected, Math.abs(actual - expected) <= MAXIMUM_DIFFERENCE * Math.abs(expected));
+	}
+}
@@ -0,0 +1,131 @@
+package org.emmef.audio.noisereduction;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.emmef.audio.noisedetection.NrMeasurementSettings;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Direction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that a cached noise profile is found only with the source, sample
+ * rate, measurement and crossover settings it was measured with.
+ */
+public class NoiseProfileCacheTest {
+	private static final long SAMPLE_RATE = 44100;
+	private static final byte[] SOURCE = { 1, 2, 3, 4 };
+	private static final List<Double> CROSSOVERS = Arrays.asList(80.0, 3000.0, 9000.0);
+	private static final List<Double> MEASUREMENT_TIMES = Arrays.asList(0.025, 0.075);
+	private static final List<Double> ATTACK_TIMES = Arrays.asList(0.0015, 0.010);
+	private static final List<Double> RELEASE_TIMES = Arrays.asList(0.075, 0.200);
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testHitWithSameSettings() throws IOException {
+		final NoiseProfileCache cache = new NoiseProfileCache(folder.getRoot());
+		final NoiseProfile profile = createProfile();
+		cache.put(key(SOURCE, SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES), profile);
+
+		// equal settings in new objects, and reduction timings that do not influence the measurement
+		final NoiseProfile cached = new NoiseProfileCache(folder.getRoot()).get(
+				key(SOURCE.clone(), SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, Arrays.asList(0.003, 0.020)));
+		assertNotNull(cached);
+		assertEquals(profile.getChannels(), cached.getChannels());
+		assertEquals(profile.getBands(), cached.getBands());
+		for (int channel = 0; channel < profile.getChannels(); channel++) {
+			for (int band = 0; band < profile.getBands(); band++) {
+				assertEquals(profile.getNoiseLevel(channel, band), cached.getNoiseLevel(channel, band), 0.0);
+				assertEquals(profile.getMaxRms(channel, band), cached.getMaxRms(channel, band), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testMissWithOtherSettings() throws IOException {
+		final NoiseProfileCache cache = new NoiseProfileCache(folder.getRoot());
+		final String key = key(SOURCE, SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES);
+		cache.put(key, createProfile());
+
+		final String[] otherKeys = {
+				key(new byte[] { 1, 2, 3, 5 }, SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, 48000, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, settings(25, 75, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, settings(30, 80, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, new NrMeasurementSettings(30, 75, 0.060, 0.300, 0.200, 0.1, 0.1, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, new NrMeasurementSettings(30, 75, 0.050, 0.300, 0.200, 0.2, 0.1, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, settings(30, 75, 2, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, settings(30, 75, 3, true), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.UPWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 3, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 4, Arrays.asList(80.0, 3000.0, 10000.0)), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), Arrays.asList(0.025, 0.100), ATTACK_TIMES),
+				NoiseProfileCache.key(SOURCE, SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), timings(MEASUREMENT_TIMES, ATTACK_TIMES), true),
+		};
+		for (int i = 0; i < otherKeys.length; i++) {
+			assertFalse("Key " + i, key.equals(otherKeys[i]));
+			assertNull("Key " + i, cache.get(otherKeys[i]));
+		}
+		assertNotNull(cache.get(key));
+	}
+
+	@Test
+	public void testMeasurementTimesOnlyCountForIrregularNoise() {
+		final NrMeasurementSettings scanning = settings(30, 75, 3, true);
+		assertEquals(
+				key(SOURCE, SAMPLE_RATE, scanning, crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, scanning, crossovers(Direction.DOWNWARD, 4, CROSSOVERS), Arrays.asList(0.025, 0.100), ATTACK_TIMES));
+		final NrMeasurementSettings regular = settings(30, 75, 0, false);
+		assertEquals(
+				key(SOURCE, SAMPLE_RATE, regular, crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES),
+				key(SOURCE, SAMPLE_RATE, regular, crossovers(Direction.DOWNWARD, 4, CROSSOVERS), Arrays.asList(0.025, 0.100), ATTACK_TIMES));
+	}
+
+	@Test
+	public void testChangedProfileReplacesCachedOne() throws IOException {
+		final NoiseProfileCache cache = new NoiseProfileCache(folder.getRoot());
+		final String key = key(SOURCE, SAMPLE_RATE, settings(30, 75, 3, false), crossovers(Direction.DOWNWARD, 4, CROSSOVERS), MEASUREMENT_TIMES, ATTACK_TIMES);
+		cache.put(key, createProfile());
+		cache.put(key, new NoiseProfile(new double[][] { { 0.5 } }, new double[][] { { 0.75 } }));
+		final NoiseProfile cached = cache.get(key);
+		assertEquals(1, cached.getChannels());
+		assertEquals(1, cached.getBands());
+		assertEquals(0.5, cached.getNoiseLevel(0, 0), 0.0);
+		assertEquals(0.75, cached.getMaxRms(0, 0), 0.0);
+		assertEquals(1, folder.getRoot().list().length);
+	}
+
+	private static String key(byte[] source, long sampleRate, NrMeasurementSettings settings, CrossoverInfo crossoverInfo, List<Double> measurementTimes, List<Double> attackTimes) {
+		return NoiseProfileCache.key(source, sampleRate, settings, crossoverInfo, new DefaultTimings(crossoverInfo, measurementTimes, attackTimes, RELEASE_TIMES));
+	}
+
+	private static NrMeasurementSettings settings(int minSnRatioDb, int maxSnRatioDb, int measureIrregularNoise, boolean frequencyScanning) {
+		return new NrMeasurementSettings(minSnRatioDb, maxSnRatioDb, 0.050, 0.300, 0.200, 0.1, 0.1, measureIrregularNoise, frequencyScanning);
+	}
+
+	private static CrossoverInfo crossovers(Direction direction, int order, List<Double> frequencies) {
+		return new CrossoverInfo(direction, order, frequencies);
+	}
+
+	private static Timings timings(List<Double> measurementTimes, List<Double> attackTimes) {
+		return new DefaultTimings(crossovers(Direction.DOWNWARD, 4, CROSSOVERS), measurementTimes, attackTimes, RELEASE_TIMES);
+	}
+
+	private static NoiseProfile createProfile() {
+		final double[][] noiseLevels = new double[2][CROSSOVERS.size() + 1];
+		final double[][] maxRmsLevels = new double[2][CROSSOVERS.size() + 1];
+		for (int channel = 0; channel < 2; channel++) {
+			for (int band = 0; band <= CROSSOVERS.size(); band++) {
+				noiseLevels[channel][band] = 1e-4 * (1 + channel + band);
+				maxRmsLevels[channel][band] = 0.1 * (1 + channel) + 0.01 * band;
+			}
+		}
+		return new NoiseProfile(noiseLevels, maxRmsLevels);
+	}
+}
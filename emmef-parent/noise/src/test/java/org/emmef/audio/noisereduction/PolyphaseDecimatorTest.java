@@ -0,0 +1,167 @@
+package org.emmef.audio.noisereduction;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests the gain, stop band and timing of a {@link PolyphaseDecimator}, for a
+ * band up to 500 Hz at 48 kHz, that is decimated to 4 kHz.
+ */
+public class PolyphaseDecimatorTest {
+	private static final long SAMPLE_RATE = 48000;
+	private static final double PASS_FREQUENCY = 500.0;
+	private static final int FACTOR = 12;
+	private static final long DECIMATED_RATE = SAMPLE_RATE / FACTOR;
+	private static final int SAMPLES = 48000;
+	// well beyond the length of the filter
+	private static final int SETTLED = 200;
+
+	@Test
+	public void testFactor() {
+		assertEquals(FACTOR, PolyphaseDecimator.getFactor(SAMPLE_RATE, PASS_FREQUENCY));
+		assertEquals(1, PolyphaseDecimator.getFactor(SAMPLE_RATE, SAMPLE_RATE / (PolyphaseDecimator.HEADROOM * (PolyphaseDecimator.MIN_FACTOR - 1))));
+	}
+
+	@Test
+	public void testDirectCurrentGain() {
+		final double[] input = new double[SAMPLES];
+		Arrays.fill(input, 1.0);
+		final double[] output = decimate(input);
+		for (int i = SETTLED; i < output.length - SETTLED; i++) {
+			assertEquals("Output " + i, 1.0, output[i], 1e-12);
+		}
+	}
+
+	/**
+	 * The pass band has unity gain and no phase shift.
+	 */
+	@Test
+	public void testPassBand() {
+		for (double frequency = 20.0; frequency <= PASS_FREQUENCY; frequency += 40.0) {
+			final double[] fit = fitSine(frequency);
+			assertEquals(frequency + " Hz", 1.0, fit[0], 1e-3);
+			assertEquals(frequency + " Hz", 0.0, fit[1], 1e-3);
+		}
+	}
+
+	@Test
+	public void testStopBand() {
+		// frequencies from here on alias into the pass band
+		final double stopBand = DECIMATED_RATE - PASS_FREQUENCY;
+		final double maximum = Math.pow(10.0, -70.0 / 20.0);
+		for (double frequency = stopBand; frequency < 0.5 * SAMPLE_RATE; frequency += 97.0) {
+			final double amplitude = peak(frequency);
+			assertTrue(frequency + " Hz passes with " + 20.0 * Math.log10(amplitude) + " dB", amplitude < maximum);
+		}
+	}
+
+	/**
+	 * Output {@code k} must be centered on input {@code k * factor}, so that
+	 * a burst that is measured with the timings at the decimated rate starts
+	 * and ends at the decimated positions of the original burst.
+	 */
+	@Test
+	public void testOutputAlignedWithDecimatedTimings() {
+		final double burstTime = 0.05;
+		final CrossoverInfo crossoverInfo = new CrossoverInfo(BandSplitFilterSet.Direction.DEFAULT, 4, Arrays.asList(PASS_FREQUENCY));
+		final Timings timings = new DefaultTimings(crossoverInfo, Arrays.asList(0.025, 0.075), Arrays.asList(0.0015, 0.010), Arrays.asList(0.075, 0.200));
+		final int burst = new RatedTimings(timings, SAMPLE_RATE).getSamples(burstTime);
+		final int decimatedBurst = new RatedTimings(timings, SAMPLE_RATE).withSampleRate(DECIMATED_RATE).getSamples(burstTime);
+		assertEquals(0, burst % FACTOR);
+		assertEquals(burst / FACTOR, decimatedBurst);
+
+		final int start = 1000 * FACTOR;
+		final double[] input = new double[SAMPLES];
+		Arrays.fill(input, start, start + burst, 1.0);
+		final double[] output = decimate(input);
+		final int first = start / FACTOR;
+		final int end = first + decimatedBurst;
+		// the edges of a symmetric filter are halfway on the centered sample
+		assertEquals(0.5, output[first], 1.0 / FACTOR);
+		assertEquals(0.5, output[end], 1.0 / FACTOR);
+		assertEquals(1.0, output[first] + output[end], 1e-12);
+		assertTrue(output[first - 1] < output[first] && output[first] < output[first + 1]);
+		assertTrue(output[end - 1] > output[end] && output[end] > output[end + 1]);
+	}
+
+	@Test
+	public void testOutputLength() {
+		for (int samples : new int[] { 1, FACTOR - 1, FACTOR, FACTOR + 1, 1000, SAMPLES }) {
+			final PolyphaseDecimator decimator = new PolyphaseDecimator(SAMPLE_RATE, FACTOR, PASS_FREQUENCY);
+			final double[] output = new double[decimator.getMaxOutput(samples)];
+			final int outputs = decimator.decimate(new double[samples], 0, samples, output);
+			final int flushed = decimator.flush(new double[decimator.getMaxOutput(0)]);
+			assertTrue(outputs + flushed <= output.length);
+			assertEquals(samples + " samples", (samples + FACTOR - 1) / FACTOR, outputs + flushed);
+		}
+	}
+
+	/**
+	 * Decimates in blocks that are no multiple of the factor.
+	 */
+	private static double[] decimate(double[] input) {
+		final PolyphaseDecimator decimator = new PolyphaseDecimator(SAMPLE_RATE, FACTOR, PASS_FREQUENCY);
+		final double[] output = new double[(input.length + FACTOR - 1) / FACTOR];
+		final double[] block = new double[decimator.getMaxOutput(1001)];
+		int outputs = 0;
+		for (int offset = 0; offset < input.length; offset += 1001) {
+			final int count = decimator.decimate(input, offset, Math.min(1001, input.length - offset), block);
+			System.arraycopy(block, 0, output, outputs, count);
+			outputs += count;
+		}
+		final int count = decimator.flush(block);
+		System.arraycopy(block, 0, output, outputs, count);
+		assertEquals(output.length, outputs + count);
+		return output;
+	}
+
+	/**
+	 * Returns the amplitudes of the sine and cosine that fit the decimated
+	 * output of a sine wave best.
+	 */
+	private static double[] fitSine(double frequency) {
+		final double[] output = decimate(sine(frequency));
+		double sineOutput = 0.0;
+		double cosineOutput = 0.0;
+		double sineSine = 0.0;
+		double cosineCosine = 0.0;
+		double sineCosine = 0.0;
+		for (int k = SETTLED; k < output.length - SETTLED; k++) {
+			final double phase = 2.0 * Math.PI * frequency * k * FACTOR / SAMPLE_RATE;
+			final double sine = Math.sin(phase);
+			final double cosine = Math.cos(phase);
+			sineOutput += sine * output[k];
+			cosineOutput += cosine * output[k];
+			sineSine += sine * sine;
+			cosineCosine += cosine * cosine;
+			sineCosine += sine * cosine;
+		}
+		final double determinant = sineSine * cosineCosine - sineCosine * sineCosine;
+		return new double[] {
+				(cosineCosine * sineOutput - sineCosine * cosineOutput) / determinant,
+				(sineSine * cosineOutput - sineCosine * sineOutput) / determinant };
+	}
+
+	/**
+	 * Returns the peak of the decimated output of a sine wave.
+	 */
+	private static double peak(double frequency) {
+		final double[] output = decimate(sine(frequency));
+		double peak = 0.0;
+		for (int k = SETTLED; k < output.length - SETTLED; k++) {
+			peak = Math.max(peak, Math.abs(output[k]));
+		}
+		return peak;
+	}
+
+	private static double[] sine(double frequency) {
+		final double[] sine = new double[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			sine[i] = Math.sin(2.0 * Math.PI * frequency * i / SAMPLE_RATE);
+		}
+		return sine;
+	}
+}
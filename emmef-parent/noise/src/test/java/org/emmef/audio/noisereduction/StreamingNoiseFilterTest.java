@@ -0,0 +1,188 @@
+package org.emmef.audio.noisereduction;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.emmef.audio.format.AudioFormat;
+import org.emmef.audio.format.AudioFormats;
+import org.emmef.audio.format.SoundMetrics;
+import org.emmef.audio.frame.Whence;
+import org.emmef.audio.nodes.SoundSink;
+import org.emmef.audio.nodes.SoundSource;
+import org.emmef.audio.noisedetection.NrMeasurementSettings;
+import org.emmef.audio.noisereduction.BandSplitFilterSet.Direction;
+import org.junit.Test;
+
+/**
+ * Tests that a {@link StreamingNoiseFilter} produces the same 16-bit output as
+ * a {@link MultiBandNoiseFilter} that filters the whole sound in memory. The
+ * blocks are much shorter than the look-ahead of the crossovers and are no
+ * divisor or multiple of it.
+ */
+public class StreamingNoiseFilterTest {
+	private static final long SAMPLE_RATE = 44100;
+	private static final int CHANNELS = 2;
+	private static final int FRAMES = 2 * (int)SAMPLE_RATE;
+	private static final int[] BLOCK_FRAMES = { 1000, 4099 };
+	private static final AudioFormat FORMAT = AudioFormats.pcm().channels(CHANNELS).rate(SAMPLE_RATE).bitDepth(16);
+
+	@Test
+	public void testDownwardEqualsInMemory() throws IOException, InterruptedException {
+		assertStreamingEqualsInMemory(Direction.DOWNWARD);
+	}
+
+	@Test
+	public void testBinaryTreeEqualsInMemory() throws IOException, InterruptedException {
+		assertStreamingEqualsInMemory(Direction.BINARY_TREE);
+	}
+
+	private static void assertStreamingEqualsInMemory(Direction direction) throws IOException, InterruptedException {
+		final float[] input = createInput();
+		final CrossoverInfo crossoverInfo = new CrossoverInfo(direction, 4, Arrays.asList(80.0, 3000.0, 9000.0));
+		final NrMeasurementSettings measurementSettings = new NrMeasurementSettings(30, 75, 0.050, 0.300, 0.200, 0.1, 0.1, 3, false);
+		final NrDynamicsFactory dynamicsFactory = new NrDynamicsFactory.Subtraction(0.0, 0.25);
+		final DefaultTimings timings = new DefaultTimings(crossoverInfo, Arrays.asList(0.025, 0.075), Arrays.asList(0.0015, 0.010), Arrays.asList(0.075, 0.200));
+
+		final float[] expected = input.clone();
+		new MultiBandNoiseFilter(expected, FORMAT, measurementSettings, dynamicsFactory, crossoverInfo, timings).filter();
+
+		for (int blockFrames : BLOCK_FRAMES) {
+			final MemorySink sink = new MemorySink();
+			new StreamingNoiseFilter(FORMAT, FRAMES, measurementSettings, dynamicsFactory, crossoverInfo, timings, blockFrames)
+					.filter(() -> new MemorySource(input), sink);
+			assertEquals(FRAMES, sink.frames);
+			for (int i = 0; i < expected.length; i++) {
+				if (toShort(expected[i]) != toShort(sink.samples[i])) {
+					fail(direction + " in blocks of " + blockFrames + ": sample " + i + " is " + sink.samples[i] + " instead of " + expected[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates noise with a tone in each band that comes and goes, differently
+	 * for each channel.
+	 */
+	static float[] createInput() {
+		final Random random = new Random(1);
+		final double[] frequencies = { 50.0, 440.0, 5000.0, 12000.0 };
+		final float[] samples = new float[FRAMES * CHANNELS];
+		for (int frame = 0; frame < FRAMES; frame++) {
+			final double time = 1.0 * frame / SAMPLE_RATE;
+			for (int channel = 0; channel < CHANNELS; channel++) {
+				double sample = 0.001 * random.nextGaussian();
+				for (int tone = 0; tone < frequencies.length; tone++) {
+					if (((int)(4.0 * time) + tone + channel) % 3 != 0) {
+						sample += 0.1 * Math.sin(2.0 * Math.PI * frequencies[tone] * time);
+					}
+				}
+				samples[frame * CHANNELS + channel] = (float)sample;
+			}
+		}
+		return samples;
+	}
+
+	private static int toShort(float sample) {
+		return (int)Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(32768.0 * sample)));
+	}
+
+	static final class MemorySource implements SoundSource {
+		private final float[] samples;
+		private int position;
+
+		MemorySource(float[] samples) {
+			this.samples = samples;
+		}
+
+		@Override
+		public SoundMetrics getMetrics() {
+			return new SoundMetrics(FORMAT, FRAMES, false);
+		}
+
+		@Override
+		public Object getMetaData() {
+			return null;
+		}
+
+		@Override
+		public long seekFrame(long framePosition, Whence whence) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long readFrames(float[] buffer, int frameCount) throws IOException {
+			final int count = Math.min(frameCount, FRAMES - position / CHANNELS) * CHANNELS;
+			System.arraycopy(samples, position, buffer, 0, count);
+			position += count;
+			return count / CHANNELS;
+		}
+
+		@Override
+		public long readFrames(float[] buffer) throws IOException {
+			return readFrames(buffer, buffer.length / CHANNELS);
+		}
+
+		@Override
+		public long readFrames(double[] buffer) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long readFrames(double[] buffer, int frameCount) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	private static final class MemorySink implements SoundSink {
+		private final float[] samples = new float[FRAMES * CHANNELS];
+		private int frames;
+
+		@Override
+		public SoundMetrics getMetrics() {
+			return new SoundMetrics(FORMAT, frames, false);
+		}
+
+		@Override
+		public Object getMetaData() {
+			return null;
+		}
+
+		@Override
+		public long seekFrame(long framePosition, Whence whence) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long writeFrames(float[] buffer, int frameCount) throws IOException {
+			System.arraycopy(buffer, 0, samples, frames * CHANNELS, frameCount * CHANNELS);
+			frames += frameCount;
+			return frameCount;
+		}
+
+		@Override
+		public long writeFrames(float[] buffer) throws IOException {
+			return writeFrames(buffer, buffer.length / CHANNELS);
+		}
+
+		@Override
+		public long writeFrames(double[] buffer) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long writeFrames(double[] buffer, int frameCount) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
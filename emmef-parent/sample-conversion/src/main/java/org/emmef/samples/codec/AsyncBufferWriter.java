@@ -0,0 +1,132 @@
+package org.emmef.samples.codec;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes filled buffers to a file channel on a background thread, while the
+ * caller fills the next buffer.
+ * <p>
+ * The number of buffers bounds the number of pending writes: when all other
+ * buffers are pending, the caller waits for the oldest write to finish. After
+ * a failed write, the remaining writes are skipped and each following call
+ * throws an exception that has the failure as its cause. After the writer is
+ * closed, each call but {@link #close()} throws an exception.
+ */
+final class AsyncBufferWriter {
+	private final FileChannel channel;
+	private final BlockingQueue<byte[]> free;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+		final Thread thread = new Thread(task, "Frame writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private volatile Exception failure;
+	private volatile boolean closed;
+
+	AsyncBufferWriter(FileChannel channel, int bufferSize, int buffers) {
+		if (buffers < 2) {
+			throw new IllegalArgumentException("Number of buffers must be at least 2");
+		}
+		this.channel = channel;
+		free = new ArrayBlockingQueue<>(buffers);
+		for (int i = 0; i < buffers; i++) {
+			free.add(new byte[bufferSize]);
+		}
+	}
+
+	/**
+	 * Takes a free buffer to fill.
+	 */
+	byte[] take() throws IOException {
+		checkState();
+		try {
+			return free.take();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a free buffer");
+		}
+	}
+
+	/**
+	 * Writes the filled part of a buffer in the background and returns a free
+	 * buffer to fill next.
+	 */
+	byte[] write(byte[] buffer, int length) throws IOException {
+		checkState();
+		executor.execute(() -> {
+			try {
+				if (failure == null) {
+					final ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+					while (bytes.hasRemaining()) {
+						channel.write(bytes);
+					}
+				}
+			}
+			catch (IOException | RuntimeException e) {
+				failure = e;
+			}
+			finally {
+				free.add(buffer);
+			}
+		});
+		return take();
+	}
+
+	/**
+	 * Waits until all pending writes are done.
+	 */
+	void drain() throws IOException {
+		checkState();
+		try {
+			executor.submit(() -> {}).get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for pending writes");
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Waits until all pending writes are done and stops the background thread.
+	 * Does nothing if the writer was already closed.
+	 */
+	void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			drain();
+		}
+		finally {
+			closed = true;
+			executor.shutdown();
+		}
+	}
+
+	private void checkState() throws IOException {
+		if (closed) {
+			throw new IOException("Frame writer closed");
+		}
+		checkFailure();
+	}
+
+	private void checkFailure() throws IOException {
+		final Exception e = failure;
+		if (e != null) {
+			throw new IOException("Writing frames in the background failed", e);
+		}
+	}
+}
@@ -87,9 +87,11 @@ public class FrameReader {
 		
 		synchronized (lock) {
 			while (targetOffset < endOffset) {
-				while (targetOffset < endOffset && position < limit) {
-					target[targetOffset++] = decoder.decodeDouble(buffer, position);
-					position += bytesPerSample;
+				if (position < limit) {
+					final int samples = Math.min(endOffset - targetOffset, (limit - position) / bytesPerSample);
+					decoder.decode(buffer, position, target, targetOffset, samples);
+					targetOffset += samples;
+					position += samples * bytesPerSample;
 				}
 				if (position == limit) {
 					int reads = source.read(buffer);
@@ -131,9 +133,11 @@ public class FrameReader {
 		
 		synchronized (lock) {
 			while (targetOffset < endOffset) {
-				while (targetOffset < endOffset && position < limit) {
-					target[targetOffset++] = decoder.decodeFloat(buffer, position);
-					position += bytesPerSample;
+				if (position < limit) {
+					final int samples = Math.min(endOffset - targetOffset, (limit - position) / bytesPerSample);
+					decoder.decode(buffer, position, target, targetOffset, samples);
+					targetOffset += samples;
+					position += samples * bytesPerSample;
 				}
 				if (position == limit) {
 					int reads = source.read(buffer);
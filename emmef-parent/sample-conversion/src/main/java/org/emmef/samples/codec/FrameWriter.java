@@ -5,6 +5,7 @@ import static org.emmef.utils.Checks.*;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
@@ -12,6 +13,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Writes encoded frames from a sample buffer to an output stream.
+ * <p>
+ * A writer can also write to a file channel asynchronously: full buffers are
+ * then written on a background thread, while samples are encoded into the
+ * next buffer.
  */
 public class FrameWriter {
 	private static final Logger log = LoggerFactory.getLogger(FrameWriter.class);
@@ -19,9 +24,10 @@ public class FrameWriter {
 	private final Object lock;
 	private final int channels;
 	private final OutputStream output;
+	private final AsyncBufferWriter asyncWriter;
 	private final SampleCodec codec;
 	private final int bytesPerSample;
-	private final byte[] buffer;
+	private byte[] buffer;
 	private final int bytesPerFrame;
 	private final AtomicLong framePosition = new AtomicLong();
 	private int position;
@@ -42,6 +48,32 @@ public class FrameWriter {
 		bytesPerSample = codec.bytesPerSample();
 		bytesPerFrame = bytesPerSample * channels;
 		buffer = new byte[codec.getFrameBufferSize(bufferSize, 0, channels)];
+		asyncWriter = null;
+	}
+
+	/**
+	 * Creates a new frame writer that writes full buffers to a file channel on
+	 * a background thread. The caller only waits for the background thread if
+	 * all other buffers are still being written, and on {@link #flush()} and
+	 * {@link #close()}.
+	 * <p>
+	 * The channel should not be written to or repositioned by others unless
+	 * the writer was flushed.
+	 * 
+	 * @param channels number of channels per frame
+	 * @param output channel that will contain serialized data
+	 * @param codec codec that scales and serializes the samples.
+	 * @param buffers number of buffers, at least 2
+	 */
+	public FrameWriter(int channels, FileChannel output, SampleCodec codec, int bufferSize, int buffers, Object lock) throws IOException {
+		this.lock = lock != null ? lock : new Object[0];
+		this.channels = channels;
+		this.output = null;
+		this.codec = checkNotNull(codec, "Sample encoder");
+		bytesPerSample = codec.bytesPerSample();
+		bytesPerFrame = bytesPerSample * channels;
+		asyncWriter = new AsyncBufferWriter(checkNotNull(output, "Output channel cannot be null"), codec.getFrameBufferSize(bufferSize, 0, channels), buffers);
+		buffer = asyncWriter.take();
 	}
 
 	public int getBytesPerFrame() {
@@ -97,12 +129,12 @@ public class FrameWriter {
 		
 		synchronized (lock) {
 			while (sourcePosition < sourceEndPosition) {
-				while (position < buffer.length && sourcePosition < sourceEndPosition) {
-					codec.encodeDouble(source[sourcePosition++], buffer, position);
-					position += bytesPerSample;
-				}
+				final int samples = Math.min(sourceEndPosition - sourcePosition, (buffer.length - position) / bytesPerSample);
+				codec.encode(source, sourcePosition, buffer, position, samples);
+				sourcePosition += samples;
+				position += samples * bytesPerSample;
 				if (position == buffer.length) {
-					unsafeFlush();
+					unsafeWriteBuffer();
 				}
 			}
 		}
@@ -133,12 +165,12 @@ public class FrameWriter {
 		
 		synchronized (lock) {
 			while (sourcePosition < sourceEndPosition) {
-				while (position < buffer.length && sourcePosition < sourceEndPosition) {
-					codec.encodeFloat(source[sourcePosition++], buffer, position);
-					position += bytesPerSample;
-				}
+				final int samples = Math.min(sourceEndPosition - sourcePosition, (buffer.length - position) / bytesPerSample);
+				codec.encode(source, sourcePosition, buffer, position, samples);
+				sourcePosition += samples;
+				position += samples * bytesPerSample;
 				if (position == buffer.length) {
-					unsafeFlush();
+					unsafeWriteBuffer();
 				}
 			}
 		}
@@ -148,6 +180,8 @@ public class FrameWriter {
 	/**
 	 * Flushes al serialized samples in the buffer and updates and returns the
 	 * totalFrame count obtained with {@link #getTotalFrames()}.
+	 * <p>
+	 * When writing asynchronously, this waits until all samples are written.
 	 * 
 	 * @throws IOException
 	 */
@@ -157,6 +191,37 @@ public class FrameWriter {
 		}
 	}
 
+	/**
+	 * Flushes all serialized samples and stops the background thread when
+	 * writing asynchronously. This does not close the output.
+	 * 
+	 * @throws IOException
+	 *             if an IO problem occurred, also if that was while writing
+	 *             in the background. If writing the last buffer failed, a
+	 *             failure to stop the background thread is suppressed by it.
+	 */
+	public void close() throws IOException {
+		synchronized (lock) {
+			if (asyncWriter == null) {
+				unsafeFlush();
+				return;
+			}
+			try {
+				unsafeWriteBuffer();
+			}
+			catch (IOException | RuntimeException e) {
+				try {
+					asyncWriter.close();
+				}
+				catch (IOException | RuntimeException suppressed) {
+					e.addSuppressed(suppressed);
+				}
+				throw e;
+			}
+			asyncWriter.close();
+		}
+	}
+
 	public int getChannels() {
 		return channels;
 	}
@@ -166,14 +231,27 @@ public class FrameWriter {
 	}
 
 	private long unsafeFlush() throws IOException {
+		final long result = unsafeWriteBuffer();
+		if (asyncWriter != null) {
+			asyncWriter.drain();
+		}
+		return result;
+	}
+
+	private long unsafeWriteBuffer() throws IOException {
 		if (position == 0) {
 			log.trace("Flusing(nothing to flush)");
 			return framePosition.get();
 		}
 		int flushCount = position;
 		position = 0;
-		output.write(buffer, 0, flushCount);
-		output.flush();
+		if (asyncWriter != null) {
+			buffer = asyncWriter.write(buffer, flushCount);
+		}
+		else {
+			output.write(buffer, 0, flushCount);
+			output.flush();
+		}
 		long result = framePosition.addAndGet(flushCount / bytesPerFrame);
 		return result;
 	}
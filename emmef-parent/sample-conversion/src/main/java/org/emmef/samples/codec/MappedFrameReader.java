@@ -0,0 +1,275 @@
+package org.emmef.samples.codec;
+
+import static com.google.common.base.Preconditions.*;
+import static org.emmef.utils.Checks.*;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Reads decoded frames from a memory-mapped region of a file into a sample
+ * buffer.
+ * <p>
+ * The region is mapped in windows of whole frames, so regions larger than the
+ * maximum size of a single mapping can be read. Frames can be read
+ * sequentially, like with a {@link FrameReader}, and at any frame position.
+ * The latter does not change the position of sequential reads and can be done
+ * by multiple threads at the same time.
+ * <p>
+ * The codecs decode from byte arrays, so reading is not zero-copy: each slice
+ * of about 16 kilobytes is copied from the mapping into a scratch array before
+ * it is decoded. The slice fits in the processor cache, so the copy is cheap
+ * compared to decoding. The scratch array is allocated once per reader for
+ * sequential reads and once per reader and thread for positional reads.
+ */
+public class MappedFrameReader {
+	private static final int MAXIMUM_WINDOW_SIZE = 1 << 30;
+	private static final int SLICE_SIZE = 16384;
+
+	private final Object lock = new Object[0];
+	private final int channels;
+	private final SampleCodec decoder;
+	private final int bytesPerSample;
+	private final int bytesPerFrame;
+	private final long frameCount;
+	private final int framesPerWindow;
+	private final MappedByteBuffer[] windows;
+	private final byte[] slice;
+	private final ThreadLocal<byte[]> positionalSlice;
+	private long position;
+
+	/**
+	 * Creates a new mapped frame reader. The mapping remains valid after the
+	 * channel is closed.
+	 *
+	 * @param channels
+	 *            number of channels per frame
+	 * @param channel
+	 *            file channel to map the serialized data from
+	 * @param offset
+	 *            offset of the serialized data in the file
+	 * @param maxFrames
+	 *            the maximum number of frames to read. If the file ends
+	 *            before, only the whole frames up to the end of the file are
+	 *            read.
+	 * @param decoder
+	 *            codec that deserializes and scales the samples.
+	 * @throws IOException
+	 *             if the file could not be mapped
+	 */
+	public MappedFrameReader(int channels, FileChannel channel, long offset, long maxFrames, SampleCodec decoder) throws IOException {
+		this(channels, channel, offset, maxFrames, decoder, MAXIMUM_WINDOW_SIZE);
+	}
+
+	MappedFrameReader(int channels, FileChannel channel, long offset, long maxFrames, SampleCodec decoder, int maximumWindowSize) throws IOException {
+		if (channels < 1) {
+			throw new IllegalArgumentException("Number of channels must be at least 1");
+		}
+		if (offset < 0) {
+			throw new IllegalArgumentException("Offset cannot be negative");
+		}
+		if (maxFrames < 0) {
+			throw new IllegalArgumentException("Maximum number of frames cannot be negative");
+		}
+		this.channels = channels;
+		this.decoder = checkNotNull(decoder, "Sample decoder");
+		bytesPerSample = decoder.bytesPerSample();
+		bytesPerFrame = channels * bytesPerSample;
+		if (maximumWindowSize < bytesPerFrame) {
+			throw new IllegalArgumentException("Maximum window size must be at least one frame");
+		}
+
+		frameCount = Math.min(maxFrames, Math.max(0, checkNotNull(channel, "channel").size() - offset) / bytesPerFrame);
+		framesPerWindow = maximumWindowSize / bytesPerFrame;
+		windows = new MappedByteBuffer[(int)((frameCount + framesPerWindow - 1) / framesPerWindow)];
+		for (int i = 0; i < windows.length; i++) {
+			final long firstFrame = (long)i * framesPerWindow;
+			final long frames = Math.min(framesPerWindow, frameCount - firstFrame);
+			windows[i] = channel.map(MapMode.READ_ONLY, offset + firstFrame * bytesPerFrame, frames * bytesPerFrame);
+		}
+		slice = new byte[decoder.getFrameBufferSize(SLICE_SIZE, 0, channels)];
+		positionalSlice = ThreadLocal.withInitial(() -> new byte[slice.length]);
+	}
+
+	/**
+	 * Reads a number of decoded frames at the current position in the target
+	 * buffer and advances the position.
+	 *
+	 * @param target
+	 *            target buffer
+	 * @param offset
+	 *            offset within the target buffer to write to
+	 * @param count
+	 *            the number of frames to read
+	 * @return the actual number of frames read
+	 * @throws IllegalArgumentException
+	 *             if the {@code target} buffer is {@code null} or if the
+	 *             {@code offset} and {@code count} * {@code number-of-channels}
+	 *             exceeds the buffer limit.
+	 */
+	public long read(double[] target, int offset, int count) {
+		checkOffsetAndCount(checkNotNull(target, "target").length, offset, count, channels);
+		synchronized (lock) {
+			final int frames = read(position, target, offset, count, slice);
+			position += frames;
+			return frames;
+		}
+	}
+
+	/**
+	 * Reads a number of decoded frames at the current position in the target
+	 * buffer and advances the position.
+	 *
+	 * @param target
+	 *            target buffer
+	 * @param offset
+	 *            offset within the target buffer to write to
+	 * @param count
+	 *            the number of frames to read
+	 * @return the actual number of frames read
+	 * @throws IllegalArgumentException
+	 *             if the {@code target} buffer is {@code null} or if the
+	 *             {@code offset} and {@code count} * {@code number-of-channels}
+	 *             exceeds the buffer limit.
+	 */
+	public long read(float[] target, int offset, int count) {
+		checkOffsetAndCount(checkNotNull(target, "target").length, offset, count, channels);
+		synchronized (lock) {
+			final int frames = read(position, target, offset, count, slice);
+			position += frames;
+			return frames;
+		}
+	}
+
+	/**
+	 * Reads a number of decoded frames at the given frame position in the
+	 * target buffer, without changing the current position.
+	 *
+	 * @param framePosition
+	 *            position of the first frame to read
+	 * @param target
+	 *            target buffer
+	 * @param offset
+	 *            offset within the target buffer to write to
+	 * @param count
+	 *            the number of frames to read
+	 * @return the actual number of frames read
+	 * @throws IllegalArgumentException
+	 *             if the frame position is not between zero and the number of
+	 *             frames, if the {@code target} buffer is {@code null} or if
+	 *             the {@code offset} and {@code count} *
+	 *             {@code number-of-channels} exceeds the buffer limit.
+	 */
+	public long read(long framePosition, double[] target, int offset, int count) {
+		checkOffsetAndCount(checkNotNull(target, "target").length, offset, count, channels);
+		checkFramePosition(framePosition);
+		return read(framePosition, target, offset, count, positionalSlice.get());
+	}
+
+	/**
+	 * Reads a number of decoded frames at the given frame position in the
+	 * target buffer, without changing the current position.
+	 *
+	 * @param framePosition
+	 *            position of the first frame to read
+	 * @param target
+	 *            target buffer
+	 * @param offset
+	 *            offset within the target buffer to write to
+	 * @param count
+	 *            the number of frames to read
+	 * @return the actual number of frames read
+	 * @throws IllegalArgumentException
+	 *             if the frame position is not between zero and the number of
+	 *             frames, if the {@code target} buffer is {@code null} or if
+	 *             the {@code offset} and {@code count} *
+	 *             {@code number-of-channels} exceeds the buffer limit.
+	 */
+	public long read(long framePosition, float[] target, int offset, int count) {
+		checkOffsetAndCount(checkNotNull(target, "target").length, offset, count, channels);
+		checkFramePosition(framePosition);
+		return read(framePosition, target, offset, count, positionalSlice.get());
+	}
+
+	/**
+	 * Sets the position of the next sequential read.
+	 *
+	 * @param framePosition
+	 *            the new position
+	 * @return the new position
+	 * @throws IllegalArgumentException
+	 *             if the frame position is not between zero and the number of
+	 *             frames
+	 */
+	public long seek(long framePosition) {
+		checkFramePosition(framePosition);
+		synchronized (lock) {
+			position = framePosition;
+			return position;
+		}
+	}
+
+	public long getPosition() {
+		synchronized (lock) {
+			return position;
+		}
+	}
+
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	public int getBytesPerSample() {
+		return bytesPerSample;
+	}
+
+	public int getBytesPerFrame() {
+		return bytesPerFrame;
+	}
+
+	public int getChannels() {
+		return channels;
+	}
+
+	private int read(long framePosition, double[] target, int offset, int count, byte[] slice) {
+		final int frames = (int)Math.min(count, frameCount - framePosition);
+		final int framesPerSlice = slice.length / bytesPerFrame;
+		int targetOffset = offset;
+		for (long frame = framePosition, end = framePosition + frames; frame < end;) {
+			final int window = (int)(frame / framesPerWindow);
+			final int windowFrame = (int)(frame - (long)window * framesPerWindow);
+			final int sliceFrames = (int)Math.min(Math.min(end - frame, framesPerSlice), framesPerWindow - windowFrame);
+			final int samples = sliceFrames * channels;
+			windows[window].get(windowFrame * bytesPerFrame, slice, 0, sliceFrames * bytesPerFrame);
+			decoder.decode(slice, 0, target, targetOffset, samples);
+			targetOffset += samples;
+			frame += sliceFrames;
+		}
+		return frames;
+	}
+
+	private int read(long framePosition, float[] target, int offset, int count, byte[] slice) {
+		final int frames = (int)Math.min(count, frameCount - framePosition);
+		final int framesPerSlice = slice.length / bytesPerFrame;
+		int targetOffset = offset;
+		for (long frame = framePosition, end = framePosition + frames; frame < end;) {
+			final int window = (int)(frame / framesPerWindow);
+			final int windowFrame = (int)(frame - (long)window * framesPerWindow);
+			final int sliceFrames = (int)Math.min(Math.min(end - frame, framesPerSlice), framesPerWindow - windowFrame);
+			final int samples = sliceFrames * channels;
+			windows[window].get(windowFrame * bytesPerFrame, slice, 0, sliceFrames * bytesPerFrame);
+			decoder.decode(slice, 0, target, targetOffset, samples);
+			targetOffset += samples;
+			frame += sliceFrames;
+		}
+		return frames;
+	}
+
+	private void checkFramePosition(long framePosition) {
+		if (framePosition < 0 || framePosition > frameCount) {
+			throw new IllegalArgumentException("Frame position (" + framePosition + ") must be between 0 and " + frameCount);
+		}
+	}
+}
@@ -127,7 +127,109 @@ public interface SampleCodec {
 	 *             sample exceed the buffer size.
 	 */
 	void encodeFloat(float sample, byte[] buffer, int offset);
-	
+
+	/**
+	 * Decodes a number of consecutive samples from the buffer at the given
+	 * offset into the target array.
+	 * <p>
+	 * The result is the same as that of calling
+	 * {@link #decodeDouble(byte[], int)} for each sample. Like that method,
+	 * this method assumes the caller checks the bounds of buffer and target.
+	 *
+	 * @param buffer
+	 *            buffer from which to read serialized data
+	 * @param offset
+	 *            offset inside the buffer of the first sample
+	 * @param target
+	 *            array that receives the decoded samples
+	 * @param targetOffset
+	 *            offset inside the target of the first sample
+	 * @param count
+	 *            number of samples to decode
+	 */
+	default void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+		for (int i = 0, position = offset; i < count; i++, position += bytesPerSample()) {
+			target[targetOffset + i] = decodeDouble(buffer, position);
+		}
+	}
+
+	/**
+	 * Decodes a number of consecutive samples from the buffer at the given
+	 * offset into the target array.
+	 * <p>
+	 * The result is the same as that of calling
+	 * {@link #decodeFloat(byte[], int)} for each sample. Like that method,
+	 * this method assumes the caller checks the bounds of buffer and target.
+	 *
+	 * @param buffer
+	 *            buffer from which to read serialized data
+	 * @param offset
+	 *            offset inside the buffer of the first sample
+	 * @param target
+	 *            array that receives the decoded samples
+	 * @param targetOffset
+	 *            offset inside the target of the first sample
+	 * @param count
+	 *            number of samples to decode
+	 */
+	default void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+		for (int i = 0, position = offset; i < count; i++, position += bytesPerSample()) {
+			target[targetOffset + i] = decodeFloat(buffer, position);
+		}
+	}
+
+	/**
+	 * Encodes a number of consecutive samples from the source array to the
+	 * buffer at the given offset.
+	 * <p>
+	 * The result is the same as that of calling
+	 * {@link #encodeDouble(double, byte[], int)} for each sample. Like that
+	 * method, this method assumes the caller checks the bounds of source and
+	 * buffer.
+	 *
+	 * @param source
+	 *            array with the samples to encode
+	 * @param sourceOffset
+	 *            offset inside the source of the first sample
+	 * @param buffer
+	 *            buffer to write serialized data to
+	 * @param offset
+	 *            offset inside the buffer of the first sample
+	 * @param count
+	 *            number of samples to encode
+	 */
+	default void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+		for (int i = 0, position = offset; i < count; i++, position += bytesPerSample()) {
+			encodeDouble(source[sourceOffset + i], buffer, position);
+		}
+	}
+
+	/**
+	 * Encodes a number of consecutive samples from the source array to the
+	 * buffer at the given offset.
+	 * <p>
+	 * The result is the same as that of calling
+	 * {@link #encodeFloat(float, byte[], int)} for each sample. Like that
+	 * method, this method assumes the caller checks the bounds of source and
+	 * buffer.
+	 *
+	 * @param source
+	 *            array with the samples to encode
+	 * @param sourceOffset
+	 *            offset inside the source of the first sample
+	 * @param buffer
+	 *            buffer to write serialized data to
+	 * @param offset
+	 *            offset inside the buffer of the first sample
+	 * @param count
+	 *            number of samples to encode
+	 */
+	default void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+		for (int i = 0, position = offset; i < count; i++, position += bytesPerSample()) {
+			encodeFloat(source[sourceOffset + i], buffer, position);
+		}
+	}
+
 	/**
 	 * Returns the same or bigger buffer size that contains a full frame.
 	 * <p>
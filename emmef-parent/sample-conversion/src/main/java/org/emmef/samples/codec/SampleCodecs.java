@@ -31,6 +31,34 @@ public enum SampleCodecs implements SampleCodec {
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			encodeDouble(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 1) {
+				target[targetOffset + i] = SCALE_8_TO_DOUBLE * Deserialize.read8(buffer, position);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 1) {
+				target[targetOffset + i] = SCALE_8_TO_FLOAT * Deserialize.read8(buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 1) {
+				Serialize.write08(toScaledByte(source[sourceOffset + i]), buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 1) {
+				Serialize.write08(toScaledByte(source[sourceOffset + i]), buffer, position);
+			}
+		}
 	},
 	UNSIGNED_8() {
 		@Override
@@ -57,6 +85,34 @@ public enum SampleCodecs implements SampleCodec {
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			encodeDouble(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 1) {
+				target[targetOffset + i] = SCALE_8_TO_DOUBLE * (-128 + (0xff & Deserialize.read8(buffer, position)));
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 1) {
+				target[targetOffset + i] = SCALE_8_TO_FLOAT * (-128 + (0xff & Deserialize.read8(buffer, position)));
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 1) {
+				Serialize.write08(toScaled128UpByte(source[sourceOffset + i]), buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 1) {
+				Serialize.write08(toScaled128UpByte(source[sourceOffset + i]), buffer, position);
+			}
+		}
 	},
 	SIGNED_16() {
 		@Override
@@ -83,6 +139,35 @@ public enum SampleCodecs implements SampleCodec {
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			encodeDouble(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 2) {
+				target[targetOffset + i] = SCALE_16_TO_DOUBLE * Deserialize.read16LittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 2) {
+				target[targetOffset + i] = SCALE_16_TO_FLOAT * Deserialize.read16LittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 2) {
+				Serialize.write16LittleEndian(toScaledShort(source[sourceOffset + i]), buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			final int converted = SampleKernels.encode16(source, sourceOffset, buffer, offset, count);
+			for (int i = converted, position = offset + 2 * converted; i < count; i++, position += 2) {
+				Serialize.write16LittleEndian(toScaledShort(source[sourceOffset + i]), buffer, position);
+			}
+		}
 	},
 	PACKED_24() {
 		@Override
@@ -109,16 +194,70 @@ public enum SampleCodecs implements SampleCodec {
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			encodeDouble(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			// Each sample but the last is followed by a byte of the next sample
+			final int last = count - 1;
+			int position = offset;
+			for (int i = 0; i < last; i++, position += 3) {
+				target[targetOffset + i] = SCALE_24_TO_DOUBLE * (Deserialize.read32LittleEndian(buffer, position) << 8 >> 8);
+			}
+			if (count > 0) {
+				target[targetOffset + last] = SCALE_24_TO_DOUBLE * Deserialize.read24LittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			final int converted = SampleKernels.decode24(buffer, offset, target, targetOffset, count);
+			// Each sample but the last is followed by a byte of the next sample
+			final int last = count - 1;
+			int position = offset + 3 * converted;
+			for (int i = converted; i < last; i++, position += 3) {
+				target[targetOffset + i] = SCALE_24_TO_FLOAT * (Deserialize.read32LittleEndian(buffer, position) << 8 >> 8);
+			}
+			if (converted < count) {
+				target[targetOffset + last] = SCALE_24_TO_FLOAT * Deserialize.read24LittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			// The fourth byte of each word is overwritten by the next sample
+			final int last = count - 1;
+			int position = offset;
+			for (int i = 0; i < last; i++, position += 3) {
+				Serialize.write32LittleEndian(toScaled24Bit(source[sourceOffset + i]), buffer, position);
+			}
+			if (count > 0) {
+				Serialize.write24LittleEndian(toScaled24Bit(source[sourceOffset + last]), buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			final int converted = SampleKernels.encode24(source, sourceOffset, buffer, offset, count);
+			// The fourth byte of each word is overwritten by the next sample
+			final int last = count - 1;
+			int position = offset + 3 * converted;
+			for (int i = converted; i < last; i++, position += 3) {
+				Serialize.write32LittleEndian(toScaled24Bit(source[sourceOffset + i]), buffer, position);
+			}
+			if (converted < count) {
+				Serialize.write24LittleEndian(toScaled24Bit(source[sourceOffset + last]), buffer, position);
+			}
+		}
 	},
 	PRE_PADDED_24() {
 		@Override
 		public double decodeDouble(byte[] buffer, int offset) {
-			return SCALE_24_TO_DOUBLE * Deserialize.read24LittleEndian(buffer, offset + 1);
+			return SCALE_24_TO_DOUBLE * (Deserialize.read32LittleEndian(buffer, offset) >> 8);
 		}
 
 		@Override
 		public float decodeFloat(byte[] buffer, int offset) {
-			return SCALE_24_TO_FLOAT * Deserialize.read24LittleEndian(buffer, offset + 1);
+			return SCALE_24_TO_FLOAT * (Deserialize.read32LittleEndian(buffer, offset) >> 8);
 		}
 
 		@Override
@@ -128,24 +267,51 @@ public enum SampleCodecs implements SampleCodec {
 
 		@Override
 		public void encodeDouble(double sample, byte[] buffer, int offset) {
-			Serialize.write08(0, buffer, offset);
-			Serialize.write24LittleEndian(toScaled24Bit(sample), buffer, offset + 1);
+			Serialize.write32LittleEndian(toScaled24Bit(sample) << 8, buffer, offset);
 		}
 
 		@Override
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			encodeDouble(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = SCALE_24_TO_DOUBLE * (Deserialize.read32LittleEndian(buffer, position) >> 8);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = SCALE_24_TO_FLOAT * (Deserialize.read32LittleEndian(buffer, position) >> 8);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.write32LittleEndian(toScaled24Bit(source[sourceOffset + i]) << 8, buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.write32LittleEndian(toScaled24Bit(source[sourceOffset + i]) << 8, buffer, position);
+			}
+		}
 	},
 	POST_PADDED_24() {
 		@Override
 		public double decodeDouble(byte[] buffer, int offset) {
-			return SCALE_24_TO_DOUBLE * Deserialize.read24LittleEndian(buffer, offset);
+			return SCALE_24_TO_DOUBLE * (Deserialize.read32LittleEndian(buffer, offset) << 8 >> 8);
 		}
 
 		@Override
 		public float decodeFloat(byte[] buffer, int offset) {
-			return SCALE_24_TO_FLOAT * Deserialize.read24LittleEndian(buffer, offset);
+			return SCALE_24_TO_FLOAT * (Deserialize.read32LittleEndian(buffer, offset) << 8 >> 8);
 		}
 
 		@Override
@@ -155,15 +321,41 @@ public enum SampleCodecs implements SampleCodec {
 
 		@Override
 		public void encodeDouble(double sample, byte[] buffer, int offset) {
-			Serialize.write24LittleEndian(toScaled24Bit(sample), buffer, offset);
-			Serialize.write08(0, buffer, offset + 3);
-			
+			Serialize.write32LittleEndian(toScaled24Bit(sample) & 0xffffff, buffer, offset);
 		}
 
 		@Override
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			encodeDouble(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = SCALE_24_TO_DOUBLE * (Deserialize.read32LittleEndian(buffer, position) << 8 >> 8);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = SCALE_24_TO_FLOAT * (Deserialize.read32LittleEndian(buffer, position) << 8 >> 8);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.write32LittleEndian(toScaled24Bit(source[sourceOffset + i]) & 0xffffff, buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.write32LittleEndian(toScaled24Bit(source[sourceOffset + i]) & 0xffffff, buffer, position);
+			}
+		}
 	},
 	SIGNED_32() {
 		@Override
@@ -190,6 +382,34 @@ public enum SampleCodecs implements SampleCodec {
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			encodeDouble(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = SCALE_32_TO_DOUBLE * Deserialize.read32LittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = SCALE_32_TO_FLOAT * Deserialize.read32LittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.write32LittleEndian(toScaledInteger(source[sourceOffset + i]), buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.write32LittleEndian(toScaledInteger(source[sourceOffset + i]), buffer, position);
+			}
+		}
 	},
 	SIGNED_64() {
 		@Override
@@ -216,6 +436,34 @@ public enum SampleCodecs implements SampleCodec {
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			encodeDouble(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 8) {
+				target[targetOffset + i] = SCALE_64_TO_DOUBLE * Deserialize.read64LittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 8) {
+				target[targetOffset + i] = SCALE_64_TO_FLOAT * Deserialize.read64LittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 8) {
+				Serialize.write64LittleEndian(toScaledLong(source[sourceOffset + i]), buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 8) {
+				Serialize.write64LittleEndian(toScaledLong(source[sourceOffset + i]), buffer, position);
+			}
+		}
 	},
 	FLOAT() {
 		@Override
@@ -242,6 +490,34 @@ public enum SampleCodecs implements SampleCodec {
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			Serialize.writeFloatLittleEndian(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = Deserialize.readFloatLittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = Deserialize.readFloatLittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.writeFloatLittleEndian((float)source[sourceOffset + i], buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.writeFloatLittleEndian(source[sourceOffset + i], buffer, position);
+			}
+		}
 		
 		@Override
 		public Scheme getScheme() {
@@ -273,6 +549,34 @@ public enum SampleCodecs implements SampleCodec {
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			Serialize.writeFloatLittleEndian(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = SCALE_24_TO_DOUBLE * Deserialize.readFloatLittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				target[targetOffset + i] = SCALE_24_TO_FLOAT * Deserialize.readFloatLittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.writeFloatLittleEndian((float)source[sourceOffset + i], buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 4) {
+				Serialize.writeFloatLittleEndian(source[sourceOffset + i], buffer, position);
+			}
+		}
 		
 		@Override
 		public Scheme getScheme() {
@@ -304,6 +608,34 @@ public enum SampleCodecs implements SampleCodec {
 		public void encodeFloat(float sample, byte[] buffer, int offset) {
 			Serialize.writeDoubleLittleEndian(sample, buffer, offset);
 		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, double[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 8) {
+				target[targetOffset + i] = Deserialize.readDoubleLittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void decode(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 8) {
+				target[targetOffset + i] = (float)Deserialize.readDoubleLittleEndian(buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(double[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 8) {
+				Serialize.writeDoubleLittleEndian(source[sourceOffset + i], buffer, position);
+			}
+		}
+
+		@Override
+		public void encode(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+			for (int i = 0, position = offset; i < count; i++, position += 8) {
+				Serialize.writeDoubleLittleEndian(source[sourceOffset + i], buffer, position);
+			}
+		}
 		
 		@Override
 		public Scheme getScheme() {
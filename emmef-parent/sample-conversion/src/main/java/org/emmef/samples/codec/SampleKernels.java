@@ -0,0 +1,37 @@
+package org.emmef.samples.codec;
+
+/**
+ * Converts the leading part of a run of 24-bit samples to floats, or of floats
+ * to 16 or 24-bit samples, with vector instructions, if the
+ * {@code jdk.incubator.vector} module is available, for example by starting
+ * the JVM with {@code --add-modules jdk.incubator.vector}. Each method returns
+ * the number of samples it converted, which is zero without vector
+ * instructions; the caller converts the remaining samples one by one. Both
+ * give the same results.
+ * <p>
+ * Decoding 16-bit samples is left to the caller, as the compiler already
+ * vectorizes that loop.
+ */
+final class SampleKernels {
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+	private static final boolean VECTORIZED = ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent() && VectorSampleKernels.isEffective();
+
+	private SampleKernels() {
+	}
+
+	static boolean isVectorized() {
+		return VECTORIZED;
+	}
+
+	static int decode24(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+		return VECTORIZED ? VectorSampleKernels.decode24(buffer, offset, target, targetOffset, count) : 0;
+	}
+
+	static int encode16(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+		return VECTORIZED ? VectorSampleKernels.encode16(source, sourceOffset, buffer, offset, count) : 0;
+	}
+
+	static int encode24(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+		return VECTORIZED ? VectorSampleKernels.encode24(source, sourceOffset, buffer, offset, count) : 0;
+	}
+}
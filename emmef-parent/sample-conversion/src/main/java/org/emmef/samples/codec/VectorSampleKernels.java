@@ -0,0 +1,121 @@
+package org.emmef.samples.codec;
+
+import static org.emmef.samples.codec.SampleScales.*;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Converts 24-bit little-endian samples to floats, and floats to 16 and 24-bit
+ * little-endian samples, with vector instructions. This class is only loaded
+ * if the {@code jdk.incubator.vector} module is available.
+ * <p>
+ * A vector of bytes is rearranged so that each sample ends up in the high bytes
+ * of an int lane, and an arithmetic shift then extends its sign. Encoding packs
+ * the low bytes of each int lane the other way around. Each step loads or
+ * stores a whole vector of bytes, of which only the part with whole samples is
+ * used; steps are only taken while that vector lies within the run of samples,
+ * and the caller converts the remaining samples.
+ */
+final class VectorSampleKernels {
+	// vector operations are only compiled to vector instructions for a constant species
+	private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+	private static final int LANES = IntVector.SPECIES_PREFERRED.length();
+	private static final int WIDTH = BYTES.length();
+
+	private static final VectorShuffle<Byte> UNPACK_24 = unpack(3);
+	private static final VectorShuffle<Byte> PACK_16 = pack(2);
+	private static final VectorShuffle<Byte> PACK_24 = pack(3);
+
+	/**
+	 * Adding and subtracting this value with the sign of a float whose
+	 * magnitude is at most this value, rounds it to the nearest integer, with
+	 * ties to even, like {@link Math#rint(double)}.
+	 */
+	private static final float ROUNDING = 0x1p23f;
+
+	private VectorSampleKernels() {
+	}
+
+	/**
+	 * Returns whether vectors are wide enough to be faster than converting
+	 * samples one by one.
+	 */
+	static boolean isEffective() {
+		return LANES >= 4 && WIDTH == 4 * LANES && FLOATS.length() == LANES;
+	}
+
+	static int decode24(byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+		return decode(UNPACK_24, 3, SCALE_24_TO_FLOAT, buffer, offset, target, targetOffset, count);
+	}
+
+	static int encode16(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+		return encode(PACK_16, 2, SCALE_16_FROM_FLOAT, Short.MIN_VALUE, Short.MAX_VALUE, source, sourceOffset, buffer, offset, count);
+	}
+
+	static int encode24(float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+		return encode(PACK_24, 3, SCALE_24_FROM_FLOAT, MIN_VALUE_24_BIT, MAX_VALUE_24_BIT, source, sourceOffset, buffer, offset, count);
+	}
+
+	private static int decode(VectorShuffle<Byte> unpack, int bytesPerSample, float scale, byte[] buffer, int offset, float[] target, int targetOffset, int count) {
+		final int shift = 32 - 8 * bytesPerSample;
+		final int step = LANES * bytesPerSample;
+		final int lastPosition = offset + count * bytesPerSample - WIDTH;
+		int samples = 0;
+		for (int position = offset; position <= lastPosition; position += step, samples += LANES) {
+			final IntVector words = ByteVector.fromArray(BYTES, buffer, position).rearrange(unpack).reinterpretAsInts();
+			final FloatVector values = (FloatVector)words.lanewise(VectorOperators.ASHR, shift).convert(VectorOperators.I2F, 0);
+			values.mul(scale).intoArray(target, targetOffset + samples);
+		}
+		return samples;
+	}
+
+	private static int encode(VectorShuffle<Byte> pack, int bytesPerSample, float scale, float minimum, float maximum, float[] source, int sourceOffset, byte[] buffer, int offset, int count) {
+		final int step = LANES * bytesPerSample;
+		final int lastPosition = offset + count * bytesPerSample - WIDTH;
+		final FloatVector roundUp = FloatVector.broadcast(FLOATS, ROUNDING);
+		final FloatVector roundDown = FloatVector.broadcast(FLOATS, -ROUNDING);
+		int samples = 0;
+		for (int position = offset; position <= lastPosition; position += step, samples += LANES) {
+			// clamping first is the same as clamping the rounded value, as the limits are integers
+			final FloatVector scaled = FloatVector.fromArray(FLOATS, source, sourceOffset + samples).mul(scale).max(minimum).min(maximum);
+			final FloatVector rounding = roundUp.blend(roundDown, scaled.compare(VectorOperators.LT, 0.0f));
+			final IntVector words = (IntVector)scaled.add(rounding).sub(rounding).convert(VectorOperators.F2I, 0);
+			// bytes after the packed samples are overwritten by the next samples
+			words.reinterpretAsBytes().rearrange(pack).intoArray(buffer, position);
+		}
+		return samples;
+	}
+
+	/**
+	 * Returns a shuffle that moves the bytes of each sample to the high bytes
+	 * of an int lane. The low bytes are ignored.
+	 */
+	private static VectorShuffle<Byte> unpack(int bytesPerSample) {
+		final int[] indexes = new int[WIDTH];
+		for (int lane = 0; lane < WIDTH / 4; lane++) {
+			for (int i = 0; i < 4; i++) {
+				final int sampleByte = i - (4 - bytesPerSample);
+				indexes[4 * lane + i] = bytesPerSample * lane + Math.max(0, sampleByte);
+			}
+		}
+		return VectorShuffle.fromArray(BYTES, indexes, 0);
+	}
+
+	/**
+	 * Returns a shuffle that moves the low bytes of each int lane to
+	 * consecutive samples.
+	 */
+	private static VectorShuffle<Byte> pack(int bytesPerSample) {
+		final int[] indexes = new int[WIDTH];
+		for (int i = 0; i < bytesPerSample * (WIDTH / 4); i++) {
+			indexes[i] = 4 * (i / bytesPerSample) + i % bytesPerSample;
+		}
+		return VectorShuffle.fromArray(BYTES, indexes, 0);
+	}
+}
@@ -0,0 +1,149 @@
+package org.emmef.samples.codec;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that a {@link FrameWriter} that writes asynchronously produces the
+ * same output as one that writes synchronously, and that it reports failures
+ * of the background thread.
+ */
+public class FrameWriterTest {
+	private static final int CHANNELS = 2;
+	private static final int FRAMES = 10000;
+	private static final SampleCodec CODEC = SampleCodecs.PACKED_24;
+	private static final int BUFFER_SIZE = 1000;
+
+	private File file;
+	private float[] samples;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("frames", ".raw");
+		samples = new float[FRAMES * CHANNELS];
+		final Random random = new Random(1);
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = 2.0f * random.nextFloat() - 1.0f;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void testAsynchronousEqualsSynchronous() throws IOException {
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		write(new FrameWriter(CHANNELS, expected, CODEC, BUFFER_SIZE, null));
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			final FrameWriter writer = new FrameWriter(CHANNELS, channel, CODEC, BUFFER_SIZE, 3, null);
+			write(writer);
+			assertEquals(FRAMES, writer.getFramePosition());
+		}
+		assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file.toPath()));
+	}
+
+	@Test
+	public void testFlushWaitsForPendingWrites() throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			final FrameWriter writer = new FrameWriter(CHANNELS, channel, CODEC, BUFFER_SIZE, 2, null);
+			writer.writeFrame(samples, 0, FRAMES);
+			assertEquals(FRAMES, writer.flush());
+			assertEquals((long)FRAMES * writer.getBytesPerFrame(), channel.size());
+			writer.close();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testBackgroundFailureReportedOnClose() throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final FrameWriter writer = new FrameWriter(CHANNELS, channel, CODEC, BUFFER_SIZE, 2, null);
+			try {
+				writer.writeFrame(samples, 0, 10);
+			}
+			finally {
+				writer.close();
+			}
+		}
+	}
+
+	@Test
+	public void testFailedLastBufferNotHiddenOnClose() throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final FrameWriter writer = new FrameWriter(CHANNELS, channel, CODEC, BUFFER_SIZE, 2, null);
+			writer.writeFrame(samples, 0, 10);
+			try {
+				writer.flush();
+				fail("Flushing after a failed background write should fail");
+			}
+			catch (IOException e) {
+				// expected
+			}
+			writer.writeFrame(samples, 0, 10);
+			try {
+				writer.close();
+				fail("Closing after a failed background write should fail");
+			}
+			catch (IOException e) {
+				// writing the last buffer failed, stopping the background thread as well
+				assertEquals(1, e.getSuppressed().length);
+				assertTrue(e.getSuppressed()[0] instanceof IOException);
+			}
+			// the background thread was stopped nevertheless
+			writer.close();
+		}
+	}
+
+	@Test
+	public void testCloseTwiceAndWriteAfterClose() throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			final FrameWriter writer = new FrameWriter(CHANNELS, channel, CODEC, BUFFER_SIZE, 2, null);
+			writer.writeFrame(samples, 0, 10);
+			writer.close();
+			writer.close();
+			try {
+				writer.writeFrame(samples, 0, FRAMES);
+				fail("Writing after close should fail");
+			}
+			catch (IOException e) {
+				// expected
+			}
+			try {
+				writer.flush();
+				fail("Flushing after close should fail");
+			}
+			catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAtLeastTwoBuffers() throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			new FrameWriter(CHANNELS, channel, CODEC, BUFFER_SIZE, 1, null);
+		}
+	}
+
+	private void write(FrameWriter writer) throws IOException {
+		for (int frames = 0, count = 1; frames < FRAMES; count += 97) {
+			final int written = Math.min(count, FRAMES - frames);
+			writer.writeFrame(samples, frames * CHANNELS, written);
+			frames += written;
+		}
+		writer.close();
+	}
+}
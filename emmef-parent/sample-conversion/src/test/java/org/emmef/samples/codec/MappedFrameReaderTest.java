@@ -0,0 +1,146 @@
+package org.emmef.samples.codec;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that a {@link MappedFrameReader} reads the same frames as a
+ * {@link FrameReader}, sequentially and at any position, also if the data is
+ * mapped in multiple windows and read by multiple threads.
+ */
+public class MappedFrameReaderTest {
+	private static final int CHANNELS = 2;
+	private static final int FRAMES = 10000;
+	private static final int HEADER = 45;
+	private static final SampleCodec CODEC = SampleCodecs.PACKED_24;
+	private static final int BYTES_PER_FRAME = CHANNELS * CODEC.bytesPerSample();
+	// a window size that is not a multiple of the frame size
+	private static final int WINDOW = 1000 * BYTES_PER_FRAME + 5;
+
+	private File file;
+	private byte[] data;
+	private float[] expected;
+
+	@Before
+	public void setUp() throws IOException {
+		data = new byte[FRAMES * BYTES_PER_FRAME];
+		new Random(1).nextBytes(data);
+		final byte[] content = new byte[HEADER + data.length];
+		System.arraycopy(data, 0, content, HEADER, data.length);
+		file = File.createTempFile("mapped", ".raw");
+		Files.write(file.toPath(), content);
+
+		expected = new float[FRAMES * CHANNELS];
+		final FrameReader reader = new FrameReader(CHANNELS, 4096, new ByteArrayInputStream(data), FRAMES, CODEC);
+		assertEquals(FRAMES, reader.read(expected, 0, FRAMES));
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void testSequentialReadsEqualFrameReader() throws IOException {
+		final MappedFrameReader reader = createReader(FRAMES);
+		final float[] actual = new float[FRAMES * CHANNELS];
+		int frames = 0;
+		for (int count = 1; frames < FRAMES; count += 97) {
+			frames += reader.read(actual, frames * CHANNELS, Math.min(count, FRAMES - frames));
+		}
+		assertEquals(FRAMES, reader.getPosition());
+		assertEquals(0, reader.read(actual, 0, 1));
+		assertArrayEquals(expected, actual, 0.0f);
+	}
+
+	@Test
+	public void testPositionalReadsEqualFrameReader() throws IOException {
+		final MappedFrameReader reader = createReader(FRAMES);
+		final Random random = new Random(2);
+		for (int i = 0; i < 100; i++) {
+			final int position = random.nextInt(FRAMES);
+			final int count = random.nextInt(3 * WINDOW / BYTES_PER_FRAME);
+			final double[] actual = new double[count * CHANNELS];
+			final int frames = (int)reader.read(position, actual, 0, count);
+			assertEquals(Math.min(count, FRAMES - position), frames);
+			for (int sample = 0; sample < frames * CHANNELS; sample++) {
+				assertEquals(expected[position * CHANNELS + sample], actual[sample], 0.0);
+			}
+		}
+		assertEquals(0, reader.getPosition());
+	}
+
+	@Test
+	public void testConcurrentPositionalReadsEqualFrameReader() throws Exception {
+		final MappedFrameReader reader = createReader(FRAMES);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<?>> results = new ArrayList<>();
+			for (int thread = 0; thread < 4; thread++) {
+				final Random random = new Random(10 + thread);
+				results.add(executor.submit(() -> {
+					for (int i = 0; i < 200; i++) {
+						final int position = random.nextInt(FRAMES);
+						final int count = random.nextInt(2 * WINDOW / BYTES_PER_FRAME);
+						final float[] actual = new float[count * CHANNELS];
+						final int frames = (int)reader.read(position, actual, 0, count);
+						assertEquals(Math.min(count, FRAMES - position), frames);
+						for (int sample = 0; sample < frames * CHANNELS; sample++) {
+							assertEquals(expected[position * CHANNELS + sample], actual[sample], 0.0f);
+						}
+					}
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSeek() throws IOException {
+		final MappedFrameReader reader = createReader(FRAMES);
+		final float[] actual = new float[CHANNELS];
+		assertEquals(1234, reader.seek(1234));
+		assertEquals(1, reader.read(actual, 0, 1));
+		assertEquals(expected[1234 * CHANNELS], actual[0], 0.0f);
+		assertEquals(1235, reader.getPosition());
+		assertEquals(FRAMES, reader.seek(FRAMES));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSeekBeyondEnd() throws IOException {
+		createReader(FRAMES).seek(FRAMES + 1);
+	}
+
+	@Test
+	public void testFramesLimitedToMaximumAndFile() throws IOException {
+		assertEquals(100, createReader(100).getFrameCount());
+		assertEquals(FRAMES, createReader(FRAMES + 100).getFrameCount());
+	}
+
+	private MappedFrameReader createReader(long maxFrames) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new MappedFrameReader(CHANNELS, channel, HEADER, maxFrames, CODEC, WINDOW);
+		}
+	}
+}
@@ -3,6 +3,7 @@ package org.emmef.samples.codec;
 import static org.junit.Assert.*;
 
 import java.nio.BufferUnderflowException;
+import java.util.Arrays;
 
 import org.emmef.samples.codec.SampleCodec.Scheme;
 import org.junit.Test;
@@ -60,6 +61,80 @@ public class SampleCodecsTest {
 		}
 	}
 
+	@Test
+	public void testBulkMethodsEqualSingleSampleMethods() {
+		final int count = 101;
+		final int sampleOffset = 3;
+		final double[] doubles = new double[sampleOffset + count];
+		final float[] floats = new float[sampleOffset + count];
+		for (int i = 0; i < count; i++) {
+			doubles[sampleOffset + i] = 2.5 * (i - count / 2) / count;
+			floats[sampleOffset + i] = (float)doubles[sampleOffset + i];
+		}
+		for (SampleCodec codec : SampleCodecs.values()) {
+			final int bytesPerSample = codec.bytesPerSample();
+			final int byteOffset = 5;
+			final byte[] single = new byte[byteOffset + count * bytesPerSample + 2];
+			final byte[] bulk = new byte[single.length];
+			// Bytes around the samples must be left alone
+			Arrays.fill(single, (byte)0x55);
+			Arrays.fill(bulk, (byte)0x55);
+
+			for (int i = 0; i < count; i++) {
+				codec.encodeDouble(doubles[sampleOffset + i], single, byteOffset + i * bytesPerSample);
+			}
+			codec.encode(doubles, sampleOffset, bulk, byteOffset, count);
+			assertArrayEquals(codec + ": encode doubles", single, bulk);
+
+			for (int i = 0; i < count; i++) {
+				codec.encodeFloat(floats[sampleOffset + i], single, byteOffset + i * bytesPerSample);
+			}
+			codec.encode(floats, sampleOffset, bulk, byteOffset, count);
+			assertArrayEquals(codec + ": encode floats", single, bulk);
+
+			final double[] decodedDoubles = new double[sampleOffset + count];
+			final float[] decodedFloats = new float[sampleOffset + count];
+			codec.decode(bulk, byteOffset, decodedDoubles, sampleOffset, count);
+			codec.decode(bulk, byteOffset, decodedFloats, sampleOffset, count);
+			for (int i = 0; i < count; i++) {
+				final int position = byteOffset + i * bytesPerSample;
+				assertEquals(codec + ": decode double " + i, codec.decodeDouble(bulk, position), decodedDoubles[sampleOffset + i], 0.0);
+				assertEquals(codec + ": decode float " + i, codec.decodeFloat(bulk, position), decodedFloats[sampleOffset + i], 0.0f);
+			}
+		}
+	}
+
+	@Test
+	public void testBulkFloatsEqualSingleSamplesForAnyRunLength() {
+		final float[] specials = {
+				Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, -0.0f, 1.0f, -1.0f, 1e20f, -1e20f,
+				0.5f / 32768, 1.5f / 32768, -2.5f / 32768, 0.5f / 8388608, 1.5f / 8388608, -2.5f / 8388608,
+				32767.5f / 32768, -32768.5f / 32768, 8388607.5f / 8388608, -8388608.5f / 8388608 };
+		for (SampleCodec codec : new SampleCodec[] { SampleCodecs.SIGNED_16, SampleCodecs.PACKED_24 }) {
+			final int bytesPerSample = codec.bytesPerSample();
+			for (int count = 0; count <= 70; count++) {
+				final float[] samples = new float[count + 1];
+				for (int i = 0; i < count; i++) {
+					samples[i + 1] = i < specials.length ? specials[(i + count) % specials.length] : (float)Math.sin(i * count);
+				}
+				final byte[] single = new byte[1 + count * bytesPerSample + 4];
+				final byte[] bulk = new byte[single.length];
+				Arrays.fill(single, (byte)0x55);
+				Arrays.fill(bulk, (byte)0x55);
+				for (int i = 0; i < count; i++) {
+					codec.encodeFloat(samples[i + 1], single, 1 + i * bytesPerSample);
+				}
+				codec.encode(samples, 1, bulk, 1, count);
+				assertArrayEquals(codec + ": encode " + count + " floats", single, bulk);
+
+				final float[] decoded = new float[count + 1];
+				codec.decode(bulk, 1, decoded, 1, count);
+				for (int i = 0; i < count; i++) {
+					assertEquals(codec + ": decode float " + i + " of " + count, codec.decodeFloat(bulk, 1 + i * bytesPerSample), decoded[i + 1], 0.0f);
+				}
+			}
+		}
+	}
 
 	private void testIdempotencyFor(CodecHelper helper) {
 		StringBuilder message = new StringBuilder();
@@ -0,0 +1,29 @@
+package org.emmef.samples.serialization;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Views on byte arrays that read and write wider primitives at any offset in
+ * a single access, in either byte order.
+ */
+final class ByteArrayViews {
+	static final VarHandle SHORT_LITTLE_ENDIAN = view(short[].class, ByteOrder.LITTLE_ENDIAN);
+	static final VarHandle SHORT_BIG_ENDIAN = view(short[].class, ByteOrder.BIG_ENDIAN);
+	static final VarHandle INT_LITTLE_ENDIAN = view(int[].class, ByteOrder.LITTLE_ENDIAN);
+	static final VarHandle INT_BIG_ENDIAN = view(int[].class, ByteOrder.BIG_ENDIAN);
+	static final VarHandle LONG_LITTLE_ENDIAN = view(long[].class, ByteOrder.LITTLE_ENDIAN);
+	static final VarHandle LONG_BIG_ENDIAN = view(long[].class, ByteOrder.BIG_ENDIAN);
+	static final VarHandle FLOAT_LITTLE_ENDIAN = view(float[].class, ByteOrder.LITTLE_ENDIAN);
+	static final VarHandle FLOAT_BIG_ENDIAN = view(float[].class, ByteOrder.BIG_ENDIAN);
+	static final VarHandle DOUBLE_LITTLE_ENDIAN = view(double[].class, ByteOrder.LITTLE_ENDIAN);
+	static final VarHandle DOUBLE_BIG_ENDIAN = view(double[].class, ByteOrder.BIG_ENDIAN);
+
+	private static VarHandle view(Class<?> arrayType, ByteOrder order) {
+		return MethodHandles.byteArrayViewVarHandle(arrayType, order).withInvokeExactBehavior();
+	}
+
+	private ByteArrayViews() {
+	}
+}
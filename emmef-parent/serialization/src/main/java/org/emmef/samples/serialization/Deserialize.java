@@ -1,9 +1,18 @@
 package org.emmef.samples.serialization;
 
+import static org.emmef.samples.serialization.ByteArrayViews.*;
+
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * Reads integers and floating point values from streams or byte arrays.
+ * <p>
+ * Values are read from byte arrays with a single access per value. 24-bit
+ * values are read as part of a 32-bit word that also contains the byte before
+ * or after the value, whichever is inside the array.
+ */
 public class Deserialize {
 	
 	public static int read8(InputStream stream) throws IOException {
@@ -79,69 +88,63 @@ public class Deserialize {
 	}
 	
 	public static int read16LittleEndian(byte[] buffer, int offset) {
-		return 0xff & buffer[offset] | buffer[offset + 1] << 24 >> 16;
+		return (short)SHORT_LITTLE_ENDIAN.get(buffer, offset);
 	}
 
 	public static int read16BigEndian(byte[] buffer, int offset) {
-		return buffer[offset] << 24 >> 16 | 0xff & buffer[offset + 1];
+		return (short)SHORT_BIG_ENDIAN.get(buffer, offset);
 	}
 	
 	public static int read24LittleEndian(byte[] buffer, int offset) {
+		if (offset <= buffer.length - 4) {
+			return (int)INT_LITTLE_ENDIAN.get(buffer, offset) << 8 >> 8;
+		}
+		if (offset > 0) {
+			return (int)INT_LITTLE_ENDIAN.get(buffer, offset - 1) >> 8;
+		}
 		return 0xff & buffer[offset] | (0xff & buffer[offset + 1]) << 8 | buffer[offset + 2] << 24 >> 8;
 	}
 
 	public static int read24BigEndian(byte[] buffer, int offset) {
+		if (offset <= buffer.length - 4) {
+			return (int)INT_BIG_ENDIAN.get(buffer, offset) >> 8;
+		}
+		if (offset > 0) {
+			return (int)INT_BIG_ENDIAN.get(buffer, offset - 1) << 8 >> 8;
+		}
 		return buffer[offset] << 24 >> 8 | (0xff & buffer[offset + 1]) << 8 | 0xff & buffer[offset + 2];
 	}
 	
 	public static int read32LittleEndian(byte[] buffer, int offset) {
-		return 0xff & buffer[offset] | (0xff & buffer[offset + 1]) << 8 | (0xff & buffer[offset + 2]) << 16 | buffer[offset + 3] << 24;
+		return (int)INT_LITTLE_ENDIAN.get(buffer, offset);
 	}
 	
 	public static int read32BigEndian(byte[] buffer, int offset) {
-		return buffer[offset] << 24 | (0xff & buffer[offset + 1]) << 16 | (0xff & buffer[offset + 2]) << 8 | 0xff & buffer[offset + 3];
+		return (int)INT_BIG_ENDIAN.get(buffer, offset);
 	}
 	
 	public static float readFloatLittleEndian(byte[] buffer, int offset) {
-		return Float.intBitsToFloat(read32LittleEndian(buffer, offset));
+		return (float)FLOAT_LITTLE_ENDIAN.get(buffer, offset);
 	}
 	
 	public static float readFloatBigEndian(byte[] buffer, int offset) {
-		return Float.intBitsToFloat(read32BigEndian(buffer, offset));
+		return (float)FLOAT_BIG_ENDIAN.get(buffer, offset);
 	}
 	
 	public static long read64LittleEndian(byte[] buffer, int offset) {
-		int position = offset;
-		return
-				0xffL & buffer[position++] |
-				(0xffL & buffer[position++]) << 8 |
-				(0xffL & buffer[position++]) << 16 |
-				(0xffL & buffer[position++]) << 24 |
-				(0xffL & buffer[position++]) << 32 |
-				(0xffL & buffer[position++]) << 40 |
-				(0xffL & buffer[position++]) << 48 |
-				(0xffL & buffer[position]) << 56;
+		return (long)LONG_LITTLE_ENDIAN.get(buffer, offset);
 	}
 
 	public static long read64BigEndian(byte[] buffer, int offset) {
-		int position = offset;
-		return
-				(0xffL & buffer[position++]) << 56 |
-				(0xffL & buffer[position++]) << 48 |
-				(0xffL & buffer[position++]) << 40 |
-				(0xffL & buffer[position++]) << 32 |
-				(0xffL & buffer[position++]) << 24 |
-				(0xffL & buffer[position++]) << 16 |
-				(0xffL & buffer[position++]) << 8 |
-				0xffL & buffer[position++];
+		return (long)LONG_BIG_ENDIAN.get(buffer, offset);
 	}
 	
 	public static double readDoubleLittleEndian(byte[] buffer, int offset) {
-		return Double.longBitsToDouble(read64LittleEndian(buffer, offset));
+		return (double)DOUBLE_LITTLE_ENDIAN.get(buffer, offset);
 	}
 	
 	public static double readDoubleBigEndian(byte[] buffer, int offset) {
-		return Double.longBitsToDouble(read64BigEndian(buffer, offset));
+		return (double)DOUBLE_BIG_ENDIAN.get(buffer, offset);
 	}
 	
 	public static void checkRemaining(byte[] buffer, int offset, int count) {
@@ -1,8 +1,17 @@
 package org.emmef.samples.serialization;
 
+import static org.emmef.samples.serialization.ByteArrayViews.*;
+
 import java.io.IOException;
 import java.io.OutputStream;
 
+/**
+ * Writes integers and floating point values to streams or byte arrays.
+ * <p>
+ * Values are written to byte arrays with a single access per value, except
+ * 24-bit values, that are written byte by byte so that the bytes around them
+ * are left untouched.
+ */
 public class Serialize {
 	public static void write08(int value, byte[] buffer, int offset) {
 		buffer[offset] = (byte)value;
@@ -13,8 +22,7 @@ public class Serialize {
 	}
 	
 	public static void write16BigEndian(int value, byte[] buffer, int offset) {
-		buffer[offset] = (byte)(value >> 8);
-		buffer[offset + 1] = (byte)value;
+		SHORT_BIG_ENDIAN.set(buffer, offset, (short)value);
 	}
 	
 	public static void write16BigEndian(int value, OutputStream stream) throws IOException  {
@@ -23,8 +31,7 @@ public class Serialize {
 	}
 	
 	public static void write16LittleEndian(int value, byte[] buffer, int offset) {
-		buffer[offset] = (byte)value;
-		buffer[offset + 1] = (byte)(value >> 8);
+		SHORT_LITTLE_ENDIAN.set(buffer, offset, (short)value);
 	}
 	
 	public static void write16LittleEndian(int value, OutputStream stream) throws IOException  {
@@ -57,10 +64,7 @@ public class Serialize {
 	}
 
 	public static void write32BigEndian(int value, byte[] buffer, int offset) {
-		buffer[offset] = (byte)(value >> 24);
-		buffer[offset + 1] = (byte)(value >> 16);
-		buffer[offset + 2] = (byte)(value >> 8);
-		buffer[offset + 3] = (byte)value;
+		INT_BIG_ENDIAN.set(buffer, offset, value);
 	}
 	
 	public static void write32BigEndian(int value, OutputStream stream) throws IOException  {
@@ -71,10 +75,7 @@ public class Serialize {
 	}
 
 	public static void write32LittleEndian(int value, byte[] buffer, int offset) {
-		buffer[offset] = (byte)value;
-		buffer[offset + 1] = (byte)(value >> 8);
-		buffer[offset + 2] = (byte)(value >> 16);
-		buffer[offset + 3] = (byte)(value >> 24);
+		INT_LITTLE_ENDIAN.set(buffer, offset, value);
 	}
 	
 	public static void write32LittleEndian(int value, OutputStream stream) throws IOException  {
@@ -85,14 +86,7 @@ public class Serialize {
 	}
 	
 	public static void write64BigEndian(long value, byte[] buffer, int offset) {
-		buffer[offset] = (byte)(value >> 56);
-		buffer[offset + 1] = (byte)(value >> 48);
-		buffer[offset + 2] = (byte)(value >> 40);
-		buffer[offset + 3] = (byte)(value >> 32);
-		buffer[offset + 4] = (byte)(value >> 24);
-		buffer[offset + 5] = (byte)(value >> 16);
-		buffer[offset + 6] = (byte)(value >> 8);
-		buffer[offset + 7] = (byte)value;
+		LONG_BIG_ENDIAN.set(buffer, offset, value);
 	}
 	
 	public static void write64BigEndian(long value, OutputStream stream) throws IOException  {
@@ -107,14 +101,7 @@ public class Serialize {
 	}
 	
 	public static void write64LittleEndian(long value, byte[] buffer, int offset) {
-		buffer[offset] = (byte)value;
-		buffer[offset + 1] = (byte)(value >> 8);
-		buffer[offset + 2] = (byte)(value >> 16);
-		buffer[offset + 3] = (byte)(value >> 24);
-		buffer[offset + 4] = (byte)(value >> 32);
-		buffer[offset + 5] = (byte)(value >> 40);
-		buffer[offset + 6] = (byte)(value >> 48);
-		buffer[offset + 7] = (byte)(value >> 56);
+		LONG_LITTLE_ENDIAN.set(buffer, offset, value);
 	}
 	
 	public static void write64LittleEndian(long value, OutputStream stream) throws IOException  {
@@ -129,7 +116,7 @@ public class Serialize {
 	}
 
 	public static void writeDoubleBigEndian(double value, byte[] buffer, int offset) {
-		write64BigEndian(Double.doubleToRawLongBits(value), buffer, offset);
+		DOUBLE_BIG_ENDIAN.set(buffer, offset, value);
 	}
 	
 	public static void writeDoubleBigEndian(double value, OutputStream stream) throws IOException {
@@ -137,7 +124,7 @@ public class Serialize {
 	}
 	
 	public static void writeDoubleLittleEndian(double value, byte[] buffer, int offset) {
-		write64LittleEndian(Double.doubleToRawLongBits(value), buffer, offset);
+		DOUBLE_LITTLE_ENDIAN.set(buffer, offset, value);
 	}
 	
 	public static void writeDoubleLittleEndian(double value, OutputStream stream) throws IOException {
@@ -145,7 +132,7 @@ public class Serialize {
 	}
 	
 	public static void writeFloatBigEndian(float value, byte[] buffer, int offset) {
-		write32BigEndian(Float.floatToRawIntBits(value), buffer, offset);
+		FLOAT_BIG_ENDIAN.set(buffer, offset, value);
 	}
 	
 	public static void writeFloatBigEndian(float value, OutputStream stream) throws IOException  {
@@ -153,7 +140,7 @@ public class Serialize {
 	}
 	
 	public static void writeFloatLittleEndian(float value, byte[] buffer, int offset) {
-		write32LittleEndian(Float.floatToRawIntBits(value), buffer, offset);
+		FLOAT_LITTLE_ENDIAN.set(buffer, offset, value);
 	}
 	
 	public static void writeFloatLittleEndian(int floatValue, OutputStream stream) throws IOException  {
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -14,6 +15,8 @@ import org.junit.Test;
 
 public class SerializationTest {
 	private static final String HEXDIGITS = "0123456789abcdef";
+	private static final int SAMPLE_24_MIN = -0x800000;
+	private static final int SAMPLE_24_MAX = 0x7fffff;
 	
 	@Test
 	public void testReadWrite8Bits() throws IOException {
@@ -371,6 +374,48 @@ public class SerializationTest {
 		}
 	}
 
+	@Test
+	public void testRead24BitsAtAnyPositionInBuffer() {
+		final int[] values = { 0, 1, -1, 0x123456, -0x123456, SAMPLE_24_MIN, SAMPLE_24_MAX };
+		for (int length = 3; length <= 6; length++) {
+			for (int offset = 0; offset <= length - 3; offset++) {
+				for (int value : values) {
+					final byte[] buffer = new byte[length];
+					Arrays.fill(buffer, (byte)0xa5);
+					Serialize.write24LittleEndian(value, buffer, offset);
+					assertEquals(value, Deserialize.read24LittleEndian(buffer, offset));
+					Arrays.fill(buffer, (byte)0x5a);
+					Serialize.write24BigEndian(value, buffer, offset);
+					assertEquals(value, Deserialize.read24BigEndian(buffer, offset));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testReadWriteFloatingPoint() {
+		final byte[] buffer = new byte[11];
+		final double[] values = { 0.0, -0.0, 1.0, -1.5e-30, Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN, Double.NEGATIVE_INFINITY };
+		for (int offset = 0; offset <= 3; offset++) {
+			for (double value : values) {
+				Serialize.writeDoubleLittleEndian(value, buffer, offset);
+				assertEquals(Double.doubleToRawLongBits(value), Deserialize.read64LittleEndian(buffer, offset));
+				assertEquals(value, Deserialize.readDoubleLittleEndian(buffer, offset), 0.0);
+				Serialize.writeDoubleBigEndian(value, buffer, offset);
+				assertEquals(Double.doubleToRawLongBits(value), Deserialize.read64BigEndian(buffer, offset));
+				assertEquals(value, Deserialize.readDoubleBigEndian(buffer, offset), 0.0);
+
+				final float floatValue = (float)value;
+				Serialize.writeFloatLittleEndian(floatValue, buffer, offset);
+				assertEquals(Float.floatToRawIntBits(floatValue), Deserialize.read32LittleEndian(buffer, offset));
+				assertEquals(floatValue, Deserialize.readFloatLittleEndian(buffer, offset), 0.0f);
+				Serialize.writeFloatBigEndian(floatValue, buffer, offset);
+				assertEquals(Float.floatToRawIntBits(floatValue), Deserialize.read32BigEndian(buffer, offset));
+				assertEquals(floatValue, Deserialize.readFloatBigEndian(buffer, offset), 0.0f);
+			}
+		}
+	}
+
 	private String createDigits(List<Byte> input, StringBuilder builder) {
 		builder.setLength(0);
 		for (int i = 0; i < input.size(); i++) {
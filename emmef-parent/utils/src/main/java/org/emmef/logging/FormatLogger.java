@@ -52,7 +52,7 @@ public class FormatLogger implements Logger {
 	@Override
 	public void trace(String format, Object arg) {
 		if (isTraceEnabled()) {
-			delegate.trace(TOSTRING_FORMAT, new LogRecord(TOSTRING_FORMAT, arg));
+			delegate.trace(TOSTRING_FORMAT, new LogRecord(format, arg));
 		}
 	}
 
@@ -449,6 +449,222 @@ public class FormatLogger implements Logger {
 		delegate.error(marker, TOSTRING_FORMAT, object);
 	}
 
+	/*
+	 * Overloads with primitive arguments. Unlike the overloads that take
+	 * objects, these do not box the arguments or allocate an array if the level
+	 * is disabled. Integral arguments always resolve to a long parameter, so
+	 * that they can be formatted with %d.
+	 */
+	public void trace(String format, double arg) {
+		if (isTraceEnabled()) {
+			delegate.trace(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void trace(String format, long arg) {
+		if (isTraceEnabled()) {
+			delegate.trace(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void trace(String format, double arg1, double arg2) {
+		if (isTraceEnabled()) {
+			delegate.trace(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void trace(String format, long arg1, double arg2) {
+		if (isTraceEnabled()) {
+			delegate.trace(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void trace(String format, double arg1, long arg2) {
+		if (isTraceEnabled()) {
+			delegate.trace(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void trace(String format, long arg1, long arg2) {
+		if (isTraceEnabled()) {
+			delegate.trace(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void trace(String format, Object arg1, long arg2) {
+		if (isTraceEnabled()) {
+			delegate.trace(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void debug(String format, double arg) {
+		if (isDebugEnabled()) {
+			delegate.debug(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void debug(String format, long arg) {
+		if (isDebugEnabled()) {
+			delegate.debug(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void debug(String format, double arg1, double arg2) {
+		if (isDebugEnabled()) {
+			delegate.debug(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void debug(String format, long arg1, double arg2) {
+		if (isDebugEnabled()) {
+			delegate.debug(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void debug(String format, double arg1, long arg2) {
+		if (isDebugEnabled()) {
+			delegate.debug(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void debug(String format, long arg1, long arg2) {
+		if (isDebugEnabled()) {
+			delegate.debug(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void debug(String format, Object arg1, long arg2) {
+		if (isDebugEnabled()) {
+			delegate.debug(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void info(String format, double arg) {
+		if (isInfoEnabled()) {
+			delegate.info(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void info(String format, long arg) {
+		if (isInfoEnabled()) {
+			delegate.info(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void info(String format, double arg1, double arg2) {
+		if (isInfoEnabled()) {
+			delegate.info(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void info(String format, long arg1, double arg2) {
+		if (isInfoEnabled()) {
+			delegate.info(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void info(String format, double arg1, long arg2) {
+		if (isInfoEnabled()) {
+			delegate.info(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void info(String format, long arg1, long arg2) {
+		if (isInfoEnabled()) {
+			delegate.info(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void info(String format, Object arg1, long arg2) {
+		if (isInfoEnabled()) {
+			delegate.info(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void warn(String format, double arg) {
+		if (isWarnEnabled()) {
+			delegate.warn(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void warn(String format, long arg) {
+		if (isWarnEnabled()) {
+			delegate.warn(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void warn(String format, double arg1, double arg2) {
+		if (isWarnEnabled()) {
+			delegate.warn(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void warn(String format, long arg1, double arg2) {
+		if (isWarnEnabled()) {
+			delegate.warn(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void warn(String format, double arg1, long arg2) {
+		if (isWarnEnabled()) {
+			delegate.warn(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void warn(String format, long arg1, long arg2) {
+		if (isWarnEnabled()) {
+			delegate.warn(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void warn(String format, Object arg1, long arg2) {
+		if (isWarnEnabled()) {
+			delegate.warn(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void error(String format, double arg) {
+		if (isErrorEnabled()) {
+			delegate.error(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void error(String format, long arg) {
+		if (isErrorEnabled()) {
+			delegate.error(TOSTRING_FORMAT, new LogRecord(format, arg));
+		}
+	}
+
+	public void error(String format, double arg1, double arg2) {
+		if (isErrorEnabled()) {
+			delegate.error(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void error(String format, long arg1, double arg2) {
+		if (isErrorEnabled()) {
+			delegate.error(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void error(String format, double arg1, long arg2) {
+		if (isErrorEnabled()) {
+			delegate.error(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void error(String format, long arg1, long arg2) {
+		if (isErrorEnabled()) {
+			delegate.error(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
+	public void error(String format, Object arg1, long arg2) {
+		if (isErrorEnabled()) {
+			delegate.error(TOSTRING_FORMAT, new LogRecord(format, arg1, arg2));
+		}
+	}
+
 	private static class LogRecord {
 		private final String format;
 		private final Object[] arguments;
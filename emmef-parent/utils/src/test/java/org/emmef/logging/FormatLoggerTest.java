@@ -0,0 +1,68 @@
+package org.emmef.logging;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+public class FormatLoggerTest {
+	private final List<Object> logged = new ArrayList<>();
+	private boolean enabled;
+	private FormatLogger logger;
+
+	@Before
+	public void createLogger() {
+		logged.clear();
+		enabled = true;
+		final Logger delegate = (Logger)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Logger.class }, (proxy, method, args) -> {
+			if (method.getName().startsWith("is")) {
+				return enabled;
+			}
+			logged.add(args[args.length - 1]);
+			return null;
+		});
+		logger = new FormatLogger(delegate);
+	}
+
+	@Test
+	public void testPrimitiveArgumentsAreFormatted() {
+		logger.debug("%1.1f", 1.25);
+		logger.info("%d", 42L);
+		logger.warn("%1.1f/%1.1f", 1.0, 2.0);
+		logger.error("%d: %1.1e", 3, 0.5);
+		logger.trace("%s has %d", "band", 7L);
+		logger.info("%1.1f dB (%d samples)", 6.0, 10);
+		logger.info("%d of %d", 1, 2);
+
+		assertEquals(7, logged.size());
+		assertEquals("1.3", logged.get(0).toString());
+		assertEquals("42", logged.get(1).toString());
+		assertEquals("1.0/2.0", logged.get(2).toString());
+		assertEquals("3: 5.0e-01", logged.get(3).toString());
+		assertEquals("band has 7", logged.get(4).toString());
+		assertEquals("6.0 dB (10 samples)", logged.get(5).toString());
+		assertEquals("1 of 2", logged.get(6).toString());
+	}
+
+	@Test
+	public void testSingleObjectArgumentUsesFormat() {
+		logger.trace("value=%s", "x");
+
+		assertEquals("value=x", logged.get(0).toString());
+	}
+
+	@Test
+	public void testNothingLoggedIfDisabled() {
+		enabled = false;
+		logger.trace("%1.1f", 1.0);
+		logger.debug("%d", 1L);
+		logger.info("%1.1f %1.1f", 1.0, 2.0);
+
+		assertTrue(logged.isEmpty());
+	}
+}
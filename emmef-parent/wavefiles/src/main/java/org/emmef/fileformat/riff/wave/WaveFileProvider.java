@@ -27,6 +27,43 @@ public class WaveFileProvider implements SoundSourceAndSinkProvider {
 	public static final int MINIMUM_BUFFER_SIZE = 102400;
 	public static final int MAXIMUM_BUFFER_SIZE = 104857600;
 
+	private final boolean mapped;
+	private final int writeBuffers;
+
+	/**
+	 * Creates a provider whose sources read wave files from a stream.
+	 */
+	public WaveFileProvider() {
+		this(false);
+	}
+
+	/**
+	 * Creates a provider whose sources read wave files from a stream, or map
+	 * their audio data in memory, which also makes them seekable.
+	 *
+	 * @param mapped whether sources map their audio data in memory
+	 */
+	public WaveFileProvider(boolean mapped) {
+		this(mapped, 1);
+	}
+
+	/**
+	 * Creates a provider whose sources read wave files from a stream, or map
+	 * their audio data in memory, and whose sinks write with the given number
+	 * of buffers. With more than one buffer, sinks write full buffers on a
+	 * background thread.
+	 *
+	 * @param mapped whether sources map their audio data in memory
+	 * @param writeBuffers number of buffers of each sink
+	 */
+	public WaveFileProvider(boolean mapped, int writeBuffers) {
+		if (writeBuffers < 1) {
+			throw new IllegalArgumentException("Number of write buffers must be at least 1");
+		}
+		this.mapped = mapped;
+		this.writeBuffers = writeBuffers;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getName();
@@ -43,7 +80,8 @@ public class WaveFileProvider implements SoundSourceAndSinkProvider {
 		try {
 			return new WaveFileReader(
 					getFileFromUri(sourceUri),
-					getBufferSize(bufferHint));
+					getBufferSize(bufferHint),
+					mapped);
 		}
 		catch (IOException e) {
 			throw new IllegalStateException(e);
@@ -63,7 +101,8 @@ public class WaveFileProvider implements SoundSourceAndSinkProvider {
 			return new WaveFileWriter(
 					getFileFromUri(sourceUri),
 					format,
-					getBufferSize(bufferHint));
+					getBufferSize(bufferHint),
+					writeBuffers);
 		}
 		catch (IOException e) {
 			throw new IllegalStateException(e);
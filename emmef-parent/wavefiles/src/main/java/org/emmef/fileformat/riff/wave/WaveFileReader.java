@@ -4,13 +4,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.util.List;
 
 import org.emmef.audio.format.AudioFormat;
 import org.emmef.audio.format.SoundMetrics;
 import org.emmef.audio.frame.Whence;
-import org.emmef.audio.nodes.SoundSource;
+import org.emmef.audio.nodes.RandomAccessSoundSource;
 import org.emmef.fileformat.iff.ContentChunk;
 import org.emmef.fileformat.iff.InterchangeChunk;
 import org.emmef.fileformat.iff.InterchangeFormatException;
@@ -19,19 +19,31 @@ import org.emmef.fileformat.riff.RiffTypeFactory;
 import org.emmef.fileformat.riff.WaveBuilderFactory;
 import org.emmef.logging.FormatLogger;
 import org.emmef.samples.codec.FrameReader;
+import org.emmef.samples.codec.MappedFrameReader;
+import org.emmef.samples.codec.SampleCodec;
 
 import com.google.common.base.Preconditions;
 
-class WaveFileReader implements SoundSource, AutoCloseable {
+/**
+ * Reads the frames of a wave file, either from a stream or from a
+ * memory-mapped data chunk. The latter also supports seeking and reading
+ * frames at any position.
+ */
+class WaveFileReader implements RandomAccessSoundSource, AutoCloseable {
 	private static final FormatLogger log = FormatLogger.getLogger(WaveFileReader.class);
 	private final AudioFormat audioFormat;
-	private final InputStream stream;
+	private final FileInputStream stream;
 	private final FrameReader frameReader;
+	private final MappedFrameReader mappedReader;
 	private final long frameCount;
 	private final List<InterchangeChunk> readChunks;
 	private final File file;
 	
 	WaveFileReader(File file, int bufferSize) throws FileNotFoundException, IOException, InterchangeFormatException {
+		this(file, bufferSize, false);
+	}
+
+	WaveFileReader(File file, int bufferSize, boolean mapped) throws FileNotFoundException, IOException, InterchangeFormatException {
 		Preconditions.checkNotNull(file, "file");
 		this.file = file;
 		stream = new FileInputStream(file);
@@ -64,9 +76,19 @@ class WaveFileReader implements SoundSource, AutoCloseable {
 			
 			audioFormat = AudioFormatChunks.fromChunks(formatChunk);
 			frameCount = obtainValidatedNumberOfFrames(dataChunk, factChunk, formatChunk, audioFormat);
-			frameReader = new FrameReader(audioFormat.getChannels(), bufferSize, stream, frameCount, WaveFileUtil.selectCodec(audioFormat));
+			final SampleCodec codec = WaveFileUtil.selectCodec(audioFormat);
+			if (mapped) {
+				// the parser stops at the start of the content of the data chunk
+				final FileChannel channel = stream.getChannel();
+				mappedReader = new MappedFrameReader(audioFormat.getChannels(), channel, channel.position(), frameCount, codec);
+				frameReader = null;
+			}
+			else {
+				frameReader = new FrameReader(audioFormat.getChannels(), bufferSize, stream, frameCount, codec);
+				mappedReader = null;
+			}
 			ready = true;
-			log.debug("WAVE IN \"%s\"; %s", file, AudioFormatChunks.fromChunks(formatChunk));
+			log.debug("WAVE IN \"%s\"; %s%s", file, AudioFormatChunks.fromChunks(formatChunk), mapped ? "; mapped" : "");
 		}
 		finally {
 			if (!ready) {
@@ -87,6 +109,10 @@ class WaveFileReader implements SoundSource, AutoCloseable {
 	
 	@Override
 	public SoundMetrics getMetrics() {
+		if (mappedReader != null) {
+			// a truncated data chunk is only mapped up to the end of the file
+			return new SoundMetrics(audioFormat, mappedReader.getFrameCount(), true);
+		}
 		return new SoundMetrics(audioFormat, frameCount, false);
 	}
 
@@ -97,27 +123,45 @@ class WaveFileReader implements SoundSource, AutoCloseable {
 
 	@Override
 	public long seekFrame(long framePosition, Whence whence) throws IOException {
-		throw new UnsupportedOperationException("Seeking not yet supported");
+		final MappedFrameReader reader = getMappedReader();
+		switch (Preconditions.checkNotNull(whence, "whence")) {
+		case SET:
+			return reader.seek(framePosition);
+		case FROM_CURRENT:
+			return reader.seek(reader.getPosition() + framePosition);
+		default:
+			return reader.seek(reader.getFrameCount() + framePosition);
+		}
 	}
 
 	@Override
 	public long readFrames(double[] buffer) throws IOException {
-		return readFrames(buffer, buffer.length / frameReader.getChannels());
+		return readFrames(buffer, buffer.length / audioFormat.getChannels());
 	}
 
 	@Override
 	public long readFrames(float[] buffer) throws IOException {
-		return readFrames(buffer, buffer.length / frameReader.getChannels());
+		return readFrames(buffer, buffer.length / audioFormat.getChannels());
 	}
 
 	@Override
 	public long readFrames(double[] buffer, int frameCount)throws IOException {
-		return frameReader.read(buffer, 0, frameCount);
+		return mappedReader != null ? mappedReader.read(buffer, 0, frameCount) : frameReader.read(buffer, 0, frameCount);
 	}
 
 	@Override
 	public long readFrames(float[] buffer, int frameCount) throws IOException {
-		return frameReader.read(buffer, 0, frameCount);
+		return mappedReader != null ? mappedReader.read(buffer, 0, frameCount) : frameReader.read(buffer, 0, frameCount);
+	}
+
+	@Override
+	public long readFrames(long framePosition, double[] buffer, int frameCount) throws IOException {
+		return getMappedReader().read(framePosition, buffer, 0, frameCount);
+	}
+
+	@Override
+	public long readFrames(long framePosition, float[] buffer, int frameCount) throws IOException {
+		return getMappedReader().read(framePosition, buffer, 0, frameCount);
 	}
 	
 	@Override
@@ -125,6 +169,13 @@ class WaveFileReader implements SoundSource, AutoCloseable {
 		return getClass().getSimpleName() + "(type=" + audioFormat + "; file=\"" + file.getAbsolutePath() + "\")";
 	}
 
+	private MappedFrameReader getMappedReader() {
+		if (mappedReader != null) {
+			return mappedReader;
+		}
+		throw new UnsupportedOperationException("Seeking is only supported when reading a memory-mapped file");
+	}
+
 	private long obtainValidatedNumberOfFrames(ContentChunk dataChunk, AudioFactChunk factChunk, AudioFormatChunk formatChunk, AudioFormat audioFormat) {
 		long frameCount;
 			int bytesPerFrame;
@@ -41,6 +41,14 @@ class WaveFileWriter implements SoundSink {
 	private final File file;
 
 	public WaveFileWriter(File file, AudioFormat audioFormat, int bufferSize) throws IOException, InvalidContentTypeIdentfierException {
+		this(file, audioFormat, bufferSize, 1);
+	}
+
+	/**
+	 * Creates a writer that writes with the given number of buffers. With more
+	 * than one buffer, full buffers are written on a background thread.
+	 */
+	public WaveFileWriter(File file, AudioFormat audioFormat, int bufferSize, int buffers) throws IOException, InvalidContentTypeIdentfierException {
 		this.audioFormat = audioFormat;
 		checkNotNull(file, "file");
 		checkNotNull(audioFormat, "audioFormat");
@@ -64,9 +72,13 @@ class WaveFileWriter implements SoundSink {
 		codec = WaveFileUtil.selectCodec(audioFormat);
 		
 		boolean openSuccess = false;
+		FrameWriter writer = null;
 		stream = new FileOutputStream(file);
 		try {
-			frameWriter = new FrameWriter(audioFormat.getChannels(), stream, codec, bufferSize, lock);
+			writer = buffers > 1
+					? new FrameWriter(audioFormat.getChannels(), stream.getChannel(), codec, bufferSize, buffers, lock)
+					: new FrameWriter(audioFormat.getChannels(), stream, codec, bufferSize, lock);
+			frameWriter = writer;
 			unsafeCommit(true);
 			
 			openSuccess = true;
@@ -75,7 +87,7 @@ class WaveFileWriter implements SoundSink {
 		finally {
 			if (!openSuccess) {
 				log.error("Couldn't open for writing " + file);
-				stream.close();
+				closeAfterFailedOpen(writer);
 			}
 		}
 	}
@@ -127,8 +139,14 @@ class WaveFileWriter implements SoundSink {
 	@Override
 	public void close() throws IOException {
 		synchronized (lock) {
-			unsafeCommit(false);
-			stream.close();
+			try (FileOutputStream closing = stream) {
+				try {
+					unsafeCommit(false);
+				}
+				finally {
+					frameWriter.close();
+				}
+			}
 		}
 	}
 	
@@ -163,6 +181,27 @@ class WaveFileWriter implements SoundSink {
 		return getClass().getSimpleName() + "(type=" + audioFormat + "; file=\"" + file.getAbsolutePath() + "\")";
 	}
 
+	/**
+	 * Stops the background thread of the frame writer, if any, and closes the
+	 * stream, without hiding the exception that made opening fail.
+	 */
+	private void closeAfterFailedOpen(FrameWriter writer) {
+		try {
+			if (writer != null) {
+				writer.close();
+			}
+		}
+		catch (IOException e) {
+			log.error("Couldn't close frame writer of " + file, e);
+		}
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.error("Couldn't close " + file, e);
+		}
+	}
+
 	private long unsafeCommit(boolean truncate) throws IOException {
 		long framePosition = frameWriter.flush();
 		FileChannel channel = stream.getChannel();